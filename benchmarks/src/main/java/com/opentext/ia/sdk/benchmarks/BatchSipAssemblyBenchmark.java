@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import com.opentext.ia.sdk.sip.BatchSipAssembler;
+import com.opentext.ia.sdk.sip.DefaultPackagingInformationFactory;
+import com.opentext.ia.sdk.sip.FileGenerationMetrics;
+import com.opentext.ia.sdk.sip.SipAssembler;
+import com.opentext.ia.sdk.sip.SipSegmentationStrategy;
+import com.opentext.ia.sdk.support.io.NoHashAssembler;
+
+
+/**
+ * Benchmark for assembling a batch of SIPs end to end. The primary result is in AIUs per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchSipAssemblyBenchmark {
+
+  static final int NUM_AIUS = 400;
+  private static final int NUM_SIPS = 4;
+
+  @Param
+  private ContentAssemblers contentAssembler;
+  @Param
+  private Buffers buffer;
+  @Param
+  private ObjectSizes objectSizes;
+
+  private Workload workload;
+  private File dir;
+
+  @Setup
+  public void init() throws IOException {
+    workload = new Workload(objectSizes, NUM_AIUS);
+    dir = Files.createTempDirectory("batch-sip-assembly")
+      .toFile();
+  }
+
+  @TearDown
+  public void done() throws IOException {
+    FileUtils.deleteDirectory(dir);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NUM_AIUS)
+  public Collection<FileGenerationMetrics> assembleSips(Throughput throughput) throws IOException {
+    SipAssembler<Document> assembler = new SipAssembler<>(
+        new DefaultPackagingInformationFactory(workload.packagingInformation()), workload.pdiAssembler(),
+        new NoHashAssembler(), () -> buffer.create(new File(dir, "pdi.xml")), contentAssembler.create(workload));
+    AtomicInteger numSips = new AtomicInteger();
+    // Reuse the same files in each invocation, so the benchmark doesn't fill up the disk
+    BatchSipAssembler<Document> batch = new BatchSipAssembler<>(assembler,
+        SipSegmentationStrategy.byMaxAius(NUM_AIUS / NUM_SIPS),
+        () -> new File(dir, "sip-" + numSips.getAndIncrement() + ".zip"));
+    for (Document document : workload.getDocuments()) {
+      batch.add(document);
+    }
+    batch.end();
+    throughput.processed(workload.getNumBytes());
+    return batch.getSipsMetrics();
+  }
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmarks;
+
+import java.io.File;
+
+import com.opentext.ia.sdk.support.io.DataBuffer;
+import com.opentext.ia.sdk.support.io.FileBuffer;
+import com.opentext.ia.sdk.support.io.MemoryBuffer;
+
+
+/**
+ * The variants of {@linkplain DataBuffer} to benchmark.
+ */
+public enum Buffers {
+
+  MEMORY {
+    @Override
+    DataBuffer create(File file) {
+      return new MemoryBuffer();
+    }
+  },
+
+  FILE {
+    @Override
+    DataBuffer create(File file) {
+      return new FileBuffer(file);
+    }
+  };
+
+  /**
+   * Create a buffer.
+   * @param file The file to store the data in, for buffers that use files
+   * @return A new buffer
+   */
+  abstract DataBuffer create(File file);
+
+}
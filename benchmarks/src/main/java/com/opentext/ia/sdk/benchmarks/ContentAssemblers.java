@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmarks;
+
+import com.opentext.ia.sdk.sip.ContentAssembler;
+import com.opentext.ia.sdk.support.io.SingleHashAssembler;
+
+
+/**
+ * The variants of {@linkplain ContentAssembler} to benchmark.
+ */
+public enum ContentAssemblers {
+
+  NO_DEDUP {
+    @Override
+    ContentAssembler<Document> create(Workload workload) {
+      return ContentAssembler.noDedup(workload.extraction(false), new SingleHashAssembler());
+    }
+  },
+
+  WITH_DEDUP_ON_RI {
+    @Override
+    ContentAssembler<Document> create(Workload workload) {
+      return ContentAssembler.withDedupOnRi(workload.extraction(true), new SingleHashAssembler());
+    }
+  },
+
+  WITH_DEDUP_ON_HASH {
+    @Override
+    ContentAssembler<Document> create(Workload workload) {
+      return ContentAssembler.withDedupOnHash(workload.extraction(false), new SingleHashAssembler());
+    }
+  };
+
+  /**
+   * Create a content assembler for the given workload.
+   * @param workload The workload to assemble content for
+   * @return A new content assembler
+   */
+  abstract ContentAssembler<Document> create(Workload workload);
+
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmarks;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+
+import com.opentext.ia.sdk.support.io.DataBuffer;
+
+
+/**
+ * Buffer that only counts the data written to it, so that benchmarks measure producing the data rather than storing it.
+ */
+public class DiscardingBuffer implements DataBuffer {
+
+  private CountingOutputStream output = new CountingOutputStream(new NullOutputStream());
+
+  @Override
+  public InputStream openForReading() {
+    throw new UnsupportedOperationException("Data is discarded");
+  }
+
+  @Override
+  public OutputStream openForWriting() {
+    output = new CountingOutputStream(new NullOutputStream());
+    return output;
+  }
+
+  @Override
+  public long length() {
+    return output.getByteCount();
+  }
+
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmarks;
+
+
+/**
+ * Synthetic domain object with a single digital object.
+ */
+public class Document {
+
+  private final String id;
+  private final String contentId;
+  private final byte[] content;
+
+  @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+  Document(String id, String contentId, byte[] content) {
+    this.id = id;
+    this.contentId = contentId;
+    this.content = content;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getContentId() {
+    return contentId;
+  }
+
+  @SuppressWarnings("PMD.MethodReturnsInternalArray")
+  byte[] getContent() {
+    return content;
+  }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmarks;
+
+import java.util.Random;
+
+
+/**
+ * Distributions of the sizes of the digital objects in a {@linkplain Workload}.
+ */
+public enum ObjectSizes {
+
+  /**
+   * Only small objects, like e-mails or short text documents.
+   */
+  SMALL {
+    @Override
+    int next(Random random) {
+      return between(1, 4, random);
+    }
+  },
+
+  /**
+   * Mostly small objects, with an occasional large one, like a typical mix of office documents.
+   */
+  MIXED {
+    @Override
+    int next(Random random) {
+      return random.nextInt(10) == 0 ? between(256, 1024, random) : between(2, 16, random);
+    }
+  },
+
+  /**
+   * Only large objects, like scanned images.
+   */
+  LARGE {
+    @Override
+    int next(Random random) {
+      return between(256, 512, random);
+    }
+  };
+
+  private static final int KB = 1024;
+
+  private static int between(int minKb, int maxKb, Random random) {
+    return KB * minKb + random.nextInt(KB * (maxKb - minKb));
+  }
+
+  /**
+   * Returns the size of the next digital object.
+   * @param random The source of randomness
+   * @return The size of the next digital object in bytes
+   */
+  abstract int next(Random random);
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmarks;
+
+import java.net.URI;
+import java.util.Map;
+
+import com.opentext.ia.sdk.sip.ContentInfo;
+import com.opentext.ia.sdk.sip.PdiAssembler;
+import com.opentext.ia.sdk.sip.TemplatePdiAssembler;
+import com.opentext.ia.sdk.sip.XmlPdiAssembler;
+import com.opentext.ia.sdk.support.datetime.Dates;
+import com.opentext.ia.sip.assembly.stringtemplate.StringTemplate;
+import com.opentext.ia.sip.assembly.velocity.VelocityTemplate;
+
+
+/**
+ * The ways of rendering PDIs to benchmark. They all render the same XML for a {@linkplain Row}, apart from whitespace.
+ */
+public enum PdiEngines {
+
+  XML_BUILDER {
+    @Override
+    PdiAssembler<Row> create() {
+      return xmlPdiAssembler(false);
+    }
+  },
+
+  XML_BUILDER_COMPACT {
+    @Override
+    PdiAssembler<Row> create() {
+      return xmlPdiAssembler(true);
+    }
+  },
+
+  STRING_TEMPLATE {
+    @Override
+    PdiAssembler<Row> create() {
+      return new TemplatePdiAssembler<>(new StringTemplate<>(HEADER, FOOTER, "<row><id>$model.id$</id>"
+          + "<name>$model.name$</name><created>$model.created$</created><amount>$model.amount$</amount>"
+          + "$content:{ri|<content ri=\"$ri$\"><hashes>$content.(ri).contentHashes:{hash|<hash "
+          + "algorithm=\"$hash.hashFunction$\" encoding=\"$hash.encoding$\" value=\"$hash.value$\"/>}$</hashes>"
+          + "</content>}$</row>\n"));
+    }
+  },
+
+  VELOCITY {
+    @Override
+    PdiAssembler<Row> create() {
+      return new TemplatePdiAssembler<>(new VelocityTemplate<>(HEADER, FOOTER, "<row><id>$model.id</id>"
+          + "<name>$model.name</name><created>$isodate.format($model.created)</created>"
+          + "<amount>$model.amount</amount>#foreach($info in $content.values())<content "
+          + "ri=\"$info.referenceInformation\"><hashes>#foreach($hash in $info.contentHashes)<hash "
+          + "algorithm=\"$hash.hashFunction\" encoding=\"$hash.encoding\" value=\"$hash.value\"/>#end</hashes>"
+          + "</content>#end</row>\n"));
+    }
+  };
+
+  private static final String NAMESPACE = "urn:com.opentext.ia.sdk.benchmarks:1.0";
+  private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<rows xmlns=\"" + NAMESPACE
+      + "\">\n";
+  private static final String FOOTER = "</rows>\n";
+
+  private static PdiAssembler<Row> xmlPdiAssembler(boolean compact) {
+    XmlPdiAssembler<Row> result = new XmlPdiAssembler<Row>(URI.create(NAMESPACE), "rows", "row") {
+      @Override
+      protected void doAdd(Row row, Map<String, ContentInfo> contentInfo) {
+        getBuilder().element("id", row.getId())
+          .element("name", row.getName())
+          .element("created", Dates.toIso(row.getCreated()))
+          .element("amount", Long.toString(row.getAmount()));
+        contentInfo.values()
+          .forEach(info -> getBuilder().element("content")
+            .attribute("ri", info.getReferenceInformation())
+            .elements("hashes", "hash", info.getContentHashes(), (hash, builder) -> builder
+              .attribute("algorithm", hash.getHashFunction())
+              .attribute("encoding", hash.getEncoding())
+              .attribute("value", hash.getValue()))
+            .end());
+      }
+    };
+    result.setCompact(compact);
+    return result;
+  }
+
+  /**
+   * Create an assembler that renders rows into a PDI.
+   * @return A new PDI assembler
+   */
+  abstract PdiAssembler<Row> create();
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.opentext.ia.sdk.sip.ContentInfo;
+import com.opentext.ia.sdk.sip.HashedContents;
+import com.opentext.ia.sdk.sip.PdiAssembler;
+import com.opentext.ia.sdk.support.io.EncodedHash;
+import com.opentext.ia.sdk.support.io.Encoding;
+import com.opentext.ia.sdk.support.io.HashFunction;
+
+
+/**
+ * Benchmark for rendering rows into a PDI with each of the {@linkplain PdiEngines}. Each thread keeps adding rows to
+ * its own PDI for a whole iteration, so that the PDI grows as large as in a real batch. The primary result is in rows
+ * per second, so that <code>-prof gc</code> reports the bytes allocated per row.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdiRenderingBenchmark {
+
+  private static final int NUM_ROWS = 1024;
+  private static final long ONE_YEAR = TimeUnit.DAYS.toMillis(365);
+
+  @Param
+  private PdiEngines engine;
+
+  private final List<HashedContents<Row>> rows = new ArrayList<>(NUM_ROWS);
+  private PdiAssembler<Row> assembler;
+  private int next;
+
+  @Setup
+  public void init() {
+    Random random = new Random(NUM_ROWS);
+    rows.clear();
+    long now = System.currentTimeMillis();
+    for (int i = 0; i < NUM_ROWS; i++) {
+      String id = "row-" + i;
+      Row row = new Row(id, "Name " + random.nextInt(), new Date(now - (long)(random.nextDouble() * ONE_YEAR)),
+          random.nextInt(1_000_000));
+      rows.add(new HashedContents<>(row, contentInfo(id, random)));
+    }
+  }
+
+  private static Map<String, ContentInfo> contentInfo(String id, Random random) {
+    byte[] digest = new byte[32];
+    random.nextBytes(digest);
+    String ri = id + "/content";
+    EncodedHash hash = new EncodedHash(HashFunction.SHA256.toString(), Encoding.BASE64.toString(),
+        Encoding.BASE64.encode(digest));
+    return Collections.singletonMap(ri, new ContentInfo(ri, Collections.singleton(hash)));
+  }
+
+  @Setup(Level.Iteration)
+  public void startPdi() throws IOException {
+    assembler = engine.create();
+    assembler.start(new DiscardingBuffer());
+  }
+
+  @TearDown(Level.Iteration)
+  public void endPdi() throws IOException {
+    assembler.end();
+  }
+
+  @Benchmark
+  public void renderRow() throws IOException {
+    addRow();
+  }
+
+  private void addRow() throws IOException {
+    assembler.add(rows.get(next));
+    next = (next + 1) % NUM_ROWS;
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public void renderRowOnAllCores() throws IOException {
+    addRow();
+  }
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmarks;
+
+import java.util.Date;
+
+
+/**
+ * Synthetic domain object that is rendered as a row in a PDI.
+ */
+public class Row {
+
+  private final String id;
+  private final String name;
+  private final Date created;
+  private final long amount;
+
+  Row(String id, String name, Date created, long amount) {
+    this.id = id;
+    this.name = name;
+    this.created = created;
+    this.amount = amount;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public Date getCreated() {
+    return created;
+  }
+
+  public long getAmount() {
+    return amount;
+  }
+
+}
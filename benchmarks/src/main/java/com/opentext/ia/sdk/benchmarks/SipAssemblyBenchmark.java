@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import com.opentext.ia.sdk.sip.DefaultPackagingInformationFactory;
+import com.opentext.ia.sdk.sip.SipAssembler;
+import com.opentext.ia.sdk.sip.SipMetrics;
+import com.opentext.ia.sdk.support.io.NoHashAssembler;
+
+
+/**
+ * Benchmark for assembling a single SIP end to end. The primary result is in AIUs per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SipAssemblyBenchmark {
+
+  static final int NUM_AIUS = 200;
+
+  @Param
+  private ContentAssemblers contentAssembler;
+  @Param
+  private Buffers buffer;
+  @Param
+  private ObjectSizes objectSizes;
+
+  private Workload workload;
+  private File dir;
+
+  @Setup
+  public void init() throws IOException {
+    workload = new Workload(objectSizes, NUM_AIUS);
+    dir = Files.createTempDirectory("sip-assembly")
+      .toFile();
+  }
+
+  @TearDown
+  public void done() throws IOException {
+    FileUtils.deleteDirectory(dir);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NUM_AIUS)
+  public SipMetrics assembleSip(Throughput throughput) throws IOException {
+    SipAssembler<Document> assembler = new SipAssembler<>(
+        new DefaultPackagingInformationFactory(workload.packagingInformation()), workload.pdiAssembler(),
+        new NoHashAssembler(), () -> buffer.create(new File(dir, "pdi.xml")), contentAssembler.create(workload));
+    assembler.start(buffer.create(new File(dir, "sip.zip")));
+    for (Document document : workload.getDocuments()) {
+      assembler.add(document);
+    }
+    assembler.end();
+    throughput.processed(workload.getNumBytes());
+    return assembler.getMetrics();
+  }
+
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+
+/**
+ * Secondary results of the benchmarks, which JMH reports as rates next to the primary result.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Throughput {
+
+  private static final double MB = 1024 * 1024;
+
+  private long numBytes;
+
+  @Setup(Level.Iteration)
+  public void reset() {
+    numBytes = 0;
+  }
+
+  void processed(long bytes) {
+    numBytes += bytes;
+  }
+
+  /**
+   * Returns the amount of content processed, which JMH turns into megabytes per second.
+   * @return The amount of content processed in megabytes
+   */
+  public double megabytes() {
+    return numBytes / MB;
+  }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmarks;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.opentext.ia.sdk.sip.ContentInfo;
+import com.opentext.ia.sdk.sip.DigitalObject;
+import com.opentext.ia.sdk.sip.DigitalObjectsExtraction;
+import com.opentext.ia.sdk.sip.PackagingInformation;
+import com.opentext.ia.sdk.sip.PdiAssembler;
+import com.opentext.ia.sdk.sip.XmlPdiAssembler;
+
+
+/**
+ * Synthetic domain objects to assemble SIPs from. Every other domain object shares its content with an earlier one, so
+ * that the deduplicating content assemblers have something to deduplicate. The content is half text and half random
+ * bytes, so that it compresses somewhat, like real documents do.
+ */
+public class Workload {
+
+  private static final URI NAMESPACE = URI.create("urn:com.opentext.ia.sdk.benchmarks:1.0");
+  private static final String ENTITY = "document";
+  private static final byte[] TEXT = ("Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor "
+      + "incididunt ut labore et dolore magna aliqua. ").getBytes(StandardCharsets.US_ASCII);
+
+  private final List<Document> documents;
+  private final long numBytes;
+
+  /**
+   * Create an instance.
+   * @param sizes The distribution of the sizes of the digital objects
+   * @param numDocuments The number of domain objects to create
+   */
+  public Workload(ObjectSizes sizes, int numDocuments) {
+    Random random = new Random(numDocuments);
+    List<Document> result = new ArrayList<>(numDocuments);
+    long size = 0;
+    for (int i = 0; i < numDocuments; i++) {
+      Document document;
+      if (i % 2 == 0) {
+        String contentId = "content-" + i;
+        document = new Document("document-" + i, contentId, newContent(sizes.next(random), random));
+      } else {
+        Document original = result.get(random.nextInt(i));
+        document = new Document("document-" + i, original.getContentId(), original.getContent());
+      }
+      result.add(document);
+      size += document.getContent().length;
+    }
+    documents = Collections.unmodifiableList(result);
+    numBytes = size;
+  }
+
+  private static byte[] newContent(int size, Random random) {
+    byte[] result = new byte[size];
+    random.nextBytes(result);
+    for (int i = 0; i < size / 2; i += TEXT.length) {
+      System.arraycopy(TEXT, 0, result, i, Math.min(TEXT.length, size / 2 - i));
+    }
+    return result;
+  }
+
+  public List<Document> getDocuments() {
+    return documents;
+  }
+
+  /**
+   * Returns the total size of the content of all domain objects, including duplicates.
+   * @return The total size of the content in bytes
+   */
+  public long getNumBytes() {
+    return numBytes;
+  }
+
+  /**
+   * Returns an extraction of the digital objects of the domain objects.
+   * @param riPerContent Whether digital objects with the same content get the same reference information. Otherwise,
+   *          each domain object has its own reference information, like when the same attachment is sent many times
+   * @return An extraction of digital objects
+   */
+  public DigitalObjectsExtraction<Document> extraction(boolean riPerContent) {
+    return document -> Collections.singleton(DigitalObject.fromBytes(riPerContent ? document.getContentId()
+        : document.getId() + '/' + document.getContentId(), document.getContent()))
+      .iterator();
+  }
+
+  /**
+   * Returns an assembler for PDIs that hold the IDs of the domain objects and the hashes of their content.
+   * @return A PDI assembler
+   */
+  public PdiAssembler<Document> pdiAssembler() {
+    return new XmlPdiAssembler<Document>(NAMESPACE, ENTITY) {
+      @Override
+      protected void doAdd(Document document, Map<String, ContentInfo> contentInfo) {
+        getBuilder().element("id", document.getId());
+        contentInfo.forEach((ri, info) -> getBuilder().element("content")
+          .attribute("ri", ri)
+          .elements("hashes", "hash", info.getContentHashes(),
+              (hash, builder) -> builder.attribute("value", hash.getValue()))
+          .end());
+      }
+    };
+  }
+
+  /**
+   * Returns a prototype for the packaging information of the SIPs.
+   * @return A prototype for the packaging information
+   */
+  public PackagingInformation packagingInformation() {
+    return PackagingInformation.builder()
+      .dss()
+        .application("benchmarks")
+        .holding("benchmarks")
+        .producer("SIP SDK")
+        .entity(ENTITY)
+        .schema(NAMESPACE.toString())
+      .end()
+      .build();
+  }
+
+}
@@ -14,6 +14,7 @@ import com.opentext.ia.sdk.support.io.DataBuffer;
  * <li>Add components to the assembly by repeatedly calling {@linkplain #add(Object)}</li>
  * <li>Make the assembly available through {@linkplain #end()}</li>
  * </ol>
+ * When assembly fails before it's ended, {@linkplain #abort()} releases what the assembler holds on to.
  * @param <C> The type of components to assemble
  */
 public interface Assembler<C> {
@@ -38,6 +39,14 @@ public interface Assembler<C> {
    */
   void end() throws IOException;
 
+  /**
+   * Abandon the assembly process without finishing the product, for instance because adding a component failed. The
+   * product is left incomplete. The default implementation does nothing.
+   */
+  default void abort() {
+    // Nothing to release
+  }
+
   /**
    * Return metrics about the assembly process. Implementations will generally provide dedicated classes that you should
    * cast the result to.
@@ -9,9 +9,11 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import com.opentext.ia.sdk.support.io.FileBuffer;
 import com.opentext.ia.sdk.support.io.FileSupplier;
+import com.opentext.ia.sdk.support.io.IOStreams;
 
 /**
  * Assemble a batch of SIPs, based on some sort of {@linkplain SipSegmentationStrategy segmentation strategy} that
@@ -23,6 +25,11 @@ import com.opentext.ia.sdk.support.io.FileSupplier;
  * There are several {@linkplain SipSegmentationStrategy factory methods} available to create common segmentation
  * strategies and you can also {@linkplain SipSegmentationStrategy#combining(SipSegmentationStrategy...) combine} them.
  * <p>
+ * To assemble several SIPs of a batch at the same time, use {@linkplain ParallelBatchSipAssembler}.
+ * <p>
+ * To ingest each SIP as soon as it's finished, while the rest of the batch is assembled, use
+ * {@linkplain IngestingBatchSipAssembler}.
+ * <p>
  * @param <D> The type of domain object to assemble SIPs from
  */
 public class BatchSipAssembler<D> {
@@ -76,7 +83,7 @@ public class BatchSipAssembler<D> {
    * @param domainObject The domain object to add
    * @throws IOException When an I/O error occurs
    */
-  public synchronized void add(D domainObject) throws IOException {
+  public synchronized void add(D domainObject) throws IOException {
     if (shouldStartNewSip(domainObject)) {
       startSip();
     }
@@ -84,7 +91,7 @@ public class BatchSipAssembler<D> {
   }
 
   private boolean shouldStartNewSip(D component) {
-    return current == null || segmentationStrategy.shouldStartNewSip(component, assembler.getMetrics());
+    return current == null || segmentationStrategy.shouldStartNewSip(component, assembler.getLiveMetrics());
   }
 
   private void startSip() throws IOException {
@@ -101,6 +108,10 @@ public class BatchSipAssembler<D> {
     }
   }
 
+  synchronized boolean isSipOpen() {
+    return current != null;
+  }
+
   protected void sipEnded(FileGenerationMetrics metrics) {
     sipsMetrics.add(metrics);
   }
@@ -113,11 +124,21 @@ public class BatchSipAssembler<D> {
     current = file;
   }
 
+  /**
+   * Add the domain objects from a stream to the batch of SIPs. If the stream is parallel, the operations of its
+   * pipeline run on several threads, while domain objects are added one at a time in no particular order.
+   * @param domainObjects The domain objects to add, which are closed afterwards
+   * @throws IOException When an I/O error occurs
+   */
+  public void addAll(Stream<? extends D> domainObjects) throws IOException {
+    IOStreams.forEachChecked(domainObjects, this::add);
+  }
+
   /**
    * End the batch assembly process.
    * @throws IOException When an I/O error occurs
    */
-  public synchronized void end() throws IOException {
+  public synchronized void end() throws IOException {
     setFinalSipInDss(true);
     closeCurrentSip();
   }
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongConsumer;
+
+
+/**
+ * Feeds domain objects from a reactive source, like a database cursor or a message consumer, into a
+ * {@linkplain BatchSipAssembler}. The source only delivers as many domain objects as the subscriber requested, and the
+ * subscriber requests more as it assembles them, so the source is slowed down to the rate at which SIPs can be
+ * assembled without buffering more than a fixed number of domain objects.
+ * <p>
+ * The methods of this class follow the Reactive Streams <code>Subscriber</code> protocol, so it's easy to adapt to any
+ * reactive library:
+ * <pre>
+ * public void onSubscribe(Subscription subscription) {
+ *   subscriber.onSubscribe(subscription::request, subscription::cancel);
+ * }
+ * </pre>
+ * Domain objects are assembled on a separate thread, so that the source isn't blocked while a SIP is finished. When
+ * the source completes, the batch is {@linkplain BatchSipAssembler#end() ended}. Use {@linkplain #await()} to wait for
+ * that.
+ * <p>
+ * Requests and cancellation come from both the assembler's thread and the source's thread, but they are never made
+ * concurrently, so the source doesn't need to be thread-safe for them. No more domain objects are requested once the
+ * source is cancelled.
+ * @param <D> The type of domain objects to assemble SIPs from
+ */
+public class BatchSipSubscriber<D> {
+
+  private static final int DEFAULT_MAX_PENDING = 64;
+  private static final Object END = new Object();
+  private static final AtomicInteger COUNT = new AtomicInteger();
+
+  private final BatchSipAssembler<D> batch;
+  private final int maxPending;
+  private final BlockingQueue<Object> pending;
+  private final AtomicLong requested = new AtomicLong();
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+  private final CountDownLatch done = new CountDownLatch(1);
+  private final Object signals = new Object();
+  private LongConsumer request;
+  private Runnable cancel;
+  private boolean cancelled;
+
+  /**
+   * Create an instance that holds up to 64 domain objects that are delivered but not yet assembled.
+   * @param batch The batch to add domain objects to
+   */
+  public BatchSipSubscriber(BatchSipAssembler<D> batch) {
+    this(batch, DEFAULT_MAX_PENDING);
+  }
+
+  /**
+   * Create an instance.
+   * @param batch The batch to add domain objects to
+   * @param maxPending The maximum number of domain objects that are delivered but not yet assembled
+   */
+  public BatchSipSubscriber(BatchSipAssembler<D> batch, int maxPending) {
+    if (maxPending < 1) {
+      throw new IllegalArgumentException("Need to accept at least one domain object");
+    }
+    this.batch = Objects.requireNonNull(batch, "Missing batch");
+    this.maxPending = maxPending;
+    this.pending = new ArrayBlockingQueue<>(maxPending + 1); // Leave room for the end of the source
+  }
+
+  /**
+   * Start receiving domain objects.
+   * @param requester Requests the given number of domain objects from the source
+   * @param canceller Tells the source to stop delivering domain objects
+   */
+  public void onSubscribe(LongConsumer requester, Runnable canceller) {
+    if (request != null) {
+      canceller.run();
+      return;
+    }
+    this.request = Objects.requireNonNull(requester, "Missing requester");
+    this.cancel = Objects.requireNonNull(canceller, "Missing canceller");
+    Thread assembler = new Thread(this::assemble, "sip-subscriber-" + COUNT.incrementAndGet());
+    assembler.setDaemon(true);
+    assembler.start();
+    request(maxPending);
+  }
+
+  private void request(int n) {
+    synchronized (signals) {
+      if (cancelled) {
+        return;
+      }
+      requested.addAndGet(n);
+      request.accept(n);
+    }
+  }
+
+  /**
+   * Receive the next domain object.
+   * @param domainObject The domain object to add to the batch
+   */
+  public void onNext(D domainObject) {
+    Objects.requireNonNull(domainObject, "Missing domain object");
+    if (requested.getAndDecrement() <= 0) {
+      fail(new IllegalStateException("Received more domain objects than requested"));
+      return;
+    }
+    // Never full, since the number of pending domain objects plus the outstanding demand never exceeds the maximum
+    pending.offer(domainObject);
+  }
+
+  /**
+   * Receive the failure of the source. The SIP that is being assembled is left unfinished.
+   * @param error Why the source failed
+   */
+  public void onError(Throwable error) {
+    failure.compareAndSet(null, error);
+    pending.clear();
+    pending.offer(END);
+  }
+
+  /**
+   * Receive the end of the source, after which the batch is ended.
+   */
+  public void onComplete() {
+    // Never blocks, since the source may complete on the assembler's thread from within a request
+    pending.offer(END);
+  }
+
+  @SuppressWarnings({ "unchecked", "PMD.AvoidCatchingGenericException" })
+  private void assemble() {
+    try {
+      int numAssembled = 0;
+      int replenishAt = Math.max(1, maxPending / 2);
+      for (Object next = pending.take(); next != END; next = pending.take()) {
+        batch.add((D)next);
+        if (++numAssembled == replenishAt) {
+          numAssembled = 0;
+          request(replenishAt);
+        }
+      }
+      if (failure.get() == null) {
+        batch.end();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      fail(e);
+    } catch (IOException | RuntimeException e) {
+      fail(e);
+    } finally {
+      done.countDown();
+    }
+  }
+
+  private void fail(Throwable error) {
+    if (failure.compareAndSet(null, error)) {
+      cancel();
+    }
+    pending.clear();
+    pending.offer(END);
+  }
+
+  private void cancel() {
+    synchronized (signals) {
+      cancelled = true;
+      cancel.run();
+    }
+  }
+
+  /**
+   * Wait until all domain objects from the source are assembled and the batch has ended.
+   * @throws IOException When the source failed or the domain objects couldn't be assembled
+   */
+  public void await() throws IOException {
+    try {
+      done.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for domain objects to be assembled", e);
+    }
+    Throwable error = failure.get();
+    if (error instanceof IOException) {
+      throw (IOException)error;
+    }
+    if (error != null) {
+      throw new IOException("Failed to assemble domain objects", error);
+    }
+  }
+
+}
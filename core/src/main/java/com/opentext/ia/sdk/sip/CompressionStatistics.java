@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Observed compression ratios of the entries in SIPs. The ratios of digital objects are kept per content type, which is
+ * derived from the extension of the entry's name, while the ratio of the PDI is kept separately. A ratio is the
+ * compressed size divided by the uncompressed size, so smaller is better.
+ * <p>
+ * Unlike most {@linkplain SipMetrics metrics}, these statistics carry over from one SIP to the next, so that they can
+ * be used to predict the size of a SIP before its PDI is compressed.
+ * <p>
+ * This class is thread-safe.
+ */
+public class CompressionStatistics {
+
+  /**
+   * The content type of entries whose name doesn't have an extension.
+   */
+  public static final String UNKNOWN_CONTENT_TYPE = "";
+  private static final double UNKNOWN_RATIO = 1.0;
+
+  private final ConcurrentMap<String, Totals> contentTotals;
+  private final Totals allContentTotals;
+  private final Totals pdiTotals;
+
+  public CompressionStatistics() {
+    this(new ConcurrentHashMap<>(), new Totals(), new Totals());
+  }
+
+  private CompressionStatistics(ConcurrentMap<String, Totals> contentTotals, Totals allContentTotals,
+      Totals pdiTotals) {
+    this.contentTotals = contentTotals;
+    this.allContentTotals = allContentTotals;
+    this.pdiTotals = pdiTotals;
+  }
+
+  /**
+   * Returns the content type of a ZIP entry, as used by these statistics.
+   * @param name The name of the entry
+   * @return The lower case extension of the name, or {@linkplain #UNKNOWN_CONTENT_TYPE} if the name has no extension
+   */
+  public static String contentTypeOf(String name) {
+    int index = name.lastIndexOf('.');
+    if (index < 0 || index < name.lastIndexOf('/')) {
+      return UNKNOWN_CONTENT_TYPE;
+    }
+    return name.substring(index + 1).toLowerCase(Locale.ENGLISH);
+  }
+
+  /**
+   * Record the compression of a digital object.
+   * @param name The name of the ZIP entry of the digital object
+   * @param size The uncompressed size of the digital object
+   * @param compressedSize The compressed size of the digital object
+   */
+  public void recordContent(String name, long size, long compressedSize) {
+    contentTotals.computeIfAbsent(contentTypeOf(name), ignored -> new Totals()).add(size, compressedSize);
+    allContentTotals.add(size, compressedSize);
+  }
+
+  /**
+   * Record the compression of a PDI.
+   * @param size The uncompressed size of the PDI
+   * @param compressedSize The compressed size of the PDI
+   */
+  public void recordPdi(long size, long compressedSize) {
+    pdiTotals.add(size, compressedSize);
+  }
+
+  /**
+   * Returns the content types of the digital objects that were recorded.
+   * @return The content types of the recorded digital objects
+   */
+  public Set<String> contentTypes() {
+    return Collections.unmodifiableSet(contentTotals.keySet());
+  }
+
+  /**
+   * Returns the observed compression ratio of digital objects of a given content type.
+   * @param contentType The content type, as returned by {@linkplain #contentTypeOf(String)}
+   * @return The compression ratio, or 1 if no digital objects of the given type were recorded
+   */
+  public double contentRatio(String contentType) {
+    Totals result = contentTotals.get(contentType);
+    return result == null ? UNKNOWN_RATIO : result.ratio();
+  }
+
+  /**
+   * Returns the observed compression ratio of all digital objects together.
+   * @return The compression ratio, or 1 if no digital objects were recorded
+   */
+  public double contentRatio() {
+    return allContentTotals.ratio();
+  }
+
+  /**
+   * Returns the observed compression ratio of PDIs.
+   * @return The compression ratio, or 1 if no PDIs were recorded
+   */
+  public double pdiRatio() {
+    return pdiTotals.ratio();
+  }
+
+  /**
+   * Returns a copy of the current statistics, which doesn't change when these statistics change.
+   * @return A copy of the statistics
+   */
+  public CompressionStatistics snapshot() {
+    ConcurrentMap<String, Totals> copiedContentTotals = new ConcurrentHashMap<>();
+    contentTotals.forEach((contentType, totals) -> copiedContentTotals.put(contentType, totals.copy()));
+    return new CompressionStatistics(copiedContentTotals, allContentTotals.copy(), pdiTotals.copy());
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder(64).append("{PDI=").append(pdiTotals);
+    contentTotals.forEach((contentType, totals) -> result.append(", ").append(contentType).append('=').append(totals));
+    return result.append('}').toString();
+  }
+
+
+  private static class Totals {
+
+    private final AtomicLong size;
+    private final AtomicLong compressedSize;
+
+    Totals() {
+      this(0, 0);
+    }
+
+    private Totals(long size, long compressedSize) {
+      this.size = new AtomicLong(size);
+      this.compressedSize = new AtomicLong(compressedSize);
+    }
+
+    void add(long uncompressed, long compressed) {
+      size.addAndGet(uncompressed);
+      compressedSize.addAndGet(compressed);
+    }
+
+    double ratio() {
+      long uncompressed = size.get();
+      return uncompressed == 0 ? UNKNOWN_RATIO : (double)compressedSize.get() / uncompressed;
+    }
+
+    Totals copy() {
+      return new Totals(size.get(), compressedSize.get());
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ENGLISH, "%.3f", ratio());
+    }
+
+  }
+
+}
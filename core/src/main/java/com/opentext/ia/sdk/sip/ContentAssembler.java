@@ -7,6 +7,7 @@ import java.io.IOException;
 import java.util.Map;
 
 import com.opentext.ia.sdk.support.io.HashAssembler;
+import com.opentext.ia.sdk.support.io.HybridBuffer;
 import com.opentext.ia.sdk.support.io.NoHashAssembler;
 import com.opentext.ia.sdk.support.io.ZipAssembler;
 
@@ -33,6 +34,14 @@ public interface ContentAssembler<D> {
    */
   Map<String, ContentInfo> addContentsOf(D domainObject) throws IOException;
 
+  /**
+   * End the assembly process after all content was added to a SIP successfully.
+   * @throws IOException If an exception occurs while ending the assembly process
+   */
+  default void end() throws IOException {
+    // Nothing to do
+  }
+
   /**
    * Do not deduplicate the digital objects but perform the specified hash calculations.
    * @param contentsExtraction Extraction of content from domain objects added to the SIP
@@ -181,4 +190,20 @@ public interface ContentAssembler<D> {
       HashAssembler contentHashAssembler, int estimatedMaxDigitalObjects) {
     return new ContentAssemblerWithDedupOnHash<>(contentsExtraction, contentHashAssembler, estimatedMaxDigitalObjects);
   }
+
+  /**
+   * Deduplicate digital objects based on their hash value, both within the SIP and against content that earlier SIPs
+   * archived.
+   * @param contentsExtraction Extraction of content from domain objects added to the SIP
+   * @param contentHashAssembler Assembler that builds up an encoded hash for the extracted content
+   * @param index Index of content that earlier SIPs archived. Content that this SIP adds is committed to the index when
+   *          the SIP is assembled, before it's ingested
+   * @param <D> The type of domain objects to assemble the SIP from
+   * @return The newly created content assembler
+   */
+  static <D> ContentAssembler<D> withDedupOnHash(DigitalObjectsExtraction<D> contentsExtraction,
+      HashAssembler contentHashAssembler, ContentIndex index) {
+    return new ContentAssemblerWithDedupOnHash<>(contentsExtraction, contentHashAssembler, 64000, new HybridBuffer(),
+        index);
+  }
 }
@@ -5,9 +5,8 @@ package com.opentext.ia.sdk.sip;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
 
 import com.opentext.ia.sdk.support.io.*;
 
@@ -15,60 +14,136 @@ import com.opentext.ia.sdk.support.io.*;
  * A ContentAssembler implementation which will perform deduplication based on the hash value of the content, i.e. a
  * digital object with a given hash is only included once in the SIP.
  * <p>
- * <b>Note</b>Important to note that this content assembler buffers the bytes that make up the digital object in memory
- * so it is not suitable to very large digital objects.
+ * The content of each digital object is hashed while it's copied into a staging {@linkplain DataBuffer}, and is only
+ * added to the SIP from there when it's not a duplicate. By default, this buffer is a {@linkplain HybridBuffer}, which
+ * keeps small digital objects in memory and moves large ones to a temporary file, so that memory use stays bounded
+ * regardless of the size of the digital objects.
+ * </p>
+ * <p>
+ * Optionally, a {@linkplain ContentIndex} remembers the content that was archived in earlier SIPs, even across runs
+ * of the JVM. Content that is found in the index isn't added to the SIP again; instead, the domain object refers to
+ * the reference information under which the content was archived before.
+ * </p>
+ * <p>
+ * <strong>The content of a SIP is committed to the index when the SIP is assembled, not when it is ingested.</strong>
+ * If the SIP is never ingested, later SIPs refer to content that isn't in the archive, so stop using the index when a
+ * SIP that was assembled with it fails to ingest.
  * </p>
  * @param <D> The type of domain object to assemble SIPs from
  */
 public class ContentAssemblerWithDedupOnHash<D> extends ContentAssemblerDefault<D> {
 
-  private final Map<Collection<EncodedHash>, ContentInfo> hashesToContentInfo;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final DigestTable<String> hashesToRi;
   private final HashAssembler noHashAssembler = new NoHashAssembler();
+  private final DataBuffer stagingBuffer;
+  private final ContentIndex index;
+  private ContentIndexTransaction transaction;
 
   public ContentAssemblerWithDedupOnHash(DigitalObjectsExtraction<D> contentsExtraction,
       HashAssembler contentHashAssembler, int estimatedMaxDigitalObjects) {
+    this(contentsExtraction, contentHashAssembler, estimatedMaxDigitalObjects, new HybridBuffer());
+  }
+
+  /**
+   * Create an instance that stages content in the given buffer.
+   * @param contentsExtraction Extraction of content from domain objects added to the SIP
+   * @param contentHashAssembler Assembler that builds up an encoded hash for the extracted content
+   * @param estimatedMaxDigitalObjects a hint which will initialize the internal buffers to handle the specified number
+   *          of digital objects without reallocation
+   * @param stagingBuffer Buffer that holds the content of a digital object while it's being hashed. It's
+   *          {@linkplain DataBuffer#close() closed} after each digital object
+   */
+  public ContentAssemblerWithDedupOnHash(DigitalObjectsExtraction<D> contentsExtraction,
+      HashAssembler contentHashAssembler, int estimatedMaxDigitalObjects, DataBuffer stagingBuffer) {
+    this(contentsExtraction, contentHashAssembler, estimatedMaxDigitalObjects, stagingBuffer, null);
+  }
+
+  /**
+   * Create an instance that stages content in the given buffer and also deduplicates against content that earlier
+   * SIPs archived.
+   * @param contentsExtraction Extraction of content from domain objects added to the SIP
+   * @param contentHashAssembler Assembler that builds up an encoded hash for the extracted content
+   * @param estimatedMaxDigitalObjects a hint which will initialize the internal buffers to handle the specified number
+   *          of digital objects without reallocation
+   * @param stagingBuffer Buffer that holds the content of a digital object while it's being hashed. It's
+   *          {@linkplain DataBuffer#close() closed} after each digital object
+   * @param index Index of content that earlier SIPs archived, or <code>null</code> to deduplicate within each SIP only.
+   *          Content that this SIP adds is committed to the index when the SIP is assembled, before it's ingested
+   */
+  public ContentAssemblerWithDedupOnHash(DigitalObjectsExtraction<D> contentsExtraction,
+      HashAssembler contentHashAssembler, int estimatedMaxDigitalObjects, DataBuffer stagingBuffer,
+      ContentIndex index) {
     super(contentsExtraction, contentHashAssembler);
-    hashesToContentInfo = new HashMap<>(estimatedMaxDigitalObjects);
+    hashesToRi = new DigestTable<>(estimatedMaxDigitalObjects);
+    this.stagingBuffer = stagingBuffer;
+    this.index = index;
   }
 
   @Override
   public void begin(ZipAssembler zip, Counters metrics) {
     super.begin(zip, metrics);
-    hashesToContentInfo.clear();
+    hashesToRi.clear();
+    if (index != null) {
+      if (transaction != null) {
+        transaction.rollback();
+      }
+      transaction = index.begin();
+    }
   }
 
   @Override
-  protected ContentInfo addContent(String ri, DigitalObject digitalObject) throws IOException {
-    RepeatableInputStream memoryStream = memoryStreamOf(digitalObject);
-    // First compute hashes
-    Collection<EncodedHash> hashes = contentHashFor(memoryStream);
-
-    // Check if contentInfo exist of the collection of hashes.
-    // If yes, skip adding the content and return existing content info.
-    ContentInfo contentInfo = hashesToContentInfo.get(hashes);
-    if (contentInfo != null) {
-      return contentInfo;
+  public void end() throws IOException {
+    if (transaction != null) {
+      transaction.commit();
+      transaction = null;
     }
+  }
 
-    try (InputStream stream = memoryStream.get()) {
-      getZip().addEntry(ri, stream, noHashAssembler);
+  @Override
+  protected ContentInfo addContent(String ri, DigitalObject digitalObject) throws IOException {
+    try {
+      // First compute hashes while staging the content
+      Collection<EncodedHash> hashes = stage(digitalObject);
+
+      // Check if content with the collection of hashes was added before.
+      // If yes, skip adding the content and return content info with the existing reference information.
+      String existingRi = hashesToRi.get(hashes);
+      if (existingRi != null) {
+        return new ContentInfo(existingRi, hashes);
+      }
+      existingRi = archivedReferenceInformationOf(hashes);
+      if (existingRi != null) {
+        hashesToRi.put(hashes, existingRi);
+        return new ContentInfo(existingRi, hashes);
+      }
+
+      try (InputStream stream = stagingBuffer.openForReading()) {
+        getZip().addEntry(ri, stream, noHashAssembler);
+      }
       getMetrics().inc(SipMetrics.SIZE_DIGITAL_OBJECTS, getContentHashAssembler().numBytesHashed());
-      contentInfo = new ContentInfo(ri, hashes);
-      hashesToContentInfo.put(hashes, contentInfo);
+      hashesToRi.put(hashes, ri);
+      if (transaction != null) {
+        transaction.add(hashes, ri);
+      }
+      return new ContentInfo(ri, hashes);
+    } finally {
+      stagingBuffer.close();
     }
-    return contentInfo;
   }
 
-  private RepeatableInputStream memoryStreamOf(DigitalObject digitalObject) throws IOException {
-    try (InputStream raw = digitalObject.get()) {
-      return new RepeatableInputStream(raw);
-    }
+  private String archivedReferenceInformationOf(Collection<EncodedHash> hashes) {
+    return index == null ? null : index.referenceInformationOf(hashes);
   }
 
-  private Collection<EncodedHash> contentHashFor(RepeatableInputStream memoryStream) throws IOException {
-    try (InputStream stream = memoryStream.get()) {
-      return contentHashFor(stream);
+  private Collection<EncodedHash> stage(DigitalObject digitalObject) throws IOException {
+    HashAssembler hashAssembler = getContentHashAssembler();
+    hashAssembler.initialize();
+    try (InputStream in = digitalObject.get(); OutputStream out = stagingBuffer.openForWriting()) {
+      IOStreams.copy(in, out, BUFFER_SIZE, hashAssembler);
     }
+    return hashAssembler.get();
   }
 
 }
@@ -22,8 +22,8 @@ import com.opentext.ia.sdk.support.io.ZipAssembler;
  */
 public class ContentAssemblerWithDedupOnRi<D> extends ContentAssemblerDefault<D> {
 
-  private final Map<String, ContentInfo> riToContentInfo;
-  private final Map<Collection<EncodedHash>, String> hashesToRi;
+  private final Map<String, Integer> riToHashes;
+  private final DigestTable<String> hashesToRi;
   private final boolean errorWhenEqualHashAndNotEqualRI;
   private final boolean errorWhenEqualRiAndNotEqualHash;
 
@@ -31,8 +31,8 @@ public class ContentAssemblerWithDedupOnRi<D> extends ContentAssemblerDefault<D>
       HashAssembler contentHashAssembler, boolean errorWhenEqualRiAndNotEqualHash,
       boolean errorWhenEqualHashAndNotEqualRI, int estimatedMaxDigitalObjects) {
     super(contentsExtraction, contentHashAssembler);
-    riToContentInfo = new HashMap<>(estimatedMaxDigitalObjects);
-    hashesToRi = new HashMap<>(estimatedMaxDigitalObjects);
+    riToHashes = new HashMap<>(estimatedMaxDigitalObjects);
+    hashesToRi = new DigestTable<>(estimatedMaxDigitalObjects);
     this.errorWhenEqualHashAndNotEqualRI = errorWhenEqualHashAndNotEqualRI;
     this.errorWhenEqualRiAndNotEqualHash = errorWhenEqualRiAndNotEqualHash;
   }
@@ -40,21 +40,23 @@ public class ContentAssemblerWithDedupOnRi<D> extends ContentAssemblerDefault<D>
   @Override
   public void begin(ZipAssembler zip, Counters metrics) {
     super.begin(zip, metrics);
-    riToContentInfo.clear();
+    riToHashes.clear();
   }
 
   @Override
   protected ContentInfo addContent(String ri, DigitalObject digitalObject) throws IOException {
-    ContentInfo contentInfo = riToContentInfo.get(ri);
-    if (contentInfo == null) {
+    // Only the key of the hashes in the table is kept per reference information; the hashes are rebuilt from it
+    Integer hashesKey = riToHashes.get(ri);
+    if (hashesKey == null) {
       ContentInfo newContentInfo = super.addContent(ri, digitalObject);
       checkNotAlreadyIncluded(newContentInfo);
-      riToContentInfo.put(ri, newContentInfo);
       hashesToRi.put(newContentInfo.getContentHashes(), ri);
+      riToHashes.put(ri, hashesToRi.keyOf(newContentInfo.getContentHashes()));
       return newContentInfo;
     } else {
-      checkSameRIMeansSameContent(ri, digitalObject, contentInfo.getContentHashes());
-      return contentInfo;
+      Collection<EncodedHash> existingHashes = hashesToRi.hashesOf(hashesKey);
+      checkSameRIMeansSameContent(ri, digitalObject, existingHashes);
+      return new ContentInfo(ri, existingHashes);
     }
   }
 
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.Closeable;
+import java.util.Collection;
+
+import com.opentext.ia.sdk.support.io.EncodedHash;
+
+
+/**
+ * Index of content that was archived in earlier SIPs, keyed by the hashes of the content. Content is added in a
+ * {@linkplain ContentIndexTransaction transaction} per SIP, and becomes visible only when that transaction is
+ * committed.
+ * <p>
+ * <strong>The index can't tell whether a SIP was actually archived.</strong> Content is considered archived as soon as
+ * its transaction is committed, which {@linkplain ContentAssemblerWithDedupOnHash} does when the SIP is assembled. If
+ * that SIP is never ingested, later SIPs refer to content that isn't in the archive. So only keep using an index as
+ * long as all SIPs that were assembled with it are ingested successfully.
+ * @see ContentAssemblerWithDedupOnHash
+ */
+public interface ContentIndex extends Closeable {
+
+  /**
+   * Returns the reference information under which content with the given hashes was archived.
+   * @param hashes The hashes of the content
+   * @return The reference information of the content, or <code>null</code> if the content isn't in the index
+   */
+  String referenceInformationOf(Collection<EncodedHash> hashes);
+
+  /**
+   * Start adding the content of a SIP to the index.
+   * @return The transaction that collects the content of the SIP
+   */
+  ContentIndexTransaction begin();
+
+}
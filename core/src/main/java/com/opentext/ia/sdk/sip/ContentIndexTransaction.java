@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.IOException;
+import java.util.Collection;
+
+import com.opentext.ia.sdk.support.io.EncodedHash;
+
+
+/**
+ * Content that is added to a {@linkplain ContentIndex} by one SIP. The content becomes visible in the index only when
+ * the transaction is {@linkplain #commit() committed}. Transactions of the same index are independent of each other,
+ * so several SIP assemblers can share an index as long as each uses its own transaction.
+ */
+public interface ContentIndexTransaction {
+
+  /**
+   * Add content to the index. The content is not visible until the transaction is {@linkplain #commit() committed}.
+   * @param hashes The hashes of the content
+   * @param referenceInformation The reference information under which the content is archived
+   */
+  void add(Collection<EncodedHash> hashes, String referenceInformation);
+
+  /**
+   * Make the content that was added in this transaction visible and durable. The transaction is empty afterwards.
+   * @throws IOException When an I/O error occurs
+   */
+  void commit() throws IOException;
+
+  /**
+   * Discard the content that was added in this transaction.
+   */
+  void rollback();
+
+}
@@ -3,27 +3,62 @@
  */
 package com.opentext.ia.sdk.sip;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * Set of related counters.
+ * <p>
+ * The counters for the {@linkplain SipMetrics SIP metrics} live in fixed slots of an array of primitive values, so that
+ * maintaining them doesn't allocate memory and is safe when done from several threads. Other counters are kept in a
+ * concurrent map.
  */
 public class Counters {
 
-  private final Map<String, Long> values;
+  private static final List<String> SLOT_NAMES = Collections.unmodifiableList(Arrays.asList(SipMetrics.NUM_AIUS,
+      SipMetrics.NUM_DIGITAL_OBJECTS, SipMetrics.SIZE_DIGITAL_OBJECTS, SipMetrics.SIZE_DIGITAL_OBJECTS_COMPRESSED,
+      SipMetrics.SIZE_PDI, SipMetrics.SIZE_SIP, SipMetrics.SIZE_SIP_FILE, SipMetrics.ASSEMBLY_TIME,
+      SipMetrics.TIME_CONTENT, SipMetrics.TIME_READ, SipMetrics.TIME_HASH, SipMetrics.TIME_WRITE, SipMetrics.TIME_PDI,
+      SipMetrics.TIME_PDI_VALIDATION));
+  private static final Map<String, Integer> SLOTS = slots();
+
+  private final AtomicLongArray slots;
+  private final ConcurrentMap<String, AtomicLong> others;
+  private final boolean writable;
 
   public Counters() {
-    this(new HashMap<>());
+    this(new AtomicLongArray(SLOT_NAMES.size()), new ConcurrentHashMap<>(), true);
+  }
+
+  private Counters(AtomicLongArray slots, ConcurrentMap<String, AtomicLong> others, boolean writable) {
+    this.slots = slots;
+    this.others = others;
+    this.writable = writable;
   }
 
-  Counters(Map<String, Long> values) {
-    this.values = values;
+  private static Map<String, Integer> slots() {
+    Map<String, Integer> result = new HashMap<>();
+    for (int i = 0; i < SLOT_NAMES.size(); i++) {
+      result.put(SLOT_NAMES.get(i), i);
+    }
+    return result;
   }
 
   public long get(String name) {
-    return values.containsKey(name) ? values.get(name) : 0;
+    Integer slot = SLOTS.get(name);
+    if (slot != null) {
+      return slots.get(slot);
+    }
+    AtomicLong value = others.get(name);
+    return value == null ? 0 : value.get();
   }
 
   /**
@@ -40,7 +75,23 @@ public class Counters {
    * @param delta The amount to increase the metric with
    */
   public void inc(String name, long delta) {
-    set(name, get(name) + delta);
+    assertWritable();
+    Integer slot = SLOTS.get(name);
+    if (slot == null) {
+      other(name).addAndGet(delta);
+    } else {
+      slots.addAndGet(slot, delta);
+    }
+  }
+
+  private void assertWritable() {
+    if (!writable) {
+      throw new UnsupportedOperationException("Counters are read-only");
+    }
+  }
+
+  private AtomicLong other(String name) {
+    return others.computeIfAbsent(name, ignored -> new AtomicLong());
   }
 
   /**
@@ -49,22 +100,59 @@ public class Counters {
    * @param value The value to set the metric to
    */
   public void set(String name, long value) {
-    values.put(name, value);
+    assertWritable();
+    Integer slot = SLOTS.get(name);
+    if (slot == null) {
+      other(name).set(value);
+    } else {
+      slots.set(slot, value);
+    }
   }
 
   /**
    * Reset all metrics to zero.
    */
   public void reset() {
-    values.clear();
+    assertWritable();
+    for (int i = 0; i < slots.length(); i++) {
+      slots.set(i, 0);
+    }
+    others.clear();
   }
 
+  /**
+   * Returns a read-only view of the counters. The view shares the values with these counters, so it reflects later
+   * changes without the cost of copying.
+   * @return A read-only view of the counters
+   */
   public Counters forReading() {
-    return new Counters(Collections.unmodifiableMap(new HashMap<String, Long>(values)));
+    return new Counters(slots, others, false);
+  }
+
+  /**
+   * Returns a read-only copy of the current values of the counters, which doesn't change when these counters change.
+   * @return A read-only copy of the counters
+   */
+  public Counters snapshot() {
+    AtomicLongArray copiedSlots = new AtomicLongArray(slots.length());
+    for (int i = 0; i < slots.length(); i++) {
+      copiedSlots.set(i, slots.get(i));
+    }
+    ConcurrentMap<String, AtomicLong> copiedOthers = new ConcurrentHashMap<>();
+    others.forEach((name, value) -> copiedOthers.put(name, new AtomicLong(value.get())));
+    return new Counters(copiedSlots, copiedOthers, false);
   }
 
   @Override
   public String toString() {
+    Map<String, Long> values = new LinkedHashMap<>();
+    for (int i = 0; i < slots.length(); i++) {
+      long value = slots.get(i);
+      if (value != 0) {
+        values.put(SLOT_NAMES.get(i), value);
+      }
+    }
+    others.forEach((name, value) -> values.put(name, value.get()));
     return values.toString();
   }
 
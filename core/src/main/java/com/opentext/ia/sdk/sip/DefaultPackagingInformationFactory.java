@@ -25,7 +25,7 @@ public class DefaultPackagingInformationFactory implements PackagingInformationF
   }
 
   @Override
-  public PackagingInformation newInstance(long aiuCount, Optional<EncodedHash> pdiHash) {
+  public synchronized PackagingInformation newInstance(long aiuCount, Optional<EncodedHash> pdiHash) {
     PackagingInformation result = PackagingInformation.builder(prototype)
       .productionDate(new Date())
       .aiuCount(aiuCount)
@@ -41,7 +41,7 @@ public class DefaultPackagingInformationFactory implements PackagingInformationF
   }
 
   @Override
-  public void setFinalSipInDss(boolean finalSipInDss) {
+  public synchronized void setFinalSipInDss(boolean finalSipInDss) {
     this.finalSipInDss = finalSipInDss;
   }
 
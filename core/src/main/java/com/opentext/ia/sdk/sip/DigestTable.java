@@ -0,0 +1,344 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+import com.opentext.ia.sdk.support.io.EncodedHash;
+import com.opentext.ia.sdk.support.io.Encoding;
+
+
+/**
+ * Table that maps the hashes of content to a value, like a <code>Map&lt;Collection&lt;EncodedHash&gt;, V&gt;</code>
+ * but with much less overhead per entry. Keys are stored as raw digest bytes in a single byte array, and entries are
+ * found by open addressing in flat arrays, so that an entry takes a few dozen bytes instead of the hundreds of bytes
+ * that the encoded hashes and their strings take.
+ * <p>
+ * Two collections of hashes are the same key when they contain equal hashes in the same order, just like for
+ * <code>Collection.equals()</code>. Hashes with an encoding that isn't a known {@linkplain Encoding} are stored as
+ * text. The hashes of an entry can be rebuilt from its {@linkplain #keyOf(Collection) key}, so callers that need the
+ * hashes later only have to keep that instead of the hashes themselves.
+ * <p>
+ * This class is not thread-safe.
+ * @param <V> The type of values in the table
+ */
+final class DigestTable<V> {
+
+  private static final int EMPTY = -1;
+  private static final int MIN_CAPACITY = 16;
+  private static final int MAX_LENGTH = 0xFFFF;
+  private static final int MAX_SHAPES = 0xFF;
+
+  private final List<Shape> shapes = new ArrayList<>();
+  private int[] offsets;
+  private int[] keyHashes;
+  private Object[] values;
+  private int size;
+  private byte[] keys;
+  private int keysLength;
+  private byte[] key = new byte[128];
+  private int keyLength;
+
+  DigestTable(int expectedSize) {
+    int capacity = MIN_CAPACITY;
+    while (capacity * 3 / 4 < expectedSize) {
+      capacity *= 2;
+    }
+    allocate(capacity);
+    keys = new byte[4096];
+  }
+
+  private void allocate(int capacity) {
+    offsets = new int[capacity];
+    Arrays.fill(offsets, EMPTY);
+    keyHashes = new int[capacity];
+    values = new Object[capacity];
+  }
+
+  /**
+   * Returns the value for the given hashes.
+   * @param hashes The hashes to look up
+   * @return The value for the hashes, or <code>null</code> if the table doesn't contain the hashes
+   */
+  @SuppressWarnings("unchecked")
+  V get(Collection<EncodedHash> hashes) {
+    int keyHash = setKey(hashes);
+    return (V)values[slotOf(keyHash)];
+  }
+
+  /**
+   * Set the value for the given hashes.
+   * @param hashes The hashes to set the value for
+   * @param value The value to set, which must not be <code>null</code>
+   * @return The previous value for the hashes, or <code>null</code> if the table didn't contain the hashes
+   */
+  @SuppressWarnings("unchecked")
+  V put(Collection<EncodedHash> hashes, V value) {
+    Objects.requireNonNull(value);
+    int slot = slotFor(hashes);
+    V result = (V)values[slot];
+    values[slot] = value;
+    return result;
+  }
+
+  /**
+   * Set the value for the given hashes, unless the table already contains them.
+   * @param hashes The hashes to set the value for
+   * @param value The value to set, which must not be <code>null</code>
+   * @return The current value for the hashes, or <code>null</code> if the table didn't contain the hashes
+   */
+  @SuppressWarnings("unchecked")
+  V putIfAbsent(Collection<EncodedHash> hashes, V value) {
+    Objects.requireNonNull(value);
+    int slot = slotFor(hashes);
+    V result = (V)values[slot];
+    if (result == null) {
+      values[slot] = value;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the key of the given hashes, which stays valid until the table is cleared.
+   * @param hashes The hashes to look up
+   * @return The key of the hashes, or a negative number if the table doesn't contain the hashes
+   */
+  int keyOf(Collection<EncodedHash> hashes) {
+    int keyHash = setKey(hashes);
+    return offsets[slotOf(keyHash)];
+  }
+
+  /**
+   * Returns the hashes with the given key.
+   * @param offset The {@linkplain #keyOf(Collection) key} of the hashes
+   * @return The hashes with the key
+   */
+  List<EncodedHash> hashesOf(int offset) {
+    List<EncodedHash> result = new ArrayList<>(1);
+    int end = offset + 2 + lengthAt(offset);
+    int index = offset + 2;
+    while (index < end) {
+      Shape shape = shapes.get(keys[index] & 0xFF);
+      int length = lengthAt(index + 1);
+      byte[] bytes = Arrays.copyOfRange(keys, index + 3, index + 3 + length);
+      result.add(shape.hashOf(bytes));
+      index += 3 + length;
+    }
+    return result;
+  }
+
+  private int lengthAt(int offset) {
+    return (keys[offset] & 0xFF) << 8 | keys[offset + 1] & 0xFF;
+  }
+
+  private int slotFor(Collection<EncodedHash> hashes) {
+    int keyHash = setKey(hashes);
+    int result = slotOf(keyHash);
+    if (offsets[result] == EMPTY) {
+      if (size + 1 > offsets.length * 3 / 4) {
+        grow();
+        result = slotOf(keyHash);
+      }
+      offsets[result] = storeKey();
+      keyHashes[result] = keyHash;
+      size++;
+    }
+    return result;
+  }
+
+  private void grow() {
+    int[] oldOffsets = offsets;
+    int[] oldKeyHashes = keyHashes;
+    Object[] oldValues = values;
+    allocate(2 * oldOffsets.length);
+    int mask = offsets.length - 1;
+    for (int i = 0; i < oldOffsets.length; i++) {
+      if (oldOffsets[i] != EMPTY) {
+        int slot = oldKeyHashes[i] & mask;
+        while (offsets[slot] != EMPTY) {
+          slot = (slot + 1) & mask;
+        }
+        offsets[slot] = oldOffsets[i];
+        keyHashes[slot] = oldKeyHashes[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  private int storeKey() {
+    int required = keysLength + 2 + keyLength;
+    if (required > keys.length) {
+      keys = Arrays.copyOf(keys, Math.max(required, 2 * keys.length));
+    }
+    int result = keysLength;
+    keys[keysLength++] = (byte)(keyLength >>> 8);
+    keys[keysLength++] = (byte)keyLength;
+    System.arraycopy(key, 0, keys, keysLength, keyLength);
+    keysLength += keyLength;
+    return result;
+  }
+
+  private int slotOf(int keyHash) {
+    int mask = offsets.length - 1;
+    int result = keyHash & mask;
+    while (offsets[result] != EMPTY && (keyHashes[result] != keyHash || !isKeyAt(offsets[result]))) {
+      result = (result + 1) & mask;
+    }
+    return result;
+  }
+
+  private boolean isKeyAt(int offset) {
+    int length = lengthAt(offset);
+    if (length != keyLength) {
+      return false;
+    }
+    int start = offset + 2;
+    for (int i = 0; i < length; i++) {
+      if (keys[start + i] != key[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int setKey(Collection<EncodedHash> hashes) {
+    keyLength = 0;
+    for (EncodedHash hash : hashes) {
+      Encoding encoding = encodingOf(hash);
+      byte[] digest = encoding == null ? null : digestOf(hash.getValue(), encoding);
+      if (digest == null) {
+        appendShape(new Shape(hash, null));
+        appendBytes(hash.getValue()
+          .getBytes(StandardCharsets.UTF_8));
+      } else {
+        appendShape(new Shape(hash, encoding));
+        appendBytes(digest);
+      }
+    }
+    if (keyLength > MAX_LENGTH) {
+      throw new IllegalArgumentException("Hashes are too long: " + hashes);
+    }
+    int result = 1;
+    for (int i = 0; i < keyLength; i++) {
+      result = 31 * result + key[i];
+    }
+    return result ^ result >>> 16;
+  }
+
+  private static Encoding encodingOf(EncodedHash hash) {
+    for (Encoding encoding : Encoding.values()) {
+      if (encoding.toString()
+        .equals(hash.getEncoding())) {
+        return encoding;
+      }
+    }
+    return null;
+  }
+
+  private static byte[] digestOf(String value, Encoding encoding) {
+    byte[] result;
+    try {
+      result = encoding.decode(value);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+    // Only use the raw digest when it maps back to the same text, so that keys are equal exactly when hashes are
+    return value.equals(encoding.encode(result)) ? result : null;
+  }
+
+  private void appendShape(Shape shape) {
+    int index = shapes.indexOf(shape);
+    if (index < 0) {
+      if (shapes.size() > MAX_SHAPES) {
+        throw new IllegalStateException("Too many different hash functions and encodings");
+      }
+      index = shapes.size();
+      shapes.add(shape);
+    }
+    ensureKeyCapacity(1);
+    key[keyLength++] = (byte)index;
+  }
+
+  private void appendBytes(byte[] bytes) {
+    if (bytes.length > MAX_LENGTH) {
+      throw new IllegalArgumentException("Hash is too long");
+    }
+    ensureKeyCapacity(2 + bytes.length);
+    key[keyLength++] = (byte)(bytes.length >>> 8);
+    key[keyLength++] = (byte)bytes.length;
+    System.arraycopy(bytes, 0, key, keyLength, bytes.length);
+    keyLength += bytes.length;
+  }
+
+  private void ensureKeyCapacity(int numBytes) {
+    if (keyLength + numBytes > key.length) {
+      key = Arrays.copyOf(key, Math.max(keyLength + numBytes, 2 * key.length));
+    }
+  }
+
+  /**
+   * Returns the number of entries in the table.
+   * @return The number of entries in the table
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Remove all entries from the table.
+   */
+  void clear() {
+    Arrays.fill(offsets, EMPTY);
+    Arrays.fill(values, null);
+    size = 0;
+    keysLength = 0;
+  }
+
+
+  /**
+   * The hash function and encoding of a hash, and whether the hash is stored as raw digest or as text.
+   */
+  private static final class Shape {
+
+    private final String hashFunction;
+    private final String encodingName;
+    private final Encoding encoding;
+
+    Shape(EncodedHash hash, Encoding encoding) {
+      this.hashFunction = hash.getHashFunction();
+      this.encodingName = hash.getEncoding();
+      this.encoding = encoding;
+    }
+
+    EncodedHash hashOf(byte[] bytes) {
+      String value = encoding == null ? new String(bytes, StandardCharsets.UTF_8) : encoding.encode(bytes);
+      return new EncodedHash(hashFunction, encodingName, value);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(hashFunction, encodingName, encoding);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Shape)) {
+        return false;
+      }
+      Shape other = (Shape)obj;
+      return hashFunction.equals(other.hashFunction) && encodingName.equals(other.encodingName)
+          && encoding == other.encoding;
+    }
+
+  }
+
+}
@@ -8,7 +8,9 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.Iterator;
+import java.util.Spliterator;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import com.opentext.ia.sdk.support.io.FileBuffer;
 import com.opentext.ia.sdk.support.io.FileSupplier;
@@ -79,6 +81,31 @@ public class FileGenerator<C> extends Generator<C> {
     return generate(new EnumerationIterator<>(components));
   }
 
+  /**
+   * Generate a file by assembling components from a stream, which may be parallel.
+   * @param components The components to assemble, which are closed afterwards
+   * @return The generated file and metrics about the generation process
+   * @throws IOException When an I/O error occurs
+   * @see Generator#generate(Stream, com.opentext.ia.sdk.support.io.DataBuffer)
+   */
+  public FileGenerationMetrics generate(Stream<C> components) throws IOException {
+    File result = fileSupplier.get();
+    return new FileGenerationMetrics(result, generate(components, new FileBuffer(result)));
+  }
+
+  /**
+   * Generate a file by assembling components from a spliterator, which is split to produce components on several
+   * threads.
+   * @param components The components to assemble
+   * @return The generated file and metrics about the generation process
+   * @throws IOException When an I/O error occurs
+   * @see Generator#generate(Spliterator, com.opentext.ia.sdk.support.io.DataBuffer)
+   */
+  public FileGenerationMetrics generate(Spliterator<C> components) throws IOException {
+    File result = fileSupplier.get();
+    return new FileGenerationMetrics(result, generate(components, new FileBuffer(result)));
+  }
+
   /**
    * Generate a file from a single component.
    * @param component The component to generate the file from
@@ -7,8 +7,12 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.opentext.ia.sdk.support.io.DataBuffer;
+import com.opentext.ia.sdk.support.io.IOStreams;
 
 /**
  * {@linkplain #generate(Iterable, DataBuffer) Generate} a product by {@linkplain Assembler assembling} components.
@@ -67,6 +71,44 @@ public class Generator<C> {
     return generate(new EnumerationIterator<C>(components), product);
   }
 
+  /**
+   * Generate a product by assembling components from a stream. If the stream is parallel, the operations of its
+   * pipeline, like mapping source records to components, run on several threads. The components are handed to the
+   * assembler one at a time, though, so the assembler doesn't need to be thread-safe. The components of a parallel
+   * stream are assembled in no particular order.
+   * @param components The components to assemble, which are closed afterwards
+   * @param product Storage for the assembled product
+   * @return Metrics about the generation process
+   * @throws IOException When an I/O error occurs
+   */
+  public Metrics generate(Stream<C> components, DataBuffer product) throws IOException {
+    assembler.start(product);
+    Object lock = new Object();
+    try {
+      IOStreams.forEachChecked(components, component -> {
+        synchronized (lock) {
+          assembler.add(component);
+        }
+      });
+    } finally {
+      assembler.end();
+    }
+    return assembler.getMetrics();
+  }
+
+  /**
+   * Generate a product by assembling components from a spliterator, which is split to produce components on several
+   * threads. The components are assembled in no particular order.
+   * @param components The components to assemble
+   * @param product Storage for the assembled product
+   * @return Metrics about the generation process
+   * @throws IOException When an I/O error occurs
+   * @see #generate(Stream, DataBuffer)
+   */
+  public Metrics generate(Spliterator<C> components, DataBuffer product) throws IOException {
+    return generate(StreamSupport.stream(components, true), product);
+  }
+
   /**
    * Generate a product from a single piece.
    * @param component The component to generate the product from
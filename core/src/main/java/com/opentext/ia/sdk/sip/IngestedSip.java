@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.File;
+
+
+/**
+ * The outcome of ingesting a SIP that was assembled by an {@linkplain IngestingBatchSipAssembler}.
+ */
+public class IngestedSip {
+
+  private final FileGenerationMetrics sip;
+  private final String aipId;
+  private final long ingestTime;
+  private final Exception failure;
+
+  IngestedSip(FileGenerationMetrics sip, String aipId, long ingestTime, Exception failure) {
+    this.sip = sip;
+    this.aipId = aipId;
+    this.ingestTime = ingestTime;
+    this.failure = failure;
+  }
+
+  /**
+   * Return the SIP file. The file no longer exists if it was deleted according to the {@linkplain SipRetentionPolicy}.
+   * @return The SIP file
+   */
+  public File getFile() {
+    return sip.getFile();
+  }
+
+  /**
+   * Return metrics about the assembly of the SIP.
+   * @return Metrics about the assembly of the SIP
+   */
+  public Metrics getMetrics() {
+    return sip.getMetrics();
+  }
+
+  /**
+   * Return the ID of the Archival Information Package (AIP) that was generated from the SIP.
+   * @return The ID of the AIP, or <code>null</code> if the SIP failed to ingest
+   */
+  public String getAipId() {
+    return aipId;
+  }
+
+  /**
+   * Return the time it took to ingest the SIP, i.e. to upload it and wait for the archive to respond.
+   * @return The time it took to ingest the SIP in nanoseconds
+   */
+  public long getIngestTime() {
+    return ingestTime;
+  }
+
+  /**
+   * Return whether the SIP was ingested successfully.
+   * @return <code>true</code> if the SIP was ingested, or <code>false</code> if it failed to ingest
+   */
+  public boolean isIngested() {
+    return failure == null;
+  }
+
+  /**
+   * Return why the SIP failed to ingest.
+   * @return The reason the SIP failed to ingest, or <code>null</code> if the SIP was ingested
+   */
+  public Exception getFailure() {
+    return failure;
+  }
+
+}
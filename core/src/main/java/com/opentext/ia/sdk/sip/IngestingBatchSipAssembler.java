@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.apache.commons.io.FileUtils;
+
+import com.opentext.ia.sdk.support.io.FileSupplier;
+
+
+/**
+ * {@linkplain BatchSipAssembler Assemble a batch of SIPs} and ingest each SIP as soon as it's finished, while assembly
+ * continues with the next SIP. This way assembling SIPs and uploading them to the archive overlap, instead of uploading
+ * all SIPs after the batch ends.
+ * <p>
+ * SIPs are ingested by a pool of worker threads using a {@linkplain SipIngester}, for instance
+ * <code>archiveClient::ingest</code>. The number of finished SIPs that wait for or are in ingestion is bounded, so
+ * {@linkplain #add(Object)} is slowed down when ingestion can't keep up. Once a SIP fails to ingest, adding domain
+ * objects fails as well, and {@linkplain #end()} reports the failure after the other SIPs are done.
+ * <p>
+ * SIP files are deleted or kept after ingestion according to a {@linkplain SipRetentionPolicy}. The outcome of each
+ * ingestion, including how long it took, is available from {@linkplain #getIngestedSips()}.
+ * @param <D> The type of domain object to assemble SIPs from
+ */
+public class IngestingBatchSipAssembler<D> extends BatchSipAssembler<D> {
+
+  private static final int DEFAULT_NUM_WORKERS = 2;
+  private static final int MAX_PENDING_PER_WORKER = 2;
+
+  private final SipIngester ingester;
+  private final SipRetentionPolicy retentionPolicy;
+  private final Semaphore pending;
+  private final ExecutorService workers;
+  private final Collection<IngestedSip> ingestedSips = new ConcurrentLinkedQueue<>();
+  private final LatencyHistogram ingestLatencies = new LatencyHistogram();
+  private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+  /**
+   * Create an instance that assembles SIPs in a temporary directory, and deletes them once they are ingested.
+   * @param assembler An assembler that builds up the SIPs in the batch
+   * @param segmentationStrategy A strategy that determines when to start new SIPs
+   * @param ingester The ingester that ingests the SIPs
+   */
+  public IngestingBatchSipAssembler(SipAssembler<D> assembler, SipSegmentationStrategy<D> segmentationStrategy,
+      SipIngester ingester) {
+    this(assembler, segmentationStrategy, FileSupplier.fromTemporaryDirectory(), ingester, DEFAULT_NUM_WORKERS,
+        SipRetentionPolicy.DELETE_INGESTED);
+  }
+
+  /**
+   * Create an instance that assembles SIPs using the given supplier of SIP files.
+   * @param assembler An assembler that builds up the SIPs in the batch
+   * @param segmentationStrategy A strategy that determines when to start new SIPs
+   * @param fileSupplier A supplier of files in which to store the SIPs
+   * @param ingester The thread-safe ingester that ingests the SIPs
+   * @param numWorkers The number of SIPs to ingest at once
+   * @param retentionPolicy What to do with SIP files once they are ingested
+   */
+  public IngestingBatchSipAssembler(SipAssembler<D> assembler, SipSegmentationStrategy<D> segmentationStrategy,
+      Supplier<File> fileSupplier, SipIngester ingester, int numWorkers, SipRetentionPolicy retentionPolicy) {
+    super(assembler, segmentationStrategy, fileSupplier);
+    if (numWorkers < 1) {
+      throw new IllegalArgumentException("Need at least one worker");
+    }
+    this.ingester = ingester;
+    this.retentionPolicy = retentionPolicy;
+    this.pending = new Semaphore(MAX_PENDING_PER_WORKER * numWorkers);
+    this.workers = Executors.newFixedThreadPool(numWorkers, threadsNamed("sip-ingester"));
+  }
+
+  private static ThreadFactory threadsNamed(String prefix) {
+    AtomicInteger count = new AtomicInteger();
+    return task -> {
+      Thread result = new Thread(task, prefix + '-' + count.incrementAndGet());
+      result.setDaemon(true);
+      return result;
+    };
+  }
+
+  @Override
+  public void add(D domainObject) throws IOException {
+    IOException error = getFailure();
+    if (error != null) {
+      throw error;
+    }
+    super.add(domainObject);
+  }
+
+  @Override
+  protected void sipEnded(FileGenerationMetrics metrics) {
+    super.sipEnded(metrics);
+    try {
+      pending.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting to ingest SIP", e);
+    }
+    workers.execute(() -> ingest(metrics));
+  }
+
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  private void ingest(FileGenerationMetrics sip) {
+    long start = System.nanoTime();
+    try {
+      String aipId;
+      try (InputStream stream = new FileInputStream(sip.getFile())) {
+        aipId = ingester.ingest(stream);
+      }
+      long ingestTime = System.nanoTime() - start;
+      ingestLatencies.record(ingestTime);
+      ingestedSips.add(new IngestedSip(sip, aipId, ingestTime, null));
+      if (retentionPolicy == SipRetentionPolicy.DELETE_INGESTED) {
+        FileUtils.deleteQuietly(sip.getFile());
+      }
+    } catch (IOException | RuntimeException e) {
+      failure.compareAndSet(null, e);
+      ingestedSips.add(new IngestedSip(sip, null, System.nanoTime() - start, e));
+    } finally {
+      pending.release();
+    }
+  }
+
+  private IOException getFailure() {
+    Exception result = failure.get();
+    if (result == null || result instanceof IOException) {
+      return (IOException)result;
+    }
+    return new IOException("Failed to ingest SIP", result);
+  }
+
+  /**
+   * End the batch assembly process and wait until all SIPs are ingested.
+   * @throws IOException When an I/O error occurs, or when a SIP failed to ingest
+   */
+  @Override
+  public void end() throws IOException {
+    try {
+      super.end();
+    } catch (IOException e) {
+      workers.shutdown();
+      throw e;
+    }
+    awaitIngestion();
+    IOException error = getFailure();
+    if (error != null) {
+      throw error;
+    }
+  }
+
+  private void awaitIngestion() throws IOException {
+    workers.shutdown();
+    try {
+      workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for SIPs to be ingested", e);
+    }
+  }
+
+  /**
+   * Returns the outcome of ingesting the SIPs in this batch so far, in the order in which their ingestion completed.
+   * @return The outcome of ingesting the SIPs
+   */
+  public Collection<IngestedSip> getIngestedSips() {
+    return Collections.unmodifiableCollection(ingestedSips);
+  }
+
+  /**
+   * Returns the distribution of the time it took to ingest a SIP, for the SIPs that were ingested successfully.
+   * @return The latencies of ingesting SIPs
+   */
+  public LatencyHistogram getIngestLatencies() {
+    return ingestLatencies;
+  }
+
+}
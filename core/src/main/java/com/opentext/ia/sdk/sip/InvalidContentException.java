@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.IOException;
+
+
+/**
+ * Signals that assembled content, like a PDI, doesn't meet the expectations of its {@linkplain Validator}.
+ */
+public class InvalidContentException extends IOException {
+
+  private static final long serialVersionUID = -3165243470532906291L;
+  private final int lineNumber;
+  private final int columnNumber;
+  private final int domainObjectIndex;
+
+  public InvalidContentException(String message, int lineNumber, int columnNumber, int domainObjectIndex,
+      Throwable cause) {
+    super(message, cause);
+    this.lineNumber = lineNumber;
+    this.columnNumber = columnNumber;
+    this.domainObjectIndex = domainObjectIndex;
+  }
+
+  /**
+   * Returns the line at which the content is invalid.
+   * @return The line number, starting at 1, or -1 if unknown
+   */
+  public int getLineNumber() {
+    return lineNumber;
+  }
+
+  /**
+   * Returns the column at which the content is invalid.
+   * @return The column number, starting at 1, or -1 if unknown
+   */
+  public int getColumnNumber() {
+    return columnNumber;
+  }
+
+  /**
+   * Returns the index of the domain object whose content is invalid.
+   * @return The index of the domain object in the order in which they were added, starting at 0, or -1 if unknown or
+   *         if the invalid content is not part of any domain object
+   */
+  public int getDomainObjectIndex() {
+    return domainObjectIndex;
+  }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Distribution of latencies in nanoseconds. Latencies are counted in buckets whose bounds are powers of two, so
+ * recording a latency takes constant time and memory, and percentiles are accurate to within a factor of two.
+ * <p>
+ * This class is thread-safe.
+ */
+public class LatencyHistogram {
+
+  private static final int NUM_BUCKETS = Long.SIZE;
+
+  private final AtomicLongArray buckets;
+  private final AtomicLong count;
+  private final AtomicLong total;
+  private final AtomicLong max;
+
+  public LatencyHistogram() {
+    this(new AtomicLongArray(NUM_BUCKETS), new AtomicLong(), new AtomicLong(), new AtomicLong());
+  }
+
+  private LatencyHistogram(AtomicLongArray buckets, AtomicLong count, AtomicLong total, AtomicLong max) {
+    this.buckets = buckets;
+    this.count = count;
+    this.total = total;
+    this.max = max;
+  }
+
+  /**
+   * Record a latency.
+   * @param nanos The latency in nanoseconds
+   */
+  public void record(long nanos) {
+    long latency = Math.max(0, nanos);
+    buckets.incrementAndGet(bucketOf(latency));
+    count.incrementAndGet();
+    total.addAndGet(latency);
+    max.accumulateAndGet(latency, Math::max);
+  }
+
+  private static int bucketOf(long nanos) {
+    return Math.min(NUM_BUCKETS - 1, Long.SIZE - Long.numberOfLeadingZeros(nanos));
+  }
+
+  /**
+   * Returns the number of recorded latencies.
+   * @return The number of recorded latencies
+   */
+  public long getCount() {
+    return count.get();
+  }
+
+  /**
+   * Returns the sum of all recorded latencies.
+   * @return The sum of all recorded latencies in nanoseconds
+   */
+  public long getTotal() {
+    return total.get();
+  }
+
+  /**
+   * Returns the largest recorded latency.
+   * @return The largest recorded latency in nanoseconds
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Returns the average recorded latency.
+   * @return The average recorded latency in nanoseconds, or 0 if no latencies were recorded
+   */
+  public long getMean() {
+    long n = getCount();
+    return n == 0 ? 0 : getTotal() / n;
+  }
+
+  /**
+   * Returns an upper bound of the given percentile of recorded latencies.
+   * @param percentile The percentile, between 0 and 100
+   * @return An upper bound of the percentile in nanoseconds, which is at most twice the actual value
+   */
+  public long getPercentile(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+    }
+    long threshold = (long)Math.ceil(getCount() * percentile / 100);
+    long seen = 0;
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      seen += buckets.get(i);
+      if (seen >= threshold && seen > 0) {
+        return Math.min(upperBoundOf(i), getMax());
+      }
+    }
+    return getMax();
+  }
+
+  private static long upperBoundOf(int bucket) {
+    return bucket >= NUM_BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+  }
+
+  /**
+   * Forget all recorded latencies.
+   */
+  public void reset() {
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      buckets.set(i, 0);
+    }
+    count.set(0);
+    total.set(0);
+    max.set(0);
+  }
+
+  /**
+   * Returns a copy of the currently recorded latencies, which doesn't change when more latencies are recorded.
+   * @return A copy of the histogram
+   */
+  public LatencyHistogram snapshot() {
+    AtomicLongArray copiedBuckets = new AtomicLongArray(NUM_BUCKETS);
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      copiedBuckets.set(i, buckets.get(i));
+    }
+    return new LatencyHistogram(copiedBuckets, new AtomicLong(count.get()), new AtomicLong(total.get()),
+        new AtomicLong(max.get()));
+  }
+
+  @Override
+  public String toString() {
+    return String.format("count=%d, mean=%dns, p50=%dns, p99=%dns, max=%dns", getCount(), getMean(),
+        getPercentile(50), getPercentile(99), getMax());
+  }
+
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.opentext.ia.sdk.support.io.FileSupplier;
+import com.opentext.ia.sdk.support.io.IOStreams;
+
+
+/**
+ * Assemble a batch of SIPs in several lanes at once. Each lane has its own {@linkplain SipAssembler} and builds up one
+ * SIP at a time, applying the {@linkplain SipSegmentationStrategy segmentation strategy} to the SIP in that lane.
+ * Domain objects are distributed over the lanes in round-robin fashion, so that callers on different threads can
+ * {@linkplain #add(Object) add} domain objects concurrently.
+ * <p>
+ * All lanes must share the same {@linkplain PackagingInformationFactory}, so that the SIPs in the batch are numbered
+ * sequentially in their Data Submission Session (DSS) in the order in which they are completed. When the batch
+ * {@linkplain #end() ends}, the open SIPs are closed one lane at a time and only the last of them is marked as the
+ * final SIP in the DSS.
+ * <p>
+ * The segmentation strategy is shared by the lanes, so it must be thread-safe.
+ * @param <D> The type of domain object to assemble SIPs from
+ */
+public class ParallelBatchSipAssembler<D> {
+
+  private final List<Lane> lanes;
+  private final PackagingInformationFactory packagingInformationFactory;
+  private final Collection<FileGenerationMetrics> sipsMetrics = new ConcurrentLinkedQueue<>();
+  private final AtomicLong next = new AtomicLong();
+
+  /**
+   * Create an instance that assembles SIPs in a temporary directory.
+   * @param assemblerSupplier Supplier of assemblers that build up the SIPs in each lane
+   * @param numLanes The number of SIPs to assemble at once
+   * @param segmentationStrategy A strategy that determines when to start new SIPs
+   */
+  public ParallelBatchSipAssembler(Supplier<SipAssembler<D>> assemblerSupplier, int numLanes,
+      SipSegmentationStrategy<D> segmentationStrategy) {
+    this(assemblerSupplier, numLanes, segmentationStrategy, FileSupplier.fromTemporaryDirectory());
+  }
+
+  /**
+   * Create an instance that assembles SIPs in the given directory.
+   * @param assemblerSupplier Supplier of assemblers that build up the SIPs in each lane
+   * @param numLanes The number of SIPs to assemble at once
+   * @param segmentationStrategy A strategy that determines when to start new SIPs
+   * @param dir Directory in which to generate SIP files
+   */
+  public ParallelBatchSipAssembler(Supplier<SipAssembler<D>> assemblerSupplier, int numLanes,
+      SipSegmentationStrategy<D> segmentationStrategy, File dir) {
+    this(assemblerSupplier, numLanes, segmentationStrategy, FileSupplier.fromDirectory(dir));
+  }
+
+  /**
+   * Create an instance that assembles SIPs using the given supplier of SIP files.
+   * @param assemblerSupplier Supplier of assemblers that build up the SIPs in each lane. All assemblers must use the
+   * same {@linkplain PackagingInformationFactory}
+   * @param numLanes The number of SIPs to assemble at once
+   * @param segmentationStrategy A strategy that determines when to start new SIPs
+   * @param fileSupplier A thread-safe supplier of files in which to store the SIPs
+   */
+  public ParallelBatchSipAssembler(Supplier<SipAssembler<D>> assemblerSupplier, int numLanes,
+      SipSegmentationStrategy<D> segmentationStrategy, Supplier<File> fileSupplier) {
+    if (numLanes < 1) {
+      throw new IllegalArgumentException("Need at least one lane");
+    }
+    List<Lane> newLanes = new ArrayList<>(numLanes);
+    for (int i = 0; i < numLanes; i++) {
+      newLanes.add(new Lane(assemblerSupplier.get(), segmentationStrategy, fileSupplier));
+    }
+    this.lanes = Collections.unmodifiableList(newLanes);
+    this.packagingInformationFactory = lanes.get(0).getPackagingInformationFactory();
+    if (lanes.stream().anyMatch(lane -> lane.getPackagingInformationFactory() != packagingInformationFactory)) {
+      throw new IllegalArgumentException("All lanes must share the same packaging information factory");
+    }
+  }
+
+  /**
+   * Add a domain object to the batch of SIPs.
+   * @param domainObject The domain object to add
+   * @throws IOException When an I/O error occurs
+   */
+  public void add(D domainObject) throws IOException {
+    lanes.get((int)(next.getAndIncrement() % lanes.size())).add(domainObject);
+  }
+
+  /**
+   * Add the domain objects from a stream to the batch of SIPs. If the stream is parallel, its threads add domain
+   * objects to the lanes concurrently, in no particular order.
+   * @param domainObjects The domain objects to add, which are closed afterwards
+   * @throws IOException When an I/O error occurs
+   */
+  public void addAll(Stream<? extends D> domainObjects) throws IOException {
+    IOStreams.forEachChecked(domainObjects, this::add);
+  }
+
+  /**
+   * End the batch assembly process. Call this method only after all calls to {@linkplain #add(Object)} have returned.
+   * @throws IOException When an I/O error occurs
+   */
+  public void end() throws IOException {
+    List<Lane> open = lanes.stream()
+      .filter(Lane::isSipOpen)
+      .collect(Collectors.toList());
+    for (int i = 0; i < open.size() - 1; i++) {
+      open.get(i).closeSip();
+    }
+    packagingInformationFactory.setFinalSipInDss(true);
+    if (!open.isEmpty()) {
+      open.get(open.size() - 1).closeSip();
+    }
+  }
+
+  protected void sipEnded(FileGenerationMetrics metrics) {
+    sipsMetrics.add(metrics);
+  }
+
+  /**
+   * Returns the files that were generated as part of this batch and metrics about the SIPs stored in them.
+   * @return The files that were generated as part of this batch and metrics about the SIPs stored in them
+   */
+  public Collection<FileGenerationMetrics> getSipsMetrics() {
+    return Collections.unmodifiableCollection(sipsMetrics);
+  }
+
+
+  private class Lane extends BatchSipAssembler<D> {
+
+    private final PackagingInformationFactory factory;
+
+    Lane(SipAssembler<D> assembler, SipSegmentationStrategy<D> segmentationStrategy, Supplier<File> fileSupplier) {
+      super(assembler, segmentationStrategy, fileSupplier);
+      this.factory = assembler.getPackagingInformationFactory();
+    }
+
+    PackagingInformationFactory getPackagingInformationFactory() {
+      return factory;
+    }
+
+    synchronized void closeSip() throws IOException {
+      closeCurrentSip();
+    }
+
+    @Override
+    protected void sipEnded(FileGenerationMetrics metrics) {
+      ParallelBatchSipAssembler.this.sipEnded(metrics);
+    }
+
+  }
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.commons.io.input.CountingInputStream;
+
+import com.opentext.ia.sdk.support.io.EncodedHash;
+
+
+/**
+ * {@linkplain ContentIndex} that survives restarts of the JVM. Committed content is appended to a log file, and the
+ * whole index is kept in memory in a compact table of raw digests for fast lookups. When the index is opened, the log
+ * is read back; a record that was only partially written, for instance because the JVM crashed during a commit, is
+ * discarded. When several SIPs committed the same content, the reference information of the first one is kept, both
+ * when committing and when reading back the log.
+ * <p>
+ * Since reference information only has meaning within a holding, use a separate index for each holding.
+ * <p>
+ * This class is thread-safe. Each {@linkplain #begin() transaction} holds its own uncommitted content, so one index can
+ * be shared by several SIP assemblers, for instance the lanes of a {@linkplain ParallelBatchSipAssembler}.
+ */
+public class PersistentContentIndex implements ContentIndex {
+
+  private static final int EXPECTED_SIZE = 64000;
+
+  private final DigestTable<String> referenceInformationByHashes = new DigestTable<>(EXPECTED_SIZE);
+  private final FileOutputStream log;
+
+  /**
+   * Open the index that is stored in the given file. The file is created if it doesn't exist.
+   * @param file The file that holds the index
+   * @throws IOException When an I/O error occurs
+   */
+  public PersistentContentIndex(File file) throws IOException {
+    if (file.isFile()) {
+      load(file);
+    }
+    this.log = new FileOutputStream(file, true);
+  }
+
+  private void load(File indexFile) throws IOException {
+    long validLength = 0;
+    try (CountingInputStream counter = new CountingInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+        DataInputStream records = new DataInputStream(counter)) {
+      while (true) {
+        Collection<EncodedHash> hashes = readHashes(records);
+        String referenceInformation = records.readUTF();
+        referenceInformationByHashes.putIfAbsent(hashes, referenceInformation);
+        validLength = counter.getByteCount();
+      }
+    } catch (EOFException e) {
+      // Reached the end of the log, possibly in the middle of a partially written record
+      truncate(indexFile, validLength);
+    }
+  }
+
+  private static Collection<EncodedHash> readHashes(DataInputStream records) throws IOException {
+    int numHashes = records.readUnsignedShort();
+    Collection<EncodedHash> result = new ArrayList<>(numHashes);
+    for (int i = 0; i < numHashes; i++) {
+      String hashFunction = records.readUTF();
+      String encoding = records.readUTF();
+      result.add(new EncodedHash(hashFunction, encoding, records.readUTF()));
+    }
+    return result;
+  }
+
+  private static void truncate(File indexFile, long length) throws IOException {
+    if (indexFile.length() > length) {
+      try (FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.WRITE)) {
+        channel.truncate(length);
+      }
+    }
+  }
+
+  @Override
+  public synchronized String referenceInformationOf(Collection<EncodedHash> hashes) {
+    return referenceInformationByHashes.get(hashes);
+  }
+
+  @Override
+  public ContentIndexTransaction begin() {
+    return new Transaction();
+  }
+
+  private synchronized void commit(List<ContentInfo> uncommitted) throws IOException {
+    // Append all records at once, so that a record that can't be written doesn't leave part of the batch in the log
+    log.write(toRecords(uncommitted));
+    log.getChannel()
+      .force(false);
+    for (ContentInfo contentInfo : uncommitted) {
+      referenceInformationByHashes.putIfAbsent(contentInfo.getContentHashes(), contentInfo.getReferenceInformation());
+    }
+  }
+
+  private static byte[] toRecords(List<ContentInfo> contentInfos) throws IOException {
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    try (DataOutputStream records = new DataOutputStream(result)) {
+      for (ContentInfo contentInfo : contentInfos) {
+        Collection<EncodedHash> hashes = contentInfo.getContentHashes();
+        records.writeShort(hashes.size());
+        for (EncodedHash hash : hashes) {
+          records.writeUTF(hash.getHashFunction());
+          records.writeUTF(hash.getEncoding());
+          records.writeUTF(hash.getValue());
+        }
+        records.writeUTF(contentInfo.getReferenceInformation());
+      }
+    }
+    return result.toByteArray();
+  }
+
+  /**
+   * Returns the number of committed entries in the index.
+   * @return The number of committed entries
+   */
+  public synchronized int size() {
+    return referenceInformationByHashes.size();
+  }
+
+  /**
+   * Close the index. Content of transactions that weren't committed is discarded.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    log.close();
+  }
+
+
+  private class Transaction implements ContentIndexTransaction {
+
+    private final List<ContentInfo> uncommitted = new ArrayList<>();
+
+    @Override
+    public synchronized void add(Collection<EncodedHash> hashes, String referenceInformation) {
+      if (hashes.isEmpty()) {
+        throw new IllegalArgumentException("Content without hashes can't be indexed");
+      }
+      uncommitted.add(new ContentInfo(referenceInformation, hashes));
+    }
+
+    @Override
+    public synchronized void commit() throws IOException {
+      PersistentContentIndex.this.commit(uncommitted);
+      uncommitted.clear();
+    }
+
+    @Override
+    public synchronized void rollback() {
+      uncommitted.clear();
+    }
+
+  }
+
+}
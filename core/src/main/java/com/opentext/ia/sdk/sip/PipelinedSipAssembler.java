@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.apache.commons.io.IOUtils;
+
+import com.opentext.ia.sdk.support.io.CompressedContent;
+import com.opentext.ia.sdk.support.io.DataBuffer;
+import com.opentext.ia.sdk.support.io.DataBufferSupplier;
+import com.opentext.ia.sdk.support.io.HashAssembler;
+import com.opentext.ia.sdk.support.io.HybridBuffer;
+import com.opentext.ia.sdk.support.io.RuntimeIoException;
+
+
+/**
+ * {@linkplain SipAssembler} that spreads the work of adding digital objects over a pool of worker threads. The workers
+ * open, hash, and compress the {@linkplain DigitalObject}s of the domain objects. A single writer thread then appends
+ * the compressed entries to the ZIP and adds the domain objects to the PDI, in the order in which they were
+ * {@linkplain #add(Object) added}.
+ * <p>
+ * The number of domain objects that are in progress at any one time is bounded, so that callers of
+ * {@linkplain #add(Object)} are slowed down when the workers or the writer can't keep up. Compressed content is held in
+ * a {@linkplain DataBuffer} until the writer gets to it.
+ * <p>
+ * The {@linkplain DigitalObjectsExtraction} and the {@linkplain DigitalObject}s it returns are used from the worker
+ * threads, so they must be thread-safe. Each worker uses its own {@linkplain HashAssembler}. Content is not
+ * de-duplicated.
+ * <p>
+ * Since domain objects are added to the PDI asynchronously, the {@linkplain #getMetrics() metrics} lag behind the calls
+ * to {@linkplain #add(Object)}. They are complete after {@linkplain #end()}. The time it takes to add a domain object
+ * is measured from the call to {@linkplain #add(Object)} until the domain object is written, and the time spent adding
+ * digital objects is the sum of the time all workers spent on them.
+ * @param <D> The type of domain objects to assemble the SIP from
+ */
+public class PipelinedSipAssembler<D> extends SipAssembler<D> {
+
+  private static final int MAX_PENDING_PER_WORKER = 4;
+
+  private final DigitalObjectsExtraction<D> contentsExtraction;
+  private final Supplier<? extends HashAssembler> contentHashAssemblerSupplier;
+  private final Supplier<? extends DataBuffer> contentBufferSupplier;
+  private final int numWorkers;
+  private final Semaphore pending;
+  private final Queue<HashAssembler> idleHashAssemblers = new ConcurrentLinkedQueue<>();
+  private final AtomicReference<Exception> failure = new AtomicReference<>();
+  private final Object submitLock = new Object();
+  private ExecutorService workers;
+  private ExecutorService writer;
+
+  /**
+   * Create a new instance that uses one worker per available processor and holds compressed content in
+   * {@linkplain HybridBuffer}s.
+   * @param packagingInformationFactory Factory for creating the Packaging Information
+   * @param pdiAssembler Assembler that builds up the PDI
+   * @param pdiHashAssembler Assembler that builds up an encoded hash for the PDI
+   * @param pdiBufferSupplier Supplier for a data buffer to store the PDI
+   * @param contentsExtraction Extraction of content from domain objects added to the SIP
+   * @param contentHashAssemblerSupplier Supplier for assemblers that build up encoded hashes for the extracted content
+   */
+  public PipelinedSipAssembler(PackagingInformationFactory packagingInformationFactory,
+      Assembler<HashedContents<D>> pdiAssembler, HashAssembler pdiHashAssembler,
+      Supplier<? extends DataBuffer> pdiBufferSupplier, DigitalObjectsExtraction<D> contentsExtraction,
+      Supplier<? extends HashAssembler> contentHashAssemblerSupplier) {
+    this(packagingInformationFactory, pdiAssembler, pdiHashAssembler, pdiBufferSupplier, contentsExtraction,
+        contentHashAssemblerSupplier, new DataBufferSupplier<>(HybridBuffer.class),
+        Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Create a new instance.
+   * @param packagingInformationFactory Factory for creating the Packaging Information
+   * @param pdiAssembler Assembler that builds up the PDI
+   * @param pdiHashAssembler Assembler that builds up an encoded hash for the PDI
+   * @param pdiBufferSupplier Supplier for a data buffer to store the PDI
+   * @param contentsExtraction Extraction of content from domain objects added to the SIP
+   * @param contentHashAssemblerSupplier Supplier for assemblers that build up encoded hashes for the extracted content
+   * @param contentBufferSupplier Supplier for data buffers to store compressed content until it's added to the ZIP
+   * @param numWorkers The number of worker threads that hash and compress content
+   */
+  public PipelinedSipAssembler(PackagingInformationFactory packagingInformationFactory,
+      Assembler<HashedContents<D>> pdiAssembler, HashAssembler pdiHashAssembler,
+      Supplier<? extends DataBuffer> pdiBufferSupplier, DigitalObjectsExtraction<D> contentsExtraction,
+      Supplier<? extends HashAssembler> contentHashAssemblerSupplier,
+      Supplier<? extends DataBuffer> contentBufferSupplier, int numWorkers) {
+    super(packagingInformationFactory, pdiAssembler, pdiHashAssembler, pdiBufferSupplier,
+        ContentAssembler.ignoreContent());
+    if (numWorkers < 1) {
+      throw new IllegalArgumentException("Need at least one worker");
+    }
+    this.contentsExtraction = contentsExtraction;
+    this.contentHashAssemblerSupplier = contentHashAssemblerSupplier;
+    this.contentBufferSupplier = contentBufferSupplier;
+    this.numWorkers = numWorkers;
+    this.pending = new Semaphore(MAX_PENDING_PER_WORKER * numWorkers);
+  }
+
+  @Override
+  public void start(DataBuffer buffer) throws IOException {
+    failure.set(null);
+    super.start(buffer);
+    workers = Executors.newFixedThreadPool(numWorkers, threadsNamed("sip-content-worker"));
+    writer = Executors.newSingleThreadExecutor(threadsNamed("sip-writer"));
+  }
+
+  private static ThreadFactory threadsNamed(String prefix) {
+    AtomicInteger count = new AtomicInteger();
+    return task -> {
+      Thread result = new Thread(task, prefix + '-' + count.incrementAndGet());
+      result.setDaemon(true);
+      return result;
+    };
+  }
+
+  @Override
+  public void add(D domainObject) {
+    IOException error = getFailure();
+    if (error != null) {
+      throw new RuntimeIoException(error);
+    }
+    try {
+      pending.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting to add domain object", e);
+    }
+    // Submit to both the workers and the writer under a lock, so the writer sees domain objects in order
+    long start = System.nanoTime();
+    synchronized (submitLock) {
+      Future<Map<String, CompressedContent>> contents = workers.submit(() -> compressContentsOf(domainObject));
+      writer.execute(() -> write(domainObject, contents, start));
+    }
+  }
+
+  private Map<String, CompressedContent> compressContentsOf(D domainObject) throws IOException {
+    if (failure.get() != null) {
+      // The SIP won't be finished, so don't stage any more content
+      return Collections.emptyMap();
+    }
+    long start = System.nanoTime();
+    Map<String, CompressedContent> result = new LinkedHashMap<>();
+    HashAssembler hashAssembler = borrowHashAssembler();
+    List<DataBuffer> staged = new ArrayList<>();
+    boolean compressed = false;
+    try {
+      Iterator<? extends DigitalObject> digitalObjects = contentsExtraction.apply(domainObject);
+      while (digitalObjects.hasNext()) {
+        DigitalObject digitalObject = digitalObjects.next();
+        DataBuffer buffer = contentBufferSupplier.get();
+        staged.add(buffer);
+        try (InputStream stream = digitalObject.get()) {
+          result.put(digitalObject.getReferenceInformation(), CompressedContent.deflate(stream, buffer, hashAssembler));
+        }
+      }
+      compressed = true;
+    } finally {
+      if (!compressed) {
+        // The writer never gets to see the content that was staged so far
+        staged.forEach(IOUtils::closeQuietly);
+      }
+      idleHashAssemblers.offer(hashAssembler);
+      getCounters().inc(SipMetrics.TIME_CONTENT, System.nanoTime() - start);
+    }
+    return result;
+  }
+
+  private HashAssembler borrowHashAssembler() {
+    HashAssembler result = idleHashAssemblers.poll();
+    return result == null ? contentHashAssemblerSupplier.get() : result;
+  }
+
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  private void write(D domainObject, Future<Map<String, CompressedContent>> contents, long start) {
+    try {
+      Map<String, CompressedContent> compressedContents = contents.get();
+      try {
+        if (failure.get() == null) {
+          Map<String, ContentInfo> contentInfo = new TreeMap<>();
+          for (Map.Entry<String, CompressedContent> entry : compressedContents.entrySet()) {
+            contentInfo.put(entry.getKey(), addContent(entry.getKey(), entry.getValue()));
+          }
+          addToPdi(domainObject, contentInfo);
+          aiuAdded(System.nanoTime() - start);
+        }
+      } finally {
+        compressedContents.values().forEach(IOUtils::closeQuietly);
+      }
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      failure.compareAndSet(null, cause instanceof Exception ? (Exception)cause : e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      failure.compareAndSet(null, e);
+    } catch (IOException | RuntimeException e) {
+      failure.compareAndSet(null, e);
+    } finally {
+      pending.release();
+    }
+  }
+
+  private ContentInfo addContent(String ri, CompressedContent content) throws IOException {
+    getZip().addEntry(ri, content);
+    Counters metrics = getCounters();
+    metrics.inc(SipMetrics.NUM_DIGITAL_OBJECTS);
+    metrics.inc(SipMetrics.SIZE_DIGITAL_OBJECTS, content.getSize());
+    return new ContentInfo(ri, content.getHashes());
+  }
+
+  private IOException getFailure() {
+    Exception result = failure.get();
+    if (result == null || result instanceof IOException) {
+      return (IOException)result;
+    }
+    return new IOException("Failed to add domain object to SIP", result);
+  }
+
+  @Override
+  public void end() throws IOException {
+    awaitPending();
+    IOException error = getFailure();
+    if (error != null) {
+      abort();
+      throw error;
+    }
+    super.end();
+  }
+
+  private void awaitPending() throws IOException {
+    writer.shutdown();
+    workers.shutdown();
+    try {
+      writer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+      workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for domain objects to be added", e);
+    }
+  }
+
+}
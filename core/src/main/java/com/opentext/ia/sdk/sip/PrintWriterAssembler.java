@@ -4,27 +4,32 @@
 package com.opentext.ia.sdk.sip;
 
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 
-import javax.validation.ValidationException;
-
 import org.apache.commons.io.IOUtils;
 
 import com.opentext.ia.sdk.support.io.DataBuffer;
 
 /**
  * Base class for assembling a product from domain objects by writing to a {@linkplain PrintWriter}.
+ * <p>
+ * When there is a {@linkplain Validator}, it validates the product on another thread while the product is written.
+ * Adding a domain object fails as soon as validation has failed, and an {@linkplain InvalidContentException} tells
+ * where the product is invalid. When the product can't be {@linkplain #end() ended}, {@linkplain #abort() abort} it,
+ * so that the validator stops waiting for more of the product.
  * @param <D> The type of domain objects to assemble the product from
  */
 public abstract class PrintWriterAssembler<D> implements Assembler<D> {
 
   private final Validator validator;
+  private OutputStream output;
   private PrintWriter printWriter;
-  private DataBuffer buffer;
+  private ValidatingOutputStream validation;
+  private long validationTime;
 
   /**
    * Start the assembly process.
@@ -65,45 +70,116 @@ public abstract class PrintWriterAssembler<D> implements Assembler<D> {
 
   @Override
   public final void start(DataBuffer dataBuffer) throws IOException {
-    buffer = dataBuffer;
-    printWriter = new PrintWriter(new OutputStreamWriter(buffer.openForWriting(), StandardCharsets.UTF_8));
+    // In case the previous product was never ended
+    abort();
+    output = dataBuffer.openForWriting();
+    if (validator != null) {
+      validation = new ValidatingOutputStream(output, validator);
+      output = validation;
+    }
+    printWriter = new PrintWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
     start(printWriter);
   }
 
   @Override
   public final void add(D domainObject) throws IOException {
     Objects.requireNonNull(printWriter, "Should call start() first");
+    if (validation != null) {
+      validation.checkValid();
+      flushBuffered();
+      printWriter.flush();
+      validation.startDomainObject();
+    }
     add(domainObject, printWriter);
   }
 
   @Override
   public final void end() throws IOException {
     Objects.requireNonNull(printWriter, "Should call start() first");
-    end(printWriter);
-    printWriter.flush();
+    boolean written = false;
+    try {
+      if (validation != null) {
+        flushBuffered();
+        printWriter.flush();
+        validation.endDomainObjects();
+      }
+      end(printWriter);
+      printWriter.flush();
+      written = true;
+    } finally {
+      if (!written) {
+        abort();
+      }
+    }
     printWriter.close();
     printWriter = null;
-    if (validator != null) {
-      validate();
+    output = null;
+    validationTime = 0;
+    if (validation != null) {
+      ValidatingOutputStream pending = validation;
+      validation = null;
+      long start = System.nanoTime();
+      try {
+        pending.awaitValidation();
+      } finally {
+        validationTime = System.nanoTime() - start;
+      }
     }
   }
 
-  private void validate() throws IOException {
-    try (InputStream output = buffer.openForReading()) {
-      try {
-        validator.validate(output);
-      } catch (ValidationException e) {
-        try (InputStream actual = buffer.openForReading()) {
-          throw new IOException("Invalid content:\n" + IOUtils.toString(actual, StandardCharsets.UTF_8), e);
-        }
-      }
+  /**
+   * Stop assembling the product without finishing it. Validation stops without waiting for the validator, and the
+   * product is closed as it is.
+   */
+  @Override
+  public void abort() {
+    if (validation == null) {
+      IOUtils.closeQuietly(printWriter);
+    } else {
+      validation.abort();
+      validation = null;
+    }
+    printWriter = null;
+    output = null;
+  }
+
+  /**
+   * Returns the stream that the given writer prints to, so that UTF-8 encoded text can be written to it directly
+   * instead of through the writer. Anything printed to the writer so far is flushed first, so that it precedes what is
+   * written to the stream. Anything buffered on the way to the stream must be written out before printing to the
+   * writer again, and when {@linkplain #flushBuffered()} is called.
+   * @param writer The writer that was passed to {@linkplain #start(PrintWriter)},
+   *          {@linkplain #add(Object, PrintWriter)} or {@linkplain #end(PrintWriter)}
+   * @return The stream that the writer prints to, or <code>null</code> if the writer isn't the one this assembler
+   *         prints to
+   */
+  protected OutputStream getOutputStream(PrintWriter writer) {
+    if (writer == null || writer != printWriter) {
+      return null;
     }
+    printWriter.flush();
+    return output;
   }
 
+  /**
+   * Write out anything that is buffered on the way to the {@linkplain #getOutputStream(PrintWriter) stream}. This is
+   * called when the product must be complete up to this point, like at the start of each domain object when the
+   * product is validated. The default implementation does nothing.
+   */
+  @SuppressWarnings("PMD.EmptyMethodInAbstractClassShouldBeAbstract") // Most subclasses don't buffer anything
+  protected void flushBuffered() {
+    // Nothing is buffered
+  }
+
+  /**
+   * Returns metrics about validating the product. The {@linkplain ValidationMetrics#validationTime() validation time}
+   * is the time that the last {@linkplain #end()} spent waiting for validation to finish. Most of the validation
+   * happens while the product is written, so this is only the part that didn't overlap with writing.
+   * @return Metrics about validating the product
+   */
   @Override
-  @SuppressWarnings("PMD.EmptyMethodInAbstractClassShouldBeAbstract") // This *is* the real implementation
   public Metrics getMetrics() {
-    return null;
+    return new ValidationMetrics(validationTime);
   }
 
 }
@@ -5,22 +5,29 @@ package com.opentext.ia.sdk.sip;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Supplier;
 
 import org.apache.commons.io.IOUtils;
 
+import com.opentext.ia.sdk.support.io.ChunkedBuffer;
 import com.opentext.ia.sdk.support.io.DataBuffer;
 import com.opentext.ia.sdk.support.io.DataBufferSupplier;
 import com.opentext.ia.sdk.support.io.DefaultZipAssembler;
 import com.opentext.ia.sdk.support.io.EncodedHash;
 import com.opentext.ia.sdk.support.io.FileBuffer;
 import com.opentext.ia.sdk.support.io.HashAssembler;
+import com.opentext.ia.sdk.support.io.HybridBuffer;
+import com.opentext.ia.sdk.support.io.MappedFileBuffer;
 import com.opentext.ia.sdk.support.io.MemoryBuffer;
 import com.opentext.ia.sdk.support.io.NoHashAssembler;
 import com.opentext.ia.sdk.support.io.RuntimeIoException;
 import com.opentext.ia.sdk.support.io.ZipAssembler;
+import com.opentext.ia.sdk.support.io.ZipEntryStatistics;
 
 /**
  * Assembles a <a href="http://public.ccsds.org/publications/archive/650x0m2.pdf">Submission Information Package</a>
@@ -43,8 +50,10 @@ import com.opentext.ia.sdk.support.io.ZipAssembler;
  * The PDI will be assembled from the domain objects by an {@linkplain Assembler} and added to the ZIP by a
  * {@linkplain ZipAssembler}. Each domain object may also contain zero or more {@linkplain DigitalObject}s, which are
  * extracted from the domain object using a {@linkplain DigitalObjectsExtraction} and added to the ZIP. The PDI is
- * written to a {@linkplain DataBuffer} until it is complete. For small PDIs, you can use a {@linkplain MemoryBuffer} to
- * hold this data, but for larger PDIs you should use a {@linkplain FileBuffer} to prevent running out of memory.
+ * written to a {@linkplain DataBuffer} until it is complete. The factory methods use a {@linkplain HybridBuffer},
+ * which keeps small PDIs in memory and moves larger ones to a temporary file to prevent running out of memory. You can
+ * also use a {@linkplain MemoryBuffer}, {@linkplain ChunkedBuffer}, {@linkplain FileBuffer}, or
+ * {@linkplain MappedFileBuffer} to hold this data.
  * <p>
  * Use the following steps to assemble a SIP:
  * <ol>
@@ -53,14 +62,23 @@ import com.opentext.ia.sdk.support.io.ZipAssembler;
  * <li>Finish the process by calling the {@linkplain #end()} method</li>
  * </ol>
  * You can optionally get metrics about the SIP assembly process by calling {@linkplain #getMetrics()} at any time.
+ * Besides sizes and counts, the metrics include the time spent in each stage of the process and the distribution of the
+ * time it took to add each domain object. To bridge these metrics to a monitoring system, add a
+ * {@linkplain SipAssemblyListener}.
+ * <p>
+ * When adding a domain object fails, the SIP is {@linkplain #abort() aborted}, since it can't be finished correctly
+ * anymore. Start a new SIP to continue.
  * <p>
  * If the number of domain objects is small and each individual domain object is also small, you can wrap a
  * {@linkplain SipAssembler} in a {@linkplain Generator} to reduce the above code to a single call.
  * <p>
+ * To spread the work of adding digital objects over multiple threads, use {@linkplain PipelinedSipAssembler}.
+ * <p>
  * To assemble a number of SIPs in a batch, use {@linkplain BatchSipAssembler}.
  * <p>
  * @param <D> The type of domain objects to assemble the SIP from
  */
+@SuppressWarnings("PMD.TooManyFields") // Coordinates the assemblers, buffers, and metrics of a SIP
 public class SipAssembler<D> implements Assembler<D> {
 
   private static final String PACKAGING_INFORMATION_ENTRY = "eas_sip.xml";
@@ -73,10 +91,15 @@ public class SipAssembler<D> implements Assembler<D> {
   private final Supplier<? extends DataBuffer> pdiBufferSupplier;
   private final PackagingInformationFactory packagingInformationFactory;
   private final Counters metrics = new Counters();
+  private final LatencyHistogram aiuLatencies = new LatencyHistogram();
+  private final CompressionStatistics compressionStatistics = new CompressionStatistics();
+  private final SipMetrics liveMetrics = new SipMetrics(metrics.forReading(), aiuLatencies, compressionStatistics);
+  private final List<SipAssemblyListener> listeners = new CopyOnWriteArrayList<>();
   private final ContentAssembler<D> contentAssembler;
   private DataBuffer pdiBuffer;
   private DataBuffer sipFileBuffer;
   private Optional<EncodedHash> pdiHash;
+  private volatile IOException aborted;
 
   /**
    * Assemble a SIP that contains only structured data and is the only SIP in its DSS.
@@ -230,7 +253,7 @@ public class SipAssembler<D> implements Assembler<D> {
       Assembler<HashedContents<D>> pdiAssembler, HashAssembler pdiHashAssembler,
       DigitalObjectsExtraction<D> contentsExtraction, HashAssembler contentHashAssembler) {
     return new SipAssembler<>(new DefaultPackagingInformationFactory(prototype), pdiAssembler, pdiHashAssembler,
-        new DataBufferSupplier<>(MemoryBuffer.class),
+        new DataBufferSupplier<>(HybridBuffer.class),
         new ContentAssemblerDefault<D>(contentsExtraction, contentHashAssembler));
   }
 
@@ -246,7 +269,7 @@ public class SipAssembler<D> implements Assembler<D> {
   public static <D> SipAssembler<D> forPdiAndContentWithHashing(PackagingInformation prototype,
       Assembler<HashedContents<D>> pdiAssembler, HashAssembler pdiHashAssembler, ContentAssembler<D> contentAssembler) {
     return new SipAssembler<>(new DefaultPackagingInformationFactory(prototype), pdiAssembler, pdiHashAssembler,
-        new DataBufferSupplier<>(MemoryBuffer.class), contentAssembler);
+        new DataBufferSupplier<>(HybridBuffer.class), contentAssembler);
   }
 
   /**
@@ -260,7 +283,7 @@ public class SipAssembler<D> implements Assembler<D> {
    */
   public static <D> SipAssembler<D> forPdiAndContentWithHashing(PackagingInformationFactory factory,
       Assembler<HashedContents<D>> pdiAssembler, HashAssembler pdiHashAssembler, ContentAssembler<D> contentAssembler) {
-    return new SipAssembler<>(factory, pdiAssembler, pdiHashAssembler, new DataBufferSupplier<>(MemoryBuffer.class),
+    return new SipAssembler<>(factory, pdiAssembler, pdiHashAssembler, new DataBufferSupplier<>(HybridBuffer.class),
         contentAssembler);
   }
 
@@ -275,8 +298,27 @@ public class SipAssembler<D> implements Assembler<D> {
   public SipAssembler(PackagingInformationFactory packagingInformationFactory,
       Assembler<HashedContents<D>> pdiAssembler, HashAssembler pdiHashAssembler,
       Supplier<? extends DataBuffer> pdiBufferSupplier, ContentAssembler<D> contentAssembler) {
+    this(packagingInformationFactory, pdiAssembler, pdiHashAssembler, pdiBufferSupplier, new DefaultZipAssembler(),
+        contentAssembler);
+  }
+
+  /**
+   * Create a new instance that writes the SIP using the given ZIP assembler, for instance a
+   * {@linkplain com.opentext.ia.sdk.support.io.ParallelDeflateZipAssembler} to deflate large entries on several
+   * threads.
+   * @param packagingInformationFactory Factory for creating the Packaging Information
+   * @param pdiAssembler Assembler that builds up the PDI
+   * @param pdiHashAssembler Assembler that builds up an encoded hash for the PDI and the unstructured data
+   * @param pdiBufferSupplier Supplier for a data buffer to store the PDI
+   * @param zipAssembler Assembler that writes the SIP's ZIP
+   * @param contentAssembler ContentAssembler that adds the digital objects to the SIP
+   */
+  public SipAssembler(PackagingInformationFactory packagingInformationFactory,
+      Assembler<HashedContents<D>> pdiAssembler, HashAssembler pdiHashAssembler,
+      Supplier<? extends DataBuffer> pdiBufferSupplier, ZipAssembler zipAssembler,
+      ContentAssembler<D> contentAssembler) {
     this(packagingInformationFactory, new InfoArchivePackagingInformationAssembler(), pdiAssembler, pdiHashAssembler,
-        pdiBufferSupplier, new DefaultZipAssembler(), contentAssembler);
+        pdiBufferSupplier, zipAssembler, contentAssembler);
   }
 
   SipAssembler(PackagingInformationFactory packagingInformationFactory,
@@ -296,32 +338,79 @@ public class SipAssembler<D> implements Assembler<D> {
   public void start(DataBuffer buffer) throws IOException {
     this.sipFileBuffer = buffer;
     pdiHash = Optional.empty();
+    aborted = null;
     metrics.reset();
+    aiuLatencies.reset();
     metrics.set(SipMetrics.ASSEMBLY_TIME, System.currentTimeMillis());
+    zip.setEntryListener(this::zipEntryAdded);
     zip.begin(sipFileBuffer.openForWriting());
     contentAssembler.begin(zip, metrics);
     startPdi();
+    listeners.forEach(SipAssemblyListener::sipStarted);
+  }
+
+  private void zipEntryAdded(ZipEntryStatistics entry) {
+    metrics.inc(SipMetrics.TIME_READ, entry.getReadTime());
+    metrics.inc(SipMetrics.TIME_HASH, entry.getHashTime());
+    metrics.inc(SipMetrics.TIME_WRITE, entry.getWriteTime());
+    String name = entry.getName();
+    if (PDI_ENTRY.equals(name)) {
+      compressionStatistics.recordPdi(entry.getSize(), entry.getCompressedSize());
+      return;
+    }
+    if (PACKAGING_INFORMATION_ENTRY.equals(name)) {
+      return;
+    }
+    metrics.inc(SipMetrics.SIZE_DIGITAL_OBJECTS_COMPRESSED, entry.getCompressedSize());
+    compressionStatistics.recordContent(name, entry.getSize(), entry.getCompressedSize());
+    for (SipAssemblyListener listener : listeners) {
+      listener.digitalObjectAdded(name, entry.getSize(), entry.getReadTime(), entry.getHashTime(),
+          entry.getWriteTime());
+    }
   }
 
   private void startPdi() throws IOException {
+    long start = System.nanoTime();
     pdiBuffer = pdiBufferSupplier.get();
     pdiAssembler.start(pdiBuffer);
+    metrics.inc(SipMetrics.TIME_PDI, System.nanoTime() - start);
   }
 
   @Override
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
   public void add(D domainObject) {
     try {
+      long start = System.nanoTime();
       Map<String, ContentInfo> contentInfo;
       synchronized (contentAssembler) {
         contentInfo = contentAssembler.addContentsOf(domainObject);
       }
-      synchronized (pdiAssembler) {
-        pdiAssembler.add(new HashedContents<>(domainObject, contentInfo));
-      }
-      metrics.inc(SipMetrics.NUM_AIUS);
-      setPdiSize(pdiBuffer.length()); // Approximate PDI size until the end, when we know for sure
+      metrics.inc(SipMetrics.TIME_CONTENT, System.nanoTime() - start);
+      addToPdi(domainObject, contentInfo);
+      aiuAdded(System.nanoTime() - start);
     } catch (IOException e) {
+      abort(e);
       throw new RuntimeIoException(e);
+    } catch (RuntimeException e) {
+      abort(e);
+      throw e;
+    }
+  }
+
+  void addToPdi(D domainObject, Map<String, ContentInfo> contentInfo) throws IOException {
+    long start = System.nanoTime();
+    synchronized (pdiAssembler) {
+      pdiAssembler.add(new HashedContents<>(domainObject, contentInfo));
+    }
+    metrics.inc(SipMetrics.TIME_PDI, System.nanoTime() - start);
+    metrics.inc(SipMetrics.NUM_AIUS);
+    setPdiSize(pdiBuffer.length()); // Approximate PDI size until the end, when we know for sure
+  }
+
+  void aiuAdded(long nanos) {
+    aiuLatencies.record(nanos);
+    for (SipAssemblyListener listener : listeners) {
+      listener.aiuAdded(nanos);
     }
   }
 
@@ -332,25 +421,69 @@ public class SipAssembler<D> implements Assembler<D> {
 
   @Override
   public void end() throws IOException {
+    if (aborted != null) {
+      throw aborted;
+    }
     try {
       endPdi();
       addPackagingInformation();
+      contentAssembler.end();
     } finally {
       IOUtils.closeQuietly(zip);
       metrics.set(SipMetrics.ASSEMBLY_TIME, System.currentTimeMillis() - metrics.get(SipMetrics.ASSEMBLY_TIME));
       metrics.set(SipMetrics.SIZE_SIP_FILE, sipFileBuffer.length());
     }
+    if (!listeners.isEmpty()) {
+      SipMetrics sipMetrics = getMetrics();
+      listeners.forEach(listener -> listener.sipEnded(sipMetrics));
+    }
   }
 
   private void endPdi() throws IOException {
     try {
+      long start = System.nanoTime();
       pdiAssembler.end();
+      long validationTime = validationTimeOf(pdiAssembler.getMetrics());
+      metrics.inc(SipMetrics.TIME_PDI, System.nanoTime() - start - validationTime);
+      metrics.inc(SipMetrics.TIME_PDI_VALIDATION, validationTime);
+      if (validationTime > 0) {
+        for (SipAssemblyListener listener : listeners) {
+          listener.pdiValidated(validationTime);
+        }
+      }
       addPdiToZip();
     } finally {
+      IOUtils.closeQuietly(pdiBuffer);
       pdiBuffer = null;
     }
   }
 
+  /**
+   * Abandon the SIP without finishing it. This stops assembling the PDI, including its validation, and closes the SIP
+   * file as it is. The SIP can't be {@linkplain #end() ended} after this, but a new one can be
+   * {@linkplain #start(DataBuffer) started}.
+   */
+  @Override
+  public void abort() {
+    abort(null);
+  }
+
+  private void abort(Exception cause) {
+    if (aborted != null) {
+      return;
+    }
+    aborted = new IOException("Can't end a SIP that was aborted", cause);
+    synchronized (pdiAssembler) {
+      pdiAssembler.abort();
+    }
+    IOUtils.closeQuietly(pdiBuffer);
+    IOUtils.closeQuietly(zip);
+  }
+
+  private static long validationTimeOf(Metrics pdiMetrics) {
+    return pdiMetrics instanceof ValidationMetrics ? ((ValidationMetrics)pdiMetrics).validationTime() : 0;
+  }
+
   void addPdiToZip() throws IOException {
     try (InputStream in = pdiBuffer.openForReading()) {
       pdiHash = zip.addEntry(PDI_ENTRY, in, pdiHashAssembler)
@@ -380,7 +513,39 @@ public class SipAssembler<D> implements Assembler<D> {
 
   @Override
   public SipMetrics getMetrics() {
-    return new SipMetrics(metrics.forReading());
+    return new SipMetrics(metrics.snapshot(), aiuLatencies.snapshot(), compressionStatistics.snapshot());
+  }
+
+  /**
+   * Add a listener that is told about the progress of the SIP assembly process.
+   * @param listener The listener to add
+   */
+  public void addListener(SipAssemblyListener listener) {
+    listeners.add(Objects.requireNonNull(listener));
+  }
+
+  /**
+   * Remove a listener that was {@linkplain #addListener(SipAssemblyListener) added} earlier.
+   * @param listener The listener to remove
+   */
+  public void removeListener(SipAssemblyListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Returns metrics that reflect the SIP assembly process as it progresses, without copying them.
+   * @return Live metrics about the SIP assembly process
+   */
+  SipMetrics getLiveMetrics() {
+    return liveMetrics;
+  }
+
+  ZipAssembler getZip() {
+    return zip;
+  }
+
+  Counters getCounters() {
+    return metrics;
   }
 
   public PackagingInformationFactory getPackagingInformationFactory() {
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+/**
+ * Listener that is told about the progress of a {@linkplain SipAssembler}, for instance to bridge its metrics to a
+ * monitoring system or to an event recorder. Listeners are called on the threads that do the work, so they should
+ * return quickly.
+ * @see SipAssembler#addListener(SipAssemblyListener)
+ */
+public interface SipAssemblyListener {
+
+  /**
+   * Called when a SIP is started.
+   */
+  default void sipStarted() {
+    // Nothing to do
+  }
+
+  /**
+   * Called when a domain object was added to the SIP.
+   * @param nanos The time it took to add the domain object and its digital objects, in nanoseconds
+   */
+  default void aiuAdded(long nanos) {
+    // Nothing to do
+  }
+
+  /**
+   * Called when a digital object was added to the SIP.
+   * @param referenceInformation The reference information of the digital object
+   * @param size The size of the digital object in bytes
+   * @param readTime The time spent reading the digital object, in nanoseconds
+   * @param hashTime The time spent computing the hashes of the digital object, in nanoseconds
+   * @param writeTime The time spent compressing the digital object and writing it to the SIP, in nanoseconds
+   */
+  default void digitalObjectAdded(String referenceInformation, long size, long readTime, long hashTime,
+      long writeTime) {
+    // Nothing to do
+  }
+
+  /**
+   * Called when the PDI was validated successfully.
+   * @param nanos The time it took to validate the PDI, in nanoseconds
+   */
+  default void pdiValidated(long nanos) {
+    // Nothing to do
+  }
+
+  /**
+   * Called when a SIP was ended successfully.
+   * @param metrics Metrics about the assembly of the SIP, including the time spent in each stage
+   */
+  default void sipEnded(SipMetrics metrics) {
+    // Nothing to do
+  }
+
+}
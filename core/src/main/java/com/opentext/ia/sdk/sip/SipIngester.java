@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+
+/**
+ * Ingests a SIP into an archive, typically by calling {@code ArchiveClient::ingest} or
+ * {@code ArchiveClient::ingestDirect}.
+ * @see IngestingBatchSipAssembler
+ */
+@FunctionalInterface
+public interface SipIngester {
+
+  /**
+   * Ingest a SIP.
+   * @param sip The SIP to ingest
+   * @return The ID of the Archival Information Package (AIP) that was generated from the SIP
+   * @throws IOException When an I/O error occurs
+   */
+  String ingest(InputStream sip) throws IOException;
+
+}
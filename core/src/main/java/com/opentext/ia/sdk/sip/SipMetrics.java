@@ -11,15 +11,39 @@ public class SipMetrics implements Metrics {
   static final String NUM_AIUS = "# AIUs";
   static final String NUM_DIGITAL_OBJECTS = "# digitial objects";
   static final String SIZE_DIGITAL_OBJECTS = "size of digital objects";
+  static final String SIZE_DIGITAL_OBJECTS_COMPRESSED = "compressed size of digital objects";
   static final String SIZE_PDI = "size of PDI";
   static final String SIZE_SIP = "size of SIP";
   static final String SIZE_SIP_FILE = "size of SIP file";
   static final String ASSEMBLY_TIME = "time to assemble (ms)";
+  static final String TIME_CONTENT = "time to add digital objects (ns)";
+  static final String TIME_READ = "time to read entries (ns)";
+  static final String TIME_HASH = "time to hash entries (ns)";
+  static final String TIME_WRITE = "time to compress and write entries (ns)";
+  static final String TIME_PDI = "time to assemble PDI (ns)";
+  static final String TIME_PDI_VALIDATION = "time to validate PDI (ns)";
+
+  // Estimated compressed size of the Packaging Information and the end of the central directory
+  private static final long SIP_OVERHEAD = 1024;
+  // Estimated size of the local header, data descriptor, and central directory record of a ZIP entry
+  private static final long ENTRY_OVERHEAD = 200;
 
   private final Counters counters;
+  private final LatencyHistogram aiuLatencies;
+  private final CompressionStatistics compressionStatistics;
 
   SipMetrics(Counters metrics) {
+    this(metrics, new LatencyHistogram());
+  }
+
+  SipMetrics(Counters metrics, LatencyHistogram aiuLatencies) {
+    this(metrics, aiuLatencies, new CompressionStatistics());
+  }
+
+  SipMetrics(Counters metrics, LatencyHistogram aiuLatencies, CompressionStatistics compressionStatistics) {
     this.counters = metrics;
+    this.aiuLatencies = aiuLatencies;
+    this.compressionStatistics = compressionStatistics;
   }
 
   public long numAius() {
@@ -34,6 +58,14 @@ public class SipMetrics implements Metrics {
     return counters.get(SIZE_DIGITAL_OBJECTS);
   }
 
+  /**
+   * Returns the number of bytes the digital objects take up in the SIP file, after compression.
+   * @return The compressed size of the digital objects
+   */
+  public long compressedDigitalObjectsSize() {
+    return counters.get(SIZE_DIGITAL_OBJECTS_COMPRESSED);
+  }
+
   public long pdiSize() {
     return counters.get(SIZE_PDI);
   }
@@ -50,9 +82,104 @@ public class SipMetrics implements Metrics {
     return counters.get(ASSEMBLY_TIME);
   }
 
+  /**
+   * Returns the time spent adding digital objects to the SIP. This includes reading, hashing, compressing and writing
+   * their content.
+   * @return The time spent adding digital objects in nanoseconds
+   */
+  public long contentTime() {
+    return counters.get(TIME_CONTENT);
+  }
+
+  /**
+   * Returns the time spent reading the content of the entries in the SIP, i.e. of the digital objects and the PDI.
+   * @return The time spent reading entries in nanoseconds
+   */
+  public long readTime() {
+    return counters.get(TIME_READ);
+  }
+
+  /**
+   * Returns the time spent hashing the content of the entries in the SIP.
+   * @return The time spent hashing entries in nanoseconds
+   */
+  public long hashTime() {
+    return counters.get(TIME_HASH);
+  }
+
+  /**
+   * Returns the time spent compressing the content of the entries in the SIP and writing it to the SIP.
+   * @return The time spent compressing and writing entries in nanoseconds
+   */
+  public long writeTime() {
+    return counters.get(TIME_WRITE);
+  }
+
+  /**
+   * Returns the time spent rendering the PDI, not including validating it.
+   * @return The time spent assembling the PDI in nanoseconds
+   */
+  public long pdiTime() {
+    return counters.get(TIME_PDI);
+  }
+
+  /**
+   * Returns the time spent validating the PDI.
+   * @return The time spent validating the PDI in nanoseconds
+   */
+  public long pdiValidationTime() {
+    return counters.get(TIME_PDI_VALIDATION);
+  }
+
+  /**
+   * Returns the distribution of the time it took to add a domain object to the SIP.
+   * @return The latencies of adding AIUs
+   */
+  public LatencyHistogram aiuLatencies() {
+    return aiuLatencies;
+  }
+
+  /**
+   * Returns the observed compression ratios of the entries of this SIP and of the SIPs that were assembled before it.
+   * @return The compression statistics
+   */
+  public CompressionStatistics compressionStatistics() {
+    return compressionStatistics;
+  }
+
+  /**
+   * Returns the predicted size of the SIP file if the SIP were finished now. The digital objects are already
+   * compressed, so their size is known; the size of the PDI is predicted from the
+   * {@linkplain CompressionStatistics#pdiRatio() compression ratio} of earlier PDIs. Until a PDI was compressed, the
+   * prediction assumes that the PDI doesn't compress at all.
+   * @return The predicted size of the SIP file
+   */
+  public long predictedSipFileSize() {
+    long result = sipFileSize();
+    if (result > 0) {
+      return result;
+    }
+    return compressedAiusSize() + SIP_OVERHEAD;
+  }
+
+  private long compressedAiusSize() {
+    return compressedDigitalObjectsSize() + Math.round(pdiSize() * compressionStatistics.pdiRatio())
+        + numDigitalObjects() * ENTRY_OVERHEAD;
+  }
+
+  /**
+   * Returns the predicted number of bytes that adding another AIU adds to the SIP file. This is the average compressed
+   * size of the AIUs in the SIP so far, including their digital objects.
+   * @return The predicted compressed size of the next AIU, or 0 if the SIP doesn't contain any AIUs yet
+   */
+  public long predictedAiuSize() {
+    long n = numAius();
+    return n == 0 ? 0 : compressedAiusSize() / n;
+  }
+
   @Override
   public String toString() {
-    return counters.toString();
+    return counters.toString() + ", AIU latencies: " + aiuLatencies + ", compression ratios: " + compressionStatistics;
   }
 
 }
@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+
+/**
+ * Policy for what to do with SIP files once they are ingested.
+ * @see IngestingBatchSipAssembler
+ */
+public enum SipRetentionPolicy {
+
+  /**
+   * Keep all SIP files.
+   */
+  RETAIN,
+
+  /**
+   * Delete SIP files that were ingested successfully. SIP files that failed to ingest are kept, so they can be ingested
+   * again later.
+   */
+  DELETE_INGESTED
+
+}
@@ -3,8 +3,6 @@
  */
 package com.opentext.ia.sdk.sip;
 
-import java.util.Arrays;
-
 /**
  * Strategy for segmenting domain objects into different SIPs.
  * @param <D> The type of domain objects to segment into different SIPs
@@ -72,6 +70,24 @@ public interface SipSegmentationStrategy<D> {
     return (domainObject, metrics) -> metrics.sipSize() >= maxSize;
   }
 
+  /**
+   * Return a {@linkplain SipSegmentationStrategy} that allows a maximum size of the SIP file, i.e. after compression.
+   * Since the PDI is only compressed when the SIP is finished, the strategy
+   * {@linkplain SipMetrics#predictedSipFileSize() predicts} the size of the SIP file from the compression ratios
+   * observed in earlier SIPs, and starts a new SIP when adding the
+   * {@linkplain SipMetrics#predictedAiuSize() predicted size} of another AIU would exceed the maximum. This fills SIPs
+   * close to the maximum size, whereas {@linkplain #byMaxSipSize(long)} must allow for the worst case compression.
+   * <p>
+   * A SIP always gets at least one AIU, even if that AIU alone exceeds the maximum size.
+   * @param <D> The type of domain objects to segment into different SIPs
+   * @param maxSize The maximum size of the SIP file
+   * @return A {@linkplain SipSegmentationStrategy} that allows a maximum size of the SIP file
+   */
+  static <D> SipSegmentationStrategy<D> byMaxSipFileSize(long maxSize) {
+    return (domainObject, metrics) -> metrics.numAius() > 0
+        && metrics.predictedSipFileSize() + metrics.predictedAiuSize() > maxSize;
+  }
+
   /**
    * Return a {@linkplain SipSegmentationStrategy} that combines a number of partial strategies.
    * @param <D> The type of domain objects to segment into different SIPs
@@ -81,10 +97,14 @@ public interface SipSegmentationStrategy<D> {
   @SafeVarargs
   @SuppressWarnings("varargs")
   static <D> SipSegmentationStrategy<D> combining(SipSegmentationStrategy<D>... partialStrategies) {
-    return (domainObject, metrics) -> Arrays.stream(partialStrategies)
-      .filter(s -> s.shouldStartNewSip(domainObject, metrics))
-      .findAny()
-      .isPresent();
+    return (domainObject, metrics) -> {
+      for (SipSegmentationStrategy<D> partialStrategy : partialStrategies) {
+        if (partialStrategy.shouldStartNewSip(domainObject, metrics)) {
+          return true;
+        }
+      }
+      return false;
+    };
   }
 
 }
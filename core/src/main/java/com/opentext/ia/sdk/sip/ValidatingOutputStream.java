@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+import org.xml.sax.SAXParseException;
+
+
+/**
+ * Stream that passes its content on to another stream, while a {@linkplain Validator} validates the content on another
+ * thread. The content is handed to the validator in chunks through a bounded queue, so validation keeps up with writing
+ * without holding on to more than a few chunks.
+ * <p>
+ * The stream keeps track of the line and column at which each domain object starts, so that it can tell which domain
+ * object made the content invalid. Once validation fails, {@linkplain #checkValid()} reports the failure, so that
+ * assembly can stop right away.
+ */
+class ValidatingOutputStream extends OutputStream {
+
+  private static final int CHUNK_SIZE = 16 * 1024;
+  private static final int MAX_PENDING_CHUNKS = 16;
+  private static final long OFFER_TIMEOUT_MS = 100;
+  private static final ByteBuffer END_OF_CONTENT = ByteBuffer.allocate(0);
+
+  private final OutputStream output;
+  private final BlockingQueue<ByteBuffer> pendingChunks = new ArrayBlockingQueue<>(MAX_PENDING_CHUNKS);
+  private final Queue<ByteBuffer> freeChunks = new ConcurrentLinkedQueue<>();
+  private final Future<?> validation;
+  private volatile boolean finished;
+  private volatile RuntimeException failure;
+  private ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+  private int line = 1;
+  private int column;
+  private long[] domainObjectPositions = new long[64];
+  private int numDomainObjects;
+  private long endPosition = Long.MAX_VALUE;
+  private boolean closed;
+
+  ValidatingOutputStream(OutputStream output, Validator validator) {
+    this.output = output;
+    this.validation = Validators.EXECUTOR.submit(() -> validate(validator));
+  }
+
+  private void validate(Validator validator) {
+    try {
+      validator.validate(new ChunksInputStream());
+    } catch (RuntimeException e) {
+      failure = e;
+    } finally {
+      finished = true;
+      pendingChunks.clear();
+    }
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    output.write(b);
+    track(b);
+    if (!chunk.hasRemaining()) {
+      send();
+    }
+    chunk.put((byte)b);
+  }
+
+  @Override
+  public void write(byte[] bytes, int offset, int length) throws IOException {
+    output.write(bytes, offset, length);
+    for (int i = offset; i < offset + length; i++) {
+      track(bytes[i]);
+    }
+    int index = offset;
+    int remaining = length;
+    while (remaining > 0) {
+      if (!chunk.hasRemaining()) {
+        send();
+      }
+      int n = Math.min(remaining, chunk.remaining());
+      chunk.put(bytes, index, n);
+      index += n;
+      remaining -= n;
+    }
+  }
+
+  private void track(int b) {
+    if (b == '\n') {
+      line++;
+      column = 0;
+    } else if ((b & 0xC0) != 0x80) {
+      // Count characters the way an XML parser does, so not the continuation bytes of a UTF-8 sequence, but both
+      // halves of a surrogate pair
+      column += (b & 0xF8) == 0xF0 ? 2 : 1;
+    }
+  }
+
+  private void send() throws IOException {
+    if (finished) {
+      chunk.clear();
+      return;
+    }
+    if (chunk.position() == 0) {
+      return;
+    }
+    chunk.flip();
+    enqueue(chunk);
+    chunk = freeChunks.poll();
+    if (chunk == null) {
+      chunk = ByteBuffer.allocate(CHUNK_SIZE);
+    }
+  }
+
+  private void enqueue(ByteBuffer buffer) throws IOException {
+    try {
+      boolean queued = false;
+      while (!queued && !finished) {
+        queued = pendingChunks.offer(buffer, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+      }
+    } catch (InterruptedException e) {
+      throw interrupted("Interrupted while validating", e);
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    output.flush();
+  }
+
+  /**
+   * Mark the start of the next domain object. Everything written so far is handed to the validator, so that validation
+   * doesn't lag behind by more than the domain objects it hasn't finished yet.
+   * @throws IOException When an I/O error occurs
+   */
+  void startDomainObject() throws IOException {
+    if (numDomainObjects == domainObjectPositions.length) {
+      domainObjectPositions = Arrays.copyOf(domainObjectPositions, 2 * numDomainObjects);
+    }
+    domainObjectPositions[numDomainObjects++] = position(line, column);
+    send();
+  }
+
+  /**
+   * Mark the end of the last domain object.
+   */
+  void endDomainObjects() {
+    endPosition = position(line, column);
+  }
+
+  private static long position(int lineNumber, int columnNumber) {
+    return (long)lineNumber << Integer.SIZE | columnNumber;
+  }
+
+  /**
+   * Report whether validation has failed so far.
+   * @throws InvalidContentException When validation has failed
+   */
+  void checkValid() throws InvalidContentException {
+    if (failure != null) {
+      throw invalidContent(failure);
+    }
+  }
+
+  private InvalidContentException invalidContent(RuntimeException cause) {
+    SAXParseException error = parseErrorIn(cause);
+    if (error == null) {
+      return new InvalidContentException("Invalid content: " + cause.getMessage(), -1, -1, -1, cause);
+    }
+    int errorLine = error.getLineNumber();
+    int errorColumn = error.getColumnNumber();
+    // The parser reports the position right after the invalid markup, so compare with the position before it
+    long errorPosition = position(errorLine, Math.max(0, errorColumn - 1));
+    int index = domainObjectAt(errorPosition);
+    String location;
+    if (index >= 0) {
+      location = "in domain object " + index;
+    } else if (numDomainObjects > 0 && errorPosition >= domainObjectPositions[0]) {
+      location = "after the last domain object";
+    } else {
+      location = "before the first domain object";
+    }
+    return new InvalidContentException(String.format("Invalid content at line %d, column %d, %s: %s", errorLine,
+        errorColumn, location, error.getMessage()), errorLine, errorColumn, index, cause);
+  }
+
+  private static SAXParseException parseErrorIn(Throwable exception) {
+    Throwable result = exception;
+    while (result != null && !(result instanceof SAXParseException)) {
+      result = result.getCause();
+    }
+    return (SAXParseException)result;
+  }
+
+  private int domainObjectAt(long errorPosition) {
+    if (errorPosition >= endPosition) {
+      return -1;
+    }
+    int index = Arrays.binarySearch(domainObjectPositions, 0, numDomainObjects, errorPosition);
+    return index >= 0 ? index : -index - 2;
+  }
+
+  /**
+   * Close the stream, so that the validator sees the end of the content.
+   * @throws IOException When an I/O error occurs
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      send();
+      enqueue(END_OF_CONTENT);
+    } finally {
+      output.close();
+    }
+  }
+
+  /**
+   * Wait for the validator to finish validating the content, after {@linkplain #close() closing} the stream.
+   * @throws IOException When the content is invalid or the validator fails
+   */
+  void awaitValidation() throws IOException {
+    try {
+      validation.get();
+    } catch (ExecutionException e) {
+      throw new IOException("Failed to validate", e);
+    } catch (InterruptedException e) {
+      throw interrupted("Interrupted while validating", e);
+    }
+    checkValid();
+  }
+
+  private static InterruptedIOException interrupted(String message, InterruptedException cause) {
+    Thread.currentThread().interrupt();
+    InterruptedIOException result = new InterruptedIOException(message);
+    result.initCause(cause);
+    return result;
+  }
+
+  /**
+   * Stop validating without waiting for the validator, e.g. when assembly failed. The validator sees the end of the
+   * content right away, so that it lets go of the chunks it holds, and the stream that the content was passed on to is
+   * closed.
+   */
+  void abort() {
+    closed = true;
+    pendingChunks.clear();
+    pendingChunks.offer(END_OF_CONTENT);
+    IOUtils.closeQuietly(output);
+  }
+
+
+  private class ChunksInputStream extends InputStream {
+
+    private ByteBuffer current;
+
+    @Override
+    public int read() throws IOException {
+      ByteBuffer next = nextChunk();
+      return next == null ? -1 : next.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+      if (length == 0) {
+        return 0;
+      }
+      ByteBuffer next = nextChunk();
+      if (next == null) {
+        return -1;
+      }
+      int result = Math.min(length, next.remaining());
+      next.get(bytes, offset, result);
+      return result;
+    }
+
+    private ByteBuffer nextChunk() throws IOException {
+      while (current == null || !current.hasRemaining()) {
+        if (current == END_OF_CONTENT) {
+          return null;
+        }
+        if (current != null) {
+          current.clear();
+          freeChunks.offer(current);
+        }
+        try {
+          current = pendingChunks.take();
+        } catch (InterruptedException e) {
+          throw interrupted("Interrupted while waiting for content to validate", e);
+        }
+      }
+      return current;
+    }
+
+  }
+
+
+  private static final class Validators {
+
+    static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(threadsNamed("content-validator"));
+
+    private Validators() {
+      // Holder for lazily created thread pool
+    }
+
+    private static ThreadFactory threadsNamed(String prefix) {
+      AtomicInteger count = new AtomicInteger();
+      return task -> {
+        Thread result = new Thread(task, prefix + '-' + count.incrementAndGet());
+        result.setDaemon(true);
+        return result;
+      };
+    }
+
+  }
+
+}
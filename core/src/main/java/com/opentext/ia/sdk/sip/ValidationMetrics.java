@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+/**
+ * Metrics about validating an assembled product. {@linkplain Assembler Assemblers} that validate their product return
+ * these (or a subclass) from {@linkplain Assembler#getMetrics()}, so that the validation time can be reported
+ * separately from the time spent assembling.
+ */
+public class ValidationMetrics implements Metrics {
+
+  private final long validationTime;
+
+  /**
+   * Create an instance.
+   * @param validationTime The time that ending the assembly spent on validation, in nanoseconds
+   */
+  public ValidationMetrics(long validationTime) {
+    this.validationTime = validationTime;
+  }
+
+  /**
+   * Returns the time that the last {@linkplain Assembler#end()} spent on validation.
+   * @return The validation time in nanoseconds
+   */
+  public long validationTime() {
+    return validationTime;
+  }
+
+  @Override
+  public String toString() {
+    return "validationTime=" + validationTime;
+  }
+
+}
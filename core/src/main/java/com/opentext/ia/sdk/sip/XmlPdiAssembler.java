@@ -4,6 +4,7 @@
 package com.opentext.ia.sdk.sip;
 
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.net.URI;
 import java.util.Map;
@@ -12,21 +13,31 @@ import java.util.Optional;
 
 import org.atteo.evo.inflector.English;
 
-import com.opentext.ia.sdk.support.xml.DomXmlBuilder;
+import com.opentext.ia.sdk.support.xml.PrintingXmlBuilder;
+import com.opentext.ia.sdk.support.xml.StreamingXmlBuilder;
 import com.opentext.ia.sdk.support.xml.XmlBuilder;
 import com.opentext.ia.sdk.support.xml.XmlUtil;
 
 
 /**
- * Base class for assembling XML documents from domain objects using an {@linkplain DomXmlBuilder}.
+ * Base class for assembling XML documents from domain objects using an {@linkplain XmlBuilder}.
+ * <p>
+ * Domain objects are written as UTF-8 directly to the PDI using a {@linkplain StreamingXmlBuilder} that is reused for
+ * all the domain objects in a PDI, and that collects many domain objects in its buffer before writing them out. The
+ * elements are indented, unless the PDI is {@linkplain #setCompact(boolean) compact}.
  * @param <D> The type of domain objects to assemble the XML document from
  */
 public abstract class XmlPdiAssembler<D> extends PdiAssembler<D> {
 
+  private static final String INDENT = "  ";
+
   private final Optional<URI> namespace;
   private final Optional<String> documentElementName;
   private final String domainObjectName;
+  private boolean compact;
   private XmlBuilder<Void> builder;
+  private PrintWriter streamingWriter;
+  private StreamingXmlBuilder streamingBuilder;
 
   /**
    * Create an instance.
@@ -86,6 +97,15 @@ public abstract class XmlPdiAssembler<D> extends PdiAssembler<D> {
     this.domainObjectName = Objects.requireNonNull(domainObjectName);
   }
 
+  /**
+   * Set whether to leave out indentation and line breaks between the elements of domain objects, which makes the PDI
+   * smaller. The default is to indent.
+   * @param compact Whether to leave out indentation and line breaks
+   */
+  public void setCompact(boolean compact) {
+    this.compact = compact;
+  }
+
   /**
    * Return the XML document builder for capturing a domain object.
    * @return The XML document builder for capturing a domain object
@@ -114,18 +134,45 @@ public abstract class XmlPdiAssembler<D> extends PdiAssembler<D> {
 
   @Override
   public final void add(D domainObject, Map<String, ContentInfo> contentInfo, PrintWriter writer) {
-    builder = XmlBuilder.newDocument(writer, "  ");
+    builder = builderFor(writer);
     try {
       builder.element(domainObjectName);
       doAdd(domainObject, contentInfo);
     } finally {
-      builder.build();
+      if (builder == streamingBuilder) {
+        streamingBuilder.endDocument();
+      } else {
+        builder.build();
+      }
       builder = null;
     }
   }
 
+  private XmlBuilder<Void> builderFor(PrintWriter writer) {
+    if (writer != streamingWriter) {
+      OutputStream output = getOutputStream(writer);
+      if (output == null) {
+        // Not our own writer, so we can't get at the bytes
+        return new PrintingXmlBuilder(writer, INDENT);
+      }
+      streamingBuilder = compact ? StreamingXmlBuilder.compact(output) : new StreamingXmlBuilder(output, INDENT);
+      streamingWriter = writer;
+    }
+    return streamingBuilder;
+  }
+
+  @Override
+  protected void flushBuffered() {
+    if (streamingBuilder != null) {
+      streamingBuilder.flush();
+    }
+  }
+
   @Override
   public final void end(PrintWriter writer) {
+    flushBuffered();
+    streamingWriter = null;
+    streamingBuilder = null;
     documentElementName.ifPresent(tag -> writer.format("</%s>%n", tag));
   }
 
@@ -7,18 +7,22 @@ import java.io.*;
 
 import javax.validation.ValidationException;
 import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
 
 import org.xml.sax.SAXException;
 
-import com.opentext.ia.sdk.support.xml.XmlUtil;
+import com.opentext.ia.sdk.support.xml.XmlSchemaCache;
 
 
 /**
  * Validate an XML instance against an XML Schema.
+ * <p>
+ * The schema is compiled only once, no matter how many instances use it, see {@linkplain XmlSchemaCache}. Instances
+ * can validate XML from several threads at once, since each thread gets its own validator for the schema.
  */
 public class XmlSchemaValidator implements Validator {
 
-  private final javax.xml.validation.Validator validator;
+  private final ThreadLocal<javax.xml.validation.Validator> validators;
 
   /**
    * Create an instance.
@@ -34,13 +38,15 @@ public class XmlSchemaValidator implements Validator {
    * @param xmlSchema The XML Schema to use for validation
    */
   public XmlSchemaValidator(InputStream xmlSchema) {
-    validator = XmlUtil.newXmlSchemaValidator(xmlSchema);
+    Schema schema = XmlSchemaCache.get(xmlSchema);
+    validators = ThreadLocal.withInitial(schema::newValidator);
   }
 
   @Override
   public void validate(InputStream xmlInstance) {
     try {
-      validator.validate(new StreamSource(xmlInstance));
+      validators.get()
+        .validate(new StreamSource(xmlInstance));
     } catch (SAXException | IOException e) {
       throw new ValidationException(e);
     }
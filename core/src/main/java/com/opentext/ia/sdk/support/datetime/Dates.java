@@ -3,6 +3,11 @@
  */
 package com.opentext.ia.sdk.support.datetime;
 
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
 import java.util.Calendar;
 import java.util.Date;
 
@@ -13,6 +18,21 @@ import javax.xml.bind.DatatypeConverter;
  */
 public final class Dates {
 
+  // java.time and Calendar agree on dates between 1900 and 9999. Outside that range, e.g. because of the switch from
+  // Julian to Gregorian calendar, we use Calendar like before
+  private static final long MIN_FAST_TIME = -2_208_988_800_000L; // 1900-01-01T00:00:00Z
+  private static final long MAX_FAST_TIME = 253_402_128_000_000L; // 9999-12-30T00:00:00Z
+  private static final String DATE_TIME_PATTERN = "uuuu-MM-dd'T'HH:mm:ss";
+  private static final String OFFSET_PATTERN = "+HH:MM";
+  private static final String ZERO_OFFSET = "Z";
+  private static final DateTimeFormatter ISO_SECONDS = new DateTimeFormatterBuilder().appendPattern(DATE_TIME_PATTERN)
+    .appendOffset(OFFSET_PATTERN, ZERO_OFFSET)
+    .toFormatter();
+  private static final DateTimeFormatter ISO_MILLIS = new DateTimeFormatterBuilder().appendPattern(DATE_TIME_PATTERN)
+    .appendFraction(ChronoField.MILLI_OF_SECOND, 3, 3, true)
+    .appendOffset(OFFSET_PATTERN, ZERO_OFFSET)
+    .toFormatter();
+
   private Dates() {
     // Utility class
   }
@@ -26,6 +46,13 @@ public final class Dates {
     if (dateTime == null) {
       return null;
     }
+    long time = dateTime.getTime();
+    if (MIN_FAST_TIME <= time && time <= MAX_FAST_TIME) {
+      // Same format as DatatypeConverter, which shows milliseconds only when there are any
+      DateTimeFormatter formatter = time % 1000 == 0 ? ISO_SECONDS : ISO_MILLIS;
+      return formatter.format(Instant.ofEpochMilli(time)
+        .atZone(ZoneId.systemDefault()));
+    }
     Calendar calendar = Calendar.getInstance();
     calendar.setTime(dateTime);
     return DatatypeConverter.printDateTime(calendar);
@@ -3,20 +3,25 @@
  */
 package com.opentext.ia.sdk.support.datetime;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
  * Default implementation of {@linkplain Clock}.
+ * <p>
+ * Scheduled tasks of all instances run on a small pool of daemon threads that is shared by the whole JVM, so scheduling
+ * a task doesn't start a new thread. A task that is scheduled under the name of a task that hasn't run yet replaces
+ * that task.
  */
 public class DefaultClock implements Clock {
 
-  private final Map<String, Timer> timers = Collections.synchronizedMap(new HashMap<>());
+  private final ConcurrentMap<String, ScheduledTask> tasks = new ConcurrentHashMap<>();
 
   @Override
   public void sleep(long time, TimeUnit unit) {
@@ -34,26 +39,81 @@ public class DefaultClock implements Clock {
 
   @Override
   public void schedule(String name, long time, TimeUnit unit, Runnable task) {
-    Timer timer = new Timer();
-    timer.schedule(new TimerTask() {
-      @Override
-      public void run() {
-        try {
-          DefaultClock.this.cancel(name);
-        } finally {
-          task.run();
-        }
-      }
-    }, unit.toMillis(time));
-    timers.put(name, timer);
+    ScheduledTask scheduled = new ScheduledTask(name, task);
+    ScheduledTask previous = tasks.put(name, scheduled);
+    if (previous != null) {
+      previous.cancel();
+    }
+    scheduled.setFuture(Scheduler.EXECUTOR.schedule(scheduled, time, unit));
   }
 
   @Override
   public void cancel(String name) {
-    Timer timer = timers.remove(name);
-    if (timer != null) {
-      timer.cancel();
+    ScheduledTask task = tasks.remove(name);
+    if (task != null) {
+      task.cancel();
+    }
+  }
+
+
+  private class ScheduledTask implements Runnable {
+
+    private final String name;
+    private final Runnable task;
+    private volatile Future<?> future;
+    private volatile boolean cancelled;
+
+    ScheduledTask(String name, Runnable task) {
+      this.name = name;
+      this.task = task;
+    }
+
+    void setFuture(Future<?> future) {
+      this.future = future;
+      if (cancelled) {
+        future.cancel(false);
+      }
+    }
+
+    void cancel() {
+      cancelled = true;
+      Future<?> scheduled = future;
+      if (scheduled != null) {
+        scheduled.cancel(false);
+      }
     }
+
+    @Override
+    public void run() {
+      if (cancelled || !tasks.remove(name, this)) {
+        return;
+      }
+      task.run();
+    }
+
+  }
+
+
+  private static final class Scheduler {
+
+    private static final int NUM_THREADS = 2;
+    static final ScheduledExecutorService EXECUTOR = newExecutor();
+
+    private Scheduler() {
+      // Holder for lazily created thread pool
+    }
+
+    private static ScheduledExecutorService newExecutor() {
+      AtomicInteger count = new AtomicInteger();
+      ScheduledThreadPoolExecutor result = new ScheduledThreadPoolExecutor(NUM_THREADS, task -> {
+        Thread thread = new Thread(task, "clock-" + count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+      result.setRemoveOnCancelPolicy(true);
+      return result;
+    }
+
   }
 
 }
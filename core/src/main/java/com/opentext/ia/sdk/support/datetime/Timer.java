@@ -9,15 +9,21 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * Run a recurring process.
+ * <p>
+ * The timer keeps track of the deadline at which to run the process next. {@linkplain #reset() Resetting} the timer
+ * only moves the deadline, so it's cheap enough to do for every event, like adding a domain object to a SIP. When the
+ * scheduled task goes off after the deadline was moved, it's scheduled again for the remaining time.
  */
 public class Timer {
 
-  private static final String TASK_NAME = "Timer_" + UUID.randomUUID();
-
+  private final String taskName = "Timer_" + UUID.randomUUID(); // Independent timers must not cancel each other
   private final long millis;
   private final Runnable process;
   private final Clock clock;
   private final Runnable ring = this::ring; // Create only one instance of this lambda
+  private volatile long deadline;
+  private volatile long scheduledDeadline;
+  private volatile boolean stopped;
 
   /**
    * Create the timer using the default clock.
@@ -45,30 +51,53 @@ public class Timer {
   }
 
   private void start() {
-    clock.schedule(TASK_NAME, millis, TimeUnit.MILLISECONDS, ring);
+    deadline = clock.time() + millis;
+    schedule(deadline, millis);
+  }
+
+  private void schedule(long newDeadline, long delay) {
+    scheduledDeadline = newDeadline;
+    clock.schedule(taskName, delay, TimeUnit.MILLISECONDS, ring);
   }
 
   private void ring() {
+    if (stopped) {
+      return;
+    }
+    long currentDeadline = deadline;
+    if (currentDeadline != scheduledDeadline) {
+      long remaining = currentDeadline - clock.time();
+      if (remaining > 0) {
+        schedule(currentDeadline, remaining);
+        return;
+      }
+    }
     try {
       process.run();
     } finally {
-      start();
+      if (!stopped) {
+        start();
+      }
     }
   }
 
   /**
-   * Restart the timer.
+   * Restart the timer, so that the process runs when the full interval has passed from now.
    */
   public void reset() {
-    stop();
-    start();
+    deadline = clock.time() + millis;
+    if (stopped) {
+      stopped = false;
+      schedule(deadline, millis);
+    }
   }
 
   /**
    * Stop running the process.
    */
   public void stop() {
-    clock.cancel(TASK_NAME);
+    stopped = true;
+    clock.cancel(taskName);
   }
 
 }
@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.http;
+
+/**
+ * Listener that is told about each call an {@linkplain HttpClient} made, for instance to bridge them to a monitoring
+ * system or to an event recorder. Listeners are called on the thread that made the call, so they should return
+ * quickly.
+ * <p>
+ * Calls are reported by {@linkplain UriTemplates URI template} rather than by URI, so that calls to the same endpoint
+ * can be aggregated without the identifiers and query parameters of each call.
+ */
+@FunctionalInterface
+public interface HttpCallListener {
+
+  /**
+   * Called when an HTTP call completed, whether successfully or not.
+   * @param method The HTTP method of the call
+   * @param uriTemplate The {@linkplain UriTemplates#templateOf(java.net.URI) template} of the URI that was called
+   * @param status The HTTP status code of the response, or 0 if no response was received
+   * @param numBytes The length of the response body, or -1 if unknown
+   * @param nanos The time it took to get the response, in nanoseconds
+   */
+  void callCompleted(String method, String uriTemplate, int status, long numBytes, long nanos);
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.http;
+
+import java.net.URI;
+import java.util.regex.Pattern;
+
+
+/**
+ * Derives URI templates from URIs. The REST API links to resources with complete URIs, so the templates that the
+ * server used to build them are not known to the client. A template is approximated by leaving out the query and
+ * fragment, and by replacing path segments that look like identifiers with {@linkplain #ID_PLACEHOLDER a placeholder}.
+ * Calls to the same endpoint then share a template, regardless of the resource they address.
+ */
+public final class UriTemplates {
+
+  /**
+   * Placeholder that replaces path segments that identify a resource.
+   */
+  public static final String ID_PLACEHOLDER = "{id}";
+  private static final int MIN_ID_LENGTH = 8;
+  private static final Pattern NUMBER = Pattern.compile("\\d+");
+  private static final Pattern WITH_DIGIT = Pattern.compile(".*\\d.*");
+
+  private UriTemplates() {
+    // Utility class
+  }
+
+  /**
+   * Returns the template of a URI. A path segment looks like an identifier when it consists of digits only, or when it
+   * contains a digit and is at least 8 characters long, like a UUID.
+   * @param uri The URI to get the template of
+   * @return The template of the URI
+   */
+  public static String templateOf(URI uri) {
+    StringBuilder result = new StringBuilder();
+    if (uri.getScheme() != null) {
+      result.append(uri.getScheme()).append("://");
+    }
+    if (uri.getRawAuthority() != null) {
+      result.append(uri.getRawAuthority());
+    }
+    String path = uri.getRawPath();
+    if (path != null) {
+      String separator = "";
+      for (String segment : path.split("/", -1)) {
+        result.append(separator).append(isId(segment) ? ID_PLACEHOLDER : segment);
+        separator = "/";
+      }
+    }
+    return result.toString();
+  }
+
+  private static boolean isId(String segment) {
+    return NUMBER.matcher(segment).matches()
+        || segment.length() >= MIN_ID_LENGTH && WITH_DIGIT.matcher(segment).matches();
+  }
+
+}
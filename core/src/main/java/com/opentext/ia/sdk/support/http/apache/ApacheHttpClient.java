@@ -12,6 +12,7 @@ import java.util.Objects;
 import org.apache.commons.io.IOUtils;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
 import org.apache.http.StatusLine;
 import org.apache.http.client.HttpResponseException;
 import org.apache.http.client.ResponseHandler;
@@ -51,6 +52,7 @@ public class ApacheHttpClient implements HttpClient {
 
   private final CloseableHttpClient client;
   private final ObjectMapper mapper;
+  private volatile HttpCallListener callListener;
 
   public ApacheHttpClient() {
     this(MAX_HTTP_CONNECTIONS, DEFAULT_CONNECTIONS_PER_ROUTE);
@@ -86,6 +88,14 @@ public class ApacheHttpClient implements HttpClient {
     mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
   }
 
+  /**
+   * Set the listener that is told about each call this client makes. Without a listener, calls aren't reported.
+   * @param callListener The listener to tell about calls, or <code>null</code> to stop reporting calls
+   */
+  public void setCallListener(HttpCallListener callListener) {
+    this.callListener = callListener;
+  }
+
   @Override
   public <T> T get(String uri, Collection<Header> headers, Class<T> type) throws IOException {
     return execute(newGet(uri, headers), type);
@@ -112,10 +122,12 @@ public class ApacheHttpClient implements HttpClient {
   @SuppressWarnings("PMD.AvoidRethrowingException")
   protected <T> T execute(HttpRequestBase request, Class<T> type) throws IOException {
     Objects.requireNonNull(request, "Missing request");
+    Call call = new Call(request);
     try {
-      return client.execute(request, getResponseHandler(request.getMethod(), request.getURI()
-        .toString(), type));
+      return client.execute(request, call.observing(getResponseHandler(request.getMethod(), request.getURI()
+        .toString(), type)));
     } catch (HttpResponseException e) {
+      call.status = e.getStatusCode();
       throw new HttpException(e.getStatusCode(), e);
     } catch (HttpException e) {
       throw e;
@@ -123,15 +135,27 @@ public class ApacheHttpClient implements HttpClient {
       throw new HttpException(500, e);
     } finally {
       request.releaseConnection();
+      call.completed();
     }
   }
 
-  @SuppressWarnings("PMD.AvoidRethrowingException")
   protected <T> T execute(HttpRequestBase request, ResponseFactory<T> factory) throws IOException {
+    Call call = new Call(request);
+    try {
+      return execute(request, factory, call);
+    } finally {
+      call.completed();
+    }
+  }
+
+  @SuppressWarnings("PMD.AvoidRethrowingException")
+  private <T> T execute(HttpRequestBase request, ResponseFactory<T> factory, Call call) throws IOException {
     CloseableHttpResponse httpResponse;
     try {
       httpResponse = client.execute(request);
+      call.responded(httpResponse);
     } catch (HttpResponseException e) {
+      call.status = e.getStatusCode();
       throw new HttpException(e.getStatusCode(), e);
     } catch (HttpException e) {
       throw e;
@@ -318,4 +342,43 @@ public class ApacheHttpClient implements HttpClient {
     return new ApacheUriBuilder(baseUri);
   }
 
+
+  /**
+   * What we know about a call in progress, to report to the {@linkplain HttpCallListener} when the call completes.
+   */
+  private final class Call {
+
+    private final HttpRequestBase request;
+    private final long start = System.nanoTime();
+    private int status;
+    private long numBytes = -1;
+
+    Call(HttpRequestBase request) {
+      this.request = request;
+    }
+
+    <T> ResponseHandler<T> observing(ResponseHandler<T> handler) {
+      return response -> {
+        responded(response);
+        return handler.handleResponse(response);
+      };
+    }
+
+    void responded(HttpResponse response) {
+      status = response.getStatusLine()
+        .getStatusCode();
+      HttpEntity entity = response.getEntity();
+      numBytes = entity == null ? 0 : entity.getContentLength();
+    }
+
+    void completed() {
+      HttpCallListener listener = callListener;
+      if (listener != null) {
+        listener.callCompleted(request.getMethod(), UriTemplates.templateOf(request.getURI()), status, numBytes,
+            System.nanoTime() - start);
+      }
+    }
+
+  }
+
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Thread-safe pool of fixed-size {@linkplain ByteBuffer}s for use by {@linkplain ChunkedBuffer}s. Reusing chunks
+ * avoids allocating large contiguous arrays and keeps the garbage collector out of the way during batch runs.
+ * <p>
+ * Chunks can be allocated on the heap or outside of it. The pool holds on to a limited number of released chunks;
+ * chunks released beyond that limit are left to the garbage collector.
+ */
+public class ChunkPool {
+
+  /**
+   * The size of chunks in the {@linkplain #shared() shared} pool.
+   */
+  public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+  private static final int DEFAULT_MAX_IDLE_CHUNKS = 1024;
+  private static final ChunkPool SHARED = new ChunkPool(DEFAULT_CHUNK_SIZE, false, DEFAULT_MAX_IDLE_CHUNKS);
+
+  private final int chunkSize;
+  private final boolean direct;
+  private final int maxIdleChunks;
+  private final Queue<ByteBuffer> idleChunks = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger numIdleChunks = new AtomicInteger();
+
+  /**
+   * Returns the pool that is shared by all {@linkplain ChunkedBuffer}s that don't specify their own pool. It holds
+   * heap chunks of {@linkplain #DEFAULT_CHUNK_SIZE} bytes.
+   * @return The shared pool
+   */
+  public static ChunkPool shared() {
+    return SHARED;
+  }
+
+  /**
+   * Create a pool of chunks.
+   * @param chunkSize The size of each chunk in bytes
+   * @param direct Whether to allocate chunks outside of the heap
+   * @param maxIdleChunks The maximum number of released chunks to keep for reuse
+   */
+  public ChunkPool(int chunkSize, boolean direct, int maxIdleChunks) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("Chunk size must be positive");
+    }
+    this.chunkSize = chunkSize;
+    this.direct = direct;
+    this.maxIdleChunks = maxIdleChunks;
+  }
+
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  /**
+   * Take an empty chunk from the pool, or allocate a new one if the pool is empty.
+   * @return An empty chunk
+   */
+  public ByteBuffer acquire() {
+    ByteBuffer result = idleChunks.poll();
+    if (result == null) {
+      return direct ? ByteBuffer.allocateDirect(chunkSize) : ByteBuffer.allocate(chunkSize);
+    }
+    numIdleChunks.decrementAndGet();
+    result.clear();
+    return result;
+  }
+
+  /**
+   * Return a chunk to the pool. The chunk must have been {@linkplain #acquire() acquired} from this pool and must not
+   * be used after it is released.
+   * @param chunk The chunk to release
+   */
+  public void release(ByteBuffer chunk) {
+    if (numIdleChunks.incrementAndGet() <= maxIdleChunks) {
+      idleChunks.offer(chunk);
+    } else {
+      numIdleChunks.decrementAndGet();
+    }
+  }
+
+  /**
+   * Returns the number of released chunks that are available for reuse.
+   * @return The number of idle chunks
+   */
+  public int getNumIdleChunks() {
+    return numIdleChunks.get();
+  }
+
+}
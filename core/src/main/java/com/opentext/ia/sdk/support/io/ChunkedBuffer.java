@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+
+/**
+ * In-memory buffer of data that stores the data in fixed-size chunks taken from a {@linkplain ChunkPool}. Unlike a
+ * {@linkplain MemoryBuffer}, it never allocates or copies one large contiguous array as the data grows. Reading doesn't
+ * copy the data either, but uses read-only views on the chunks.
+ * <p>
+ * The chunks are returned to the pool when the buffer is {@linkplain #close() closed} or
+ * {@linkplain #openForWriting() opened for writing} again. Streams opened for reading must not be used after that.
+ */
+public class ChunkedBuffer implements DataBuffer {
+
+  private final ChunkPool pool;
+  private final List<ByteBuffer> chunks = new ArrayList<>();
+  private long length;
+
+  /**
+   * Store data in chunks from the {@linkplain ChunkPool#shared() shared} pool.
+   */
+  public ChunkedBuffer() {
+    this(ChunkPool.shared());
+  }
+
+  /**
+   * Store data in chunks from the given pool.
+   * @param pool The pool to take chunks from
+   */
+  public ChunkedBuffer(ChunkPool pool) {
+    this.pool = pool;
+  }
+
+  @Override
+  public OutputStream openForWriting() throws IOException {
+    close();
+    return new ChunkedOutputStream();
+  }
+
+  @Override
+  public InputStream openForReading() throws IOException {
+    List<ByteBuffer> views = new ArrayList<>(chunks.size());
+    for (ByteBuffer chunk : chunks) {
+      ByteBuffer view = chunk.asReadOnlyBuffer();
+      view.flip();
+      views.add(view);
+    }
+    return new ChunkedInputStream(views.iterator());
+  }
+
+  @Override
+  public long length() {
+    return length;
+  }
+
+  /**
+   * Return the chunks to the pool.
+   */
+  @Override
+  public void close() {
+    chunks.forEach(pool::release);
+    chunks.clear();
+    length = 0;
+  }
+
+
+  private class ChunkedOutputStream extends OutputStream {
+
+    private ByteBuffer current;
+
+    @Override
+    public void write(int b) {
+      writableChunk().put((byte)b);
+      length++;
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int numBytes) {
+      int index = offset;
+      int remaining = numBytes;
+      while (remaining > 0) {
+        ByteBuffer chunk = writableChunk();
+        int n = Math.min(remaining, chunk.remaining());
+        chunk.put(buffer, index, n);
+        index += n;
+        remaining -= n;
+      }
+      length += numBytes;
+    }
+
+    private ByteBuffer writableChunk() {
+      if (current == null || !current.hasRemaining()) {
+        current = pool.acquire();
+        chunks.add(current);
+      }
+      return current;
+    }
+
+  }
+
+
+  private static class ChunkedInputStream extends InputStream {
+
+    private final Iterator<ByteBuffer> chunks;
+    private ByteBuffer current;
+
+    ChunkedInputStream(Iterator<ByteBuffer> chunks) {
+      this.chunks = chunks;
+    }
+
+    @Override
+    public int read() {
+      ByteBuffer chunk = readableChunk();
+      return chunk == null ? -1 : chunk.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int numBytes) {
+      if (numBytes == 0) {
+        return 0;
+      }
+      ByteBuffer chunk = readableChunk();
+      if (chunk == null) {
+        return -1;
+      }
+      int result = Math.min(numBytes, chunk.remaining());
+      chunk.get(buffer, offset, result);
+      return result;
+    }
+
+    @Override
+    public long skip(long numBytes) {
+      long result = 0;
+      ByteBuffer chunk = readableChunk();
+      while (chunk != null && result < numBytes) {
+        int n = (int)Math.min(numBytes - result, chunk.remaining());
+        chunk.position(chunk.position() + n);
+        result += n;
+        chunk = readableChunk();
+      }
+      return result;
+    }
+
+    @Override
+    public int available() {
+      return current == null ? 0 : current.remaining();
+    }
+
+    private ByteBuffer readableChunk() {
+      while (current == null || !current.hasRemaining()) {
+        if (!chunks.hasNext()) {
+          return null;
+        }
+        current = chunks.next();
+      }
+      return current;
+    }
+
+  }
+
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.util.Collection;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+
+/**
+ * Content for a ZIP entry that was compressed ahead of time, for instance on a different thread than the one that
+ * assembles the ZIP. Use {@linkplain #deflate(InputStream, DataBuffer, HashAssembler)} to create an instance and
+ * {@linkplain ZipAssembler#addEntry(String, CompressedContent)} to add it to a ZIP. {@linkplain #close() Close} the
+ * content when it's no longer needed to release the buffer that holds it.
+ */
+public final class CompressedContent implements Closeable {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final DataBuffer data;
+  private final long crc;
+  private final long size;
+  private final Collection<EncodedHash> hashes;
+
+  private CompressedContent(DataBuffer data, long crc, long size, Collection<EncodedHash> hashes) {
+    this.data = data;
+    this.crc = crc;
+    this.size = size;
+    this.hashes = hashes;
+  }
+
+  /**
+   * Compress content using the DEFLATE algorithm.
+   * @param content The content to compress
+   * @param buffer The buffer to hold the compressed content
+   * @param hashAssembler The hasher to calculate the hashes of the uncompressed content
+   * @return The compressed content
+   * @throws IOException When an I/O error occurs
+   */
+  public static CompressedContent deflate(InputStream content, DataBuffer buffer, HashAssembler hashAssembler)
+      throws IOException {
+    return deflate(content, buffer, Deflater.DEFAULT_COMPRESSION, hashAssembler);
+  }
+
+  /**
+   * Compress content using the DEFLATE algorithm.
+   * @param content The content to compress
+   * @param buffer The buffer to hold the compressed content
+   * @param level The compression level to use
+   * @param hashAssembler The hasher to calculate the hashes of the uncompressed content
+   * @return The compressed content
+   * @throws IOException When an I/O error occurs
+   */
+  public static CompressedContent deflate(InputStream content, DataBuffer buffer, int level,
+      HashAssembler hashAssembler) throws IOException {
+    hashAssembler.initialize();
+    CRC32 crc = new CRC32();
+    Deflater deflater = new Deflater(level, true);
+    try (OutputStream output = new DeflaterOutputStream(buffer.openForWriting(), deflater, BUFFER_SIZE)) {
+      IOStreams.copy(content, new CrcOutputStream(output, crc), BUFFER_SIZE, hashAssembler);
+    } finally {
+      deflater.end();
+    }
+    return new CompressedContent(buffer, crc.getValue(), hashAssembler.numBytesHashed(), hashAssembler.get());
+  }
+
+  /**
+   * Return the CRC-32 checksum of the uncompressed content.
+   * @return The CRC-32 checksum of the uncompressed content
+   */
+  public long getCrc() {
+    return crc;
+  }
+
+  /**
+   * Return the number of bytes in the uncompressed content.
+   * @return The number of bytes in the uncompressed content
+   */
+  public long getSize() {
+    return size;
+  }
+
+  /**
+   * Return the number of bytes in the compressed content.
+   * @return The number of bytes in the compressed content
+   */
+  public long getCompressedSize() {
+    return data.length();
+  }
+
+  /**
+   * Return the hashes that were calculated over the uncompressed content.
+   * @return The hashes that were calculated over the uncompressed content
+   */
+  public Collection<EncodedHash> getHashes() {
+    return hashes;
+  }
+
+  /**
+   * Read the compressed content.
+   * @return A stream of compressed bytes
+   * @throws IOException When an I/O error occurs
+   */
+  public InputStream openCompressed() throws IOException {
+    return data.openForReading();
+  }
+
+  /**
+   * Read the uncompressed content.
+   * @return A stream of uncompressed bytes
+   * @throws IOException When an I/O error occurs
+   */
+  public InputStream openForReading() throws IOException {
+    // Raw inflation requires an extra dummy byte at the end of the input
+    InputStream compressed = new SequenceInputStream(openCompressed(), new ByteArrayInputStream(new byte[1]));
+    Inflater inflater = new Inflater(true);
+    return new InflaterInputStream(compressed, inflater, BUFFER_SIZE) {
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          inflater.end();
+        }
+      }
+    };
+  }
+
+  /**
+   * Release the buffer that holds the compressed content.
+   */
+  @Override
+  public void close() throws IOException {
+    data.close();
+  }
+
+
+  private static class CrcOutputStream extends OutputStream {
+
+    private final OutputStream output;
+    private final CRC32 crc;
+
+    CrcOutputStream(OutputStream output, CRC32 crc) {
+      this.output = output;
+      this.crc = crc;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      crc.update(b);
+      output.write(b);
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+      crc.update(buffer, offset, length);
+      output.write(buffer, offset, length);
+    }
+
+  }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.util.zip.Deflater;
+
+
+/**
+ * How to compress an entry in a ZIP: either store it as-is, or deflate it at a given level.
+ * @see CompressionPolicy
+ */
+public final class Compression {
+
+  /**
+   * Store the entry without compressing it.
+   */
+  public static final Compression STORED = new Compression(true, Deflater.NO_COMPRESSION);
+  /**
+   * Deflate the entry at the default level.
+   */
+  public static final Compression DEFLATED = deflated(Deflater.DEFAULT_COMPRESSION);
+
+  private final boolean stored;
+  private final int level;
+
+  private Compression(boolean stored, int level) {
+    this.stored = stored;
+    this.level = level;
+  }
+
+  /**
+   * Deflate the entry at the given level.
+   * @param level The compression level, between {@linkplain Deflater#BEST_SPEED} and
+   * {@linkplain Deflater#BEST_COMPRESSION}, or {@linkplain Deflater#DEFAULT_COMPRESSION}
+   * @return Compression that deflates at the given level
+   */
+  public static Compression deflated(int level) {
+    if ((level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) && level != Deflater.DEFAULT_COMPRESSION) {
+      throw new IllegalArgumentException("Invalid compression level: " + level);
+    }
+    return new Compression(false, level);
+  }
+
+  public boolean isStored() {
+    return stored;
+  }
+
+  public int getLevel() {
+    return level;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Boolean.hashCode(stored) + level;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof Compression)) {
+      return false;
+    }
+    Compression other = (Compression)obj;
+    return stored == other.stored && level == other.level;
+  }
+
+  @Override
+  public String toString() {
+    return stored ? "STORED" : "DEFLATED(" + level + ")";
+  }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * Decides how to {@linkplain Compression compress} an entry in a ZIP. The decision is based on the name of the entry
+ * and a sample taken from the start of its content, so that content that doesn't shrink, like images or documents that
+ * are already compressed, can be stored as-is rather than wasting CPU on deflating it.
+ */
+@FunctionalInterface
+public interface CompressionPolicy {
+
+  /**
+   * The maximum number of bytes in the sample passed to {@linkplain #compressionFor(String, ByteBuffer, long)}.
+   */
+  int SAMPLE_SIZE = 16 * 1024;
+
+  /**
+   * Decide how to compress an entry.
+   * @param name The name of the entry
+   * @param sample The first bytes of the entry's content, at most {@linkplain #SAMPLE_SIZE}
+   * @param size The size of the entry's content, or <code>-1</code> if it's not known
+   * @return How to compress the entry
+   */
+  Compression compressionFor(String name, ByteBuffer sample, long size);
+
+  /**
+   * Returns a policy that compresses all entries the same way.
+   * @param compression How to compress entries
+   * @return A policy that always returns the given compression
+   */
+  static CompressionPolicy always(Compression compression) {
+    return (name, sample, size) -> compression;
+  }
+
+  /**
+   * Returns a policy that stores entries that are tiny, have the extension of a compressed format, or look random, and
+   * deflates all other entries at the default level.
+   * @return A policy that stores content that doesn't compress well
+   */
+  static CompressionPolicy contentAware() {
+    return new ContentAwareCompressionPolicy();
+  }
+
+}
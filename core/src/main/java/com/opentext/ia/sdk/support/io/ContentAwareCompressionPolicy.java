@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+
+/**
+ * {@linkplain CompressionPolicy} that stores content that doesn't compress well. An entry is stored when:
+ * <ul>
+ * <li>its content is smaller than a minimum size, so that deflating it saves next to nothing</li>
+ * <li>its name has the extension of a format that is already compressed, like JPEG or Office Open XML</li>
+ * <li>the entropy of the sample of its content is close to 8 bits per byte, which means it's probably compressed or
+ * encrypted</li>
+ * </ul>
+ * All other entries are deflated.
+ */
+public class ContentAwareCompressionPolicy implements CompressionPolicy {
+
+  /**
+   * Extensions of formats that are compressed already.
+   */
+  public static final Collection<String> COMPRESSED_EXTENSIONS = Collections.unmodifiableList(Arrays.asList("7z",
+      "avi", "bz2", "docx", "gif", "gz", "jar", "jp2", "jpeg", "jpg", "m4a", "mov", "mp3", "mp4", "mpeg", "mpg", "odp",
+      "ods", "odt", "ogg", "pdf", "png", "pptx", "rar", "tgz", "webm", "webp", "xlsx", "xz", "zip"));
+  /**
+   * Entropy in bits per byte above which content is considered incompressible by default.
+   */
+  public static final double DEFAULT_MAX_ENTROPY = 7.5;
+  /**
+   * Size in bytes below which content is stored by default.
+   */
+  public static final int DEFAULT_MIN_SIZE = 64;
+  private static final int NUM_BYTE_VALUES = 256;
+  private static final double LN_2 = Math.log(2);
+
+  private final Set<String> storedExtensions;
+  private final double maxEntropy;
+  private final int minSize;
+  private final Compression compression;
+
+  /**
+   * Store tiny content, content with {@linkplain #COMPRESSED_EXTENSIONS compressed extensions}, and content with an
+   * entropy above {@linkplain #DEFAULT_MAX_ENTROPY}; deflate the rest at the default level.
+   */
+  public ContentAwareCompressionPolicy() {
+    this(COMPRESSED_EXTENSIONS, DEFAULT_MAX_ENTROPY, DEFAULT_MIN_SIZE, Compression.DEFLATED);
+  }
+
+  /**
+   * Store content with the given extensions or with an entropy above the given maximum.
+   * @param storedExtensions Extensions (without the dot) of entries to store, regardless of case
+   * @param maxEntropy Entropy in bits per byte above which to store content
+   * @param minSize Size in bytes below which to store content
+   * @param compression How to compress the other entries
+   */
+  public ContentAwareCompressionPolicy(Collection<String> storedExtensions, double maxEntropy, int minSize,
+      Compression compression) {
+    this.storedExtensions = new HashSet<>();
+    storedExtensions.forEach(extension -> this.storedExtensions.add(extension.toLowerCase(Locale.ENGLISH)));
+    this.maxEntropy = maxEntropy;
+    this.minSize = minSize;
+    this.compression = compression;
+  }
+
+  @Override
+  public Compression compressionFor(String name, ByteBuffer sample, long size) {
+    if (size >= 0 && size < minSize || storedExtensions.contains(extensionOf(name)) || entropyOf(sample) > maxEntropy) {
+      return Compression.STORED;
+    }
+    return compression;
+  }
+
+  private static String extensionOf(String name) {
+    int index = name.lastIndexOf('.');
+    return index < 0 ? "" : name.substring(index + 1)
+      .toLowerCase(Locale.ENGLISH);
+  }
+
+  /**
+   * Returns the Shannon entropy of the given data.
+   * @param data The data to measure
+   * @return The entropy in bits per byte, between 0 and 8
+   */
+  static double entropyOf(ByteBuffer data) {
+    int length = data.remaining();
+    if (length == 0) {
+      return 0;
+    }
+    int[] counts = new int[NUM_BYTE_VALUES];
+    for (int i = data.position(); i < data.limit(); i++) {
+      counts[data.get(i) & 0xFF]++;
+    }
+    double result = 0;
+    for (int count : counts) {
+      if (count > 0) {
+        double probability = (double)count / length;
+        result -= probability * Math.log(probability);
+      }
+    }
+    return result / LN_2;
+  }
+
+}
@@ -3,15 +3,17 @@
  */
 package com.opentext.ia.sdk.support.io;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 
 /**
  * Something that can hold arbitrary data. The data can be both {@linkplain #openForWriting() written} and
- * {@linkplain #openForReading() read} back.
+ * {@linkplain #openForReading() read} back. When the data is no longer needed, {@linkplain #close() close} the buffer
+ * to release any resources it holds.
  */
-public interface DataBuffer {
+public interface DataBuffer extends Closeable {
 
   /**
    * Read data from the buffer using an {@linkplain InputStream}.
@@ -33,4 +35,14 @@ public interface DataBuffer {
    */
   long length();
 
+  /**
+   * Release any resources held by the buffer, like temporary files. The data in the buffer may no longer be available
+   * afterwards. The default implementation does nothing.
+   * @throws IOException When an I/O error occurs
+   */
+  @Override
+  default void close() throws IOException {
+    // Nothing to release
+  }
+
 }
@@ -3,40 +3,231 @@
  */
 package com.opentext.ia.sdk.support.io;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
 
 /**
- * Default implementation of {@linkplain ZipAssembler}.
+ * Default implementation of {@linkplain ZipAssembler}. A {@linkplain CompressionPolicy} decides for each entry whether
+ * it is deflated or stored. The content of stored entries that are larger than the policy's sample is buffered while
+ * its CRC is computed, since the CRC must be known before the content is written.
+ * <p>
+ * Content that is read from a {@linkplain FileInputStream}, like that of a
+ * {@linkplain com.opentext.ia.sdk.sip.DigitalObject#fromFile(String, java.io.File) file-based digital object}, doesn't
+ * need to be buffered when it is stored. Its CRC and hashes are computed in a single pass over the memory-mapped file,
+ * and when the ZIP is written to a {@linkplain FileOutputStream}, the content is transferred from one file to the other
+ * without copying it through the Java heap.
+ * <p>
+ * The time spent reading, hashing, and compressing and writing the content of each entry is reported to the
+ * {@linkplain #setEntryListener(ZipEntryListener) entry listener}.
  */
 public class DefaultZipAssembler implements ZipAssembler {
 
   private static final int BUFFER_SIZE = 64 * 1024;
+  private static final long MAX_MAPPED_SIZE = Integer.MAX_VALUE;
+  private static final int READ = 0;
+  private static final int HASH = 1;
+  private static final int WRITE = 2;
 
-  private ZipOutputStream zip;
+  private final CompressionPolicy compressionPolicy;
+  private final byte[] sample = new byte[CompressionPolicy.SAMPLE_SIZE];
+  private final HybridBuffer storedContent = new HybridBuffer();
+  private final byte[] buffer = new byte[BUFFER_SIZE];
+  private final long[] stageTimes = new long[WRITE + 1];
+  private long entrySize;
+  private ZipEntryListener entryListener = entry -> { };
+  private ZipWriter zip;
+
+  /**
+   * Create an instance that uses the {@linkplain CompressionPolicy#contentAware() content-aware} compression policy.
+   */
+  public DefaultZipAssembler() {
+    this(CompressionPolicy.contentAware());
+  }
+
+  /**
+   * Create an instance that uses the given compression policy.
+   * @param compressionPolicy The policy that decides how to compress entries
+   */
+  public DefaultZipAssembler(CompressionPolicy compressionPolicy) {
+    this.compressionPolicy = compressionPolicy;
+  }
 
   @Override
   public void begin(OutputStream stream) {
-    zip = new ZipOutputStream(new BufferedOutputStream(stream));
+    FileChannel channel = stream instanceof FileOutputStream ? ((FileOutputStream)stream).getChannel() : null;
+    zip = new ZipWriter(new BufferedOutputStream(stream), channel);
+  }
+
+  @Override
+  public void setEntryListener(ZipEntryListener listener) {
+    entryListener = listener;
   }
 
   @Override
   public Collection<EncodedHash> addEntry(String name, InputStream stream, HashAssembler hashAssembler)
       throws IOException {
+    Arrays.fill(stageTimes, 0);
+    entrySize = 0;
+    long offset = zip.size();
+    long now = System.nanoTime();
     hashAssembler.initialize();
-    zip.putNextEntry(new ZipEntry(name));
+    FileChannel file = stream instanceof FileInputStream ? ((FileInputStream)stream).getChannel() : null;
+    long start = file == null ? 0 : file.position();
+    int sampleLength = readSample(stream);
+    long size = sizeOf(file, start, sampleLength);
+    now = lap(READ, now);
+    Compression compression = compressionPolicy.compressionFor(name,
+        ByteBuffer.wrap(sample, 0, sampleLength).asReadOnlyBuffer(), size);
+    if (compression.isStored() && file != null && sampleLength == sample.length) {
+      lap(WRITE, now);
+      addStoredFile(name, file, start, size, hashAssembler);
+    } else {
+      now = lap(WRITE, now);
+      hashAssembler.add(sample, sampleLength);
+      lap(HASH, now);
+      if (compression.isStored()) {
+        addStoredEntry(name, stream, sampleLength, hashAssembler);
+      } else {
+        addDeflatedEntry(name, stream, sampleLength, compression.getLevel(), hashAssembler);
+      }
+    }
+    entryListener.entryAdded(new ZipEntryStatistics(name, entrySize, zip.lastCompressedSize(), zip.size() - offset,
+        stageTimes[READ], stageTimes[HASH], stageTimes[WRITE]));
+    return hashAssembler.get();
+  }
+
+  private long lap(int stage, long since) {
+    long result = System.nanoTime();
+    stageTimes[stage] += result - since;
+    return result;
+  }
+
+  private long sizeOf(FileChannel file, long start, int sampleLength) throws IOException {
+    if (file != null) {
+      return file.size() - start;
+    }
+    return sampleLength < sample.length ? sampleLength : -1;
+  }
+
+  private int readSample(InputStream stream) throws IOException {
+    int result = 0;
+    while (result < sample.length) {
+      int numRead = stream.read(sample, result, sample.length - result);
+      if (numRead < 0) {
+        break;
+      }
+      result += numRead;
+    }
+    entrySize = result;
+    return result;
+  }
+
+  private void addDeflatedEntry(String name, InputStream stream, int sampleLength, int level,
+      HashAssembler hashAssembler) throws IOException {
+    boolean large = sampleLength == sample.length;
+    long now = System.nanoTime();
+    try (OutputStream entry = openDeflatedEntry(zip, name, level, large)) {
+      entry.write(sample, 0, sampleLength);
+      now = lap(WRITE, now);
+      if (large) {
+        copy(stream, entry, hashAssembler);
+        now = System.nanoTime();
+      }
+    }
+    lap(WRITE, now);
+  }
+
+  private void copy(InputStream in, OutputStream out, HashAssembler hashAssembler) throws IOException {
+    long now = System.nanoTime();
+    int numRead = in.read(buffer);
+    now = lap(READ, now);
+    while (numRead > 0) {
+      entrySize += numRead;
+      out.write(buffer, 0, numRead);
+      now = lap(WRITE, now);
+      hashAssembler.add(buffer, numRead);
+      now = lap(HASH, now);
+      numRead = in.read(buffer);
+      now = lap(READ, now);
+    }
+  }
+
+  /**
+   * Start an entry that is deflated while it's written. Closing the returned stream finishes the entry.
+   * @param writer The writer of the ZIP
+   * @param name The name of the entry
+   * @param level The compression level
+   * @param large Whether the content is larger than the compression policy's sample
+   * @return The stream to write the uncompressed content of the entry to
+   * @throws IOException When an I/O error occurs
+   */
+  OutputStream openDeflatedEntry(ZipWriter writer, String name, int level, boolean large) throws IOException {
+    return writer.openEntry(name, level);
+  }
+
+  private void addStoredEntry(String name, InputStream stream, int sampleLength, HashAssembler hashAssembler)
+      throws IOException {
+    CRC32 crc = new CRC32();
+    long now = System.nanoTime();
+    if (sampleLength < sample.length) {
+      crc.update(sample, 0, sampleLength);
+      zip.writeStoredEntry(name, crc.getValue(), sampleLength, new ByteArrayInputStream(sample, 0, sampleLength));
+      lap(WRITE, now);
+      return;
+    }
     try {
-      IOStreams.copy(new BufferedInputStream(stream), zip, BUFFER_SIZE, hashAssembler);
+      try (OutputStream staged = new CheckedOutputStream(storedContent.openForWriting(), crc)) {
+        staged.write(sample, 0, sampleLength);
+        lap(WRITE, now);
+        copy(stream, staged, hashAssembler);
+        now = System.nanoTime();
+      }
+      try (InputStream content = storedContent.openForReading()) {
+        zip.writeStoredEntry(name, crc.getValue(), storedContent.length(), content);
+      }
     } finally {
-      zip.closeEntry();
+      storedContent.close();
+      lap(WRITE, now);
     }
-    return hashAssembler.get();
+  }
+
+  private void addStoredFile(String name, FileChannel file, long start, long size, HashAssembler hashAssembler)
+      throws IOException {
+    CRC32 crc = new CRC32();
+    long now = System.nanoTime();
+    for (long position = start; position < start + size; position += MAX_MAPPED_SIZE) {
+      MappedByteBuffer content = file.map(MapMode.READ_ONLY, position,
+          Math.min(MAX_MAPPED_SIZE, start + size - position));
+      crc.update(content.duplicate());
+      hashAssembler.add(content);
+    }
+    now = lap(HASH, now);
+    entrySize = size;
+    zip.writeStoredEntry(name, crc.getValue(), size, file, start);
+    file.position(start + size);
+    lap(WRITE, now);
+  }
+
+  @Override
+  public void addEntry(String name, CompressedContent content) throws IOException {
+    long start = System.nanoTime();
+    long offset = zip.size();
+    zip.writeEntry(name, content);
+    entryListener.entryAdded(new ZipEntryStatistics(name, content.getSize(), content.getCompressedSize(),
+        zip.size() - offset, 0, 0, System.nanoTime() - start));
   }
 
   /**
@@ -44,7 +235,11 @@ public class DefaultZipAssembler implements ZipAssembler {
    */
   @Override
   public void close() throws IOException {
-    zip.close();
+    try {
+      zip.close();
+    } finally {
+      storedContent.close();
+    }
   }
 
 }
@@ -6,6 +6,7 @@ package com.opentext.ia.sdk.support.io;
 import java.util.Locale;
 import java.util.function.Function;
 
+import org.apache.commons.codec.DecoderException;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.codec.binary.Hex;
 
@@ -14,13 +15,23 @@ import org.apache.commons.codec.binary.Hex;
  */
 public enum Encoding {
 
-  BASE64(Base64::encodeBase64String),
-  HEX(Hex::encodeHexString);
+  BASE64(Base64::encodeBase64String, Base64::decodeBase64),
+  HEX(Hex::encodeHexString, Encoding::decodeHex);
 
   private final Function<byte[], String> encoder;
+  private final Function<String, byte[]> decoder;
 
-  Encoding(Function<byte[], String> encoder) {
+  Encoding(Function<byte[], String> encoder, Function<String, byte[]> decoder) {
     this.encoder = encoder;
+    this.decoder = decoder;
+  }
+
+  private static byte[] decodeHex(String text) {
+    try {
+      return Hex.decodeHex(text.toCharArray());
+    } catch (DecoderException e) {
+      throw new IllegalArgumentException("Not a hex string: " + text, e);
+    }
   }
 
   /**
@@ -32,6 +43,16 @@ public enum Encoding {
     return encoder.apply(bytes);
   }
 
+  /**
+   * Convert the given ASCII form back to bytes.
+   * @param text The ASCII form to convert
+   * @return The bytes that the ASCII form represents
+   * @throws IllegalArgumentException When the text isn't a valid ASCII form for this encoding
+   */
+  public byte[] decode(String text) {
+    return decoder.apply(text);
+  }
+
   /**
    * Return a human-readable version of the encoding.
    * @return A human-readable version of the encoding
@@ -7,6 +7,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
 /**
@@ -66,11 +67,11 @@ public final class FileSupplier {
   public static Supplier<File> fromDirectory(File dir, String prefix, String suffix) {
     return new Supplier<File>() {
 
-      private int count;
+      private final AtomicInteger count = new AtomicInteger();
 
       @Override
       public File get() {
-        return new File(ensureDir(dir), String.format("%s%d%s", prefix, ++count, suffix));
+        return new File(ensureDir(dir), String.format("%s%d%s", prefix, count.incrementAndGet(), suffix));
       }
     };
   }
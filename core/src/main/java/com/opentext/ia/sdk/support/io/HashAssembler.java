@@ -3,6 +3,7 @@
  */
 package com.opentext.ia.sdk.support.io;
 
+import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.function.Supplier;
 
@@ -28,6 +29,21 @@ public interface HashAssembler extends Supplier<Collection<EncodedHash>> {
    */
   void add(byte[] buffer, int length);
 
+  /**
+   * Add the remaining data in a buffer to be hashed. The buffer's position is advanced to its limit. The default
+   * implementation copies the data into an array; implementations that can hash buffers directly, including mapped or
+   * direct buffers, should override this method.
+   * @param buffer The buffer of data to hash
+   */
+  default void add(ByteBuffer buffer) {
+    byte[] bytes = new byte[Math.min(buffer.remaining(), 64 * 1024)];
+    while (buffer.hasRemaining()) {
+      int length = Math.min(buffer.remaining(), bytes.length);
+      buffer.get(bytes, 0, length);
+      add(bytes, length);
+    }
+  }
+
   /**
    * Return the number of bytes hashed.
    * @return The number of bytes hashed
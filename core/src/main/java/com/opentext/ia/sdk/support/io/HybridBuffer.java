@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.function.Consumer;
+
+
+/**
+ * Buffer that stores data in memory until it grows beyond a threshold, and then moves it to a temporary file. This
+ * combines the speed of a {@linkplain MemoryBuffer} for small amounts of data with the scalability of a
+ * {@linkplain FileBuffer} for large amounts.
+ * <p>
+ * The temporary file is deleted when the buffer is {@linkplain #close() closed} or
+ * {@linkplain #openForWriting() opened for writing} again.
+ */
+public class HybridBuffer implements DataBuffer {
+
+  /**
+   * The number of bytes that are kept in memory by default.
+   */
+  public static final int DEFAULT_THRESHOLD = 16 * 1024 * 1024;
+  private static final int FILE_BUFFER_SIZE = 64 * 1024;
+
+  private final int threshold;
+  private final File dir;
+  private final Consumer<? super File> spillListener;
+  private ByteArrayInputOutputStream memory = new ByteArrayInputOutputStream();
+  private File file;
+  private OutputStream fileOutput;
+  private long length;
+
+  /**
+   * Store up to {@linkplain #DEFAULT_THRESHOLD} bytes in memory, and then move to a file in the default temporary
+   * directory.
+   */
+  public HybridBuffer() {
+    this(DEFAULT_THRESHOLD);
+  }
+
+  /**
+   * Store up to the given number of bytes in memory, and then move to a file in the default temporary directory.
+   * @param threshold The maximum number of bytes to store in memory
+   */
+  public HybridBuffer(int threshold) {
+    this(threshold, null, spilled -> { });
+  }
+
+  /**
+   * Store up to the given number of bytes in memory, and then move to a file in the given directory.
+   * @param threshold The maximum number of bytes to store in memory
+   * @param dir The directory in which to create the temporary file, or <code>null</code> for the default temporary
+   * directory
+   * @param spillListener Called with the temporary file when the data is moved out of memory
+   */
+  public HybridBuffer(int threshold, File dir, Consumer<? super File> spillListener) {
+    this.threshold = threshold;
+    this.dir = dir;
+    this.spillListener = spillListener;
+  }
+
+  @Override
+  public OutputStream openForWriting() throws IOException {
+    close();
+    return new SpillingOutputStream();
+  }
+
+  @Override
+  public InputStream openForReading() throws IOException {
+    if (file == null) {
+      return memory.getInputStream();
+    }
+    if (fileOutput != null) {
+      fileOutput.flush();
+    }
+    return new FileInputStream(file);
+  }
+
+  @Override
+  public long length() {
+    return length;
+  }
+
+  /**
+   * Return whether the data was moved from memory to a temporary file.
+   * @return <code>true</code> if the data is stored in a temporary file; <code>false</code> if it's stored in memory
+   */
+  public boolean isSpilled() {
+    return file != null;
+  }
+
+  /**
+   * Delete the temporary file, if any, and release the memory.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      if (fileOutput != null) {
+        fileOutput.close();
+      }
+      if (file != null) {
+        Files.deleteIfExists(file.toPath());
+      }
+    } finally {
+      fileOutput = null;
+      file = null;
+      memory = new ByteArrayInputOutputStream();
+      length = 0;
+    }
+  }
+
+  private void spill() throws IOException {
+    file = (dir == null ? Files.createTempFile("buffer", null) : Files.createTempFile(dir.toPath(), "buffer", null))
+      .toFile();
+    fileOutput = new BufferedOutputStream(new FileOutputStream(file), FILE_BUFFER_SIZE);
+    memory.writeTo(fileOutput);
+    memory = null;
+    spillListener.accept(file);
+  }
+
+
+  private class SpillingOutputStream extends OutputStream {
+
+    @Override
+    public void write(int b) throws IOException {
+      target(1).write(b);
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int numBytes) throws IOException {
+      target(numBytes).write(buffer, offset, numBytes);
+    }
+
+    private OutputStream target(int numBytes) throws IOException {
+      if (file == null && length + numBytes > threshold) {
+        spill();
+      }
+      length += numBytes;
+      return file == null ? memory : fileOutput;
+    }
+
+    @Override
+    public void flush() throws IOException {
+      if (fileOutput != null) {
+        fileOutput.flush();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (fileOutput != null) {
+        fileOutput.close();
+        fileOutput = null;
+      }
+    }
+
+  }
+
+}
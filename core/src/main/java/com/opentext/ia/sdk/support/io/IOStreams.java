@@ -7,6 +7,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 
 /**
@@ -42,4 +44,31 @@ public final class IOStreams {
     }
   }
 
+  /**
+   * Perform an action that may throw an {@linkplain IOException} for each element of a stream. If the stream is
+   * parallel, the action is performed on several threads, in no particular order. The first I/O error stops the stream
+   * and is thrown as is.
+   * @param <T> The type of elements of the stream
+   * @param stream The stream to process, which is closed afterwards
+   * @param action The action to perform for each element
+   * @throws IOException When the action throws an I/O error
+   */
+  public static <T> void forEachChecked(Stream<? extends T> stream, IoConsumer<? super T> action) throws IOException {
+    try (Stream<? extends T> elements = stream) {
+      elements.forEach(unchecked(action));
+    } catch (RuntimeIoException e) {
+      throw e.getCause();
+    }
+  }
+
+  private static <T> Consumer<T> unchecked(IoConsumer<? super T> action) {
+    return element -> {
+      try {
+        action.accept(element);
+      } catch (IOException e) {
+        throw new RuntimeIoException(e);
+      }
+    };
+  }
+
 }
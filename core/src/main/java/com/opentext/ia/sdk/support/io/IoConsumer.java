@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.io.IOException;
+
+/**
+ * Version of {@linkplain java.util.function.Consumer} that may throw an {@linkplain IOException}.
+ * @param <T> The type of objects to consume
+ * @see IOStreams#forEachChecked(java.util.stream.Stream, IoConsumer)
+ */
+@FunctionalInterface
+public interface IoConsumer<T> {
+
+  /**
+   * Consume an object.
+   * @param object The object to consume
+   * @throws IOException When an I/O error occurs
+   */
+  void accept(T object) throws IOException;
+
+}
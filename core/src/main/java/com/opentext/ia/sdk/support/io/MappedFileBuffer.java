@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * Buffer that stores data in a file, like a {@linkplain FileBuffer}, but with less overhead for large amounts of data.
+ * Writing goes through a {@linkplain FileChannel} that grows the file in large increments and truncates it to the
+ * actual length when the output stream is closed. Reading maps the file into memory, so that reading it back doesn't
+ * require a system call per read.
+ * <p>
+ * Mapped memory is released by the garbage collector some time after the stream that reads it is closed. A temporary
+ * file that the buffer created itself is deleted when the buffer is {@linkplain #close() closed}.
+ */
+public class MappedFileBuffer implements DataBuffer {
+
+  /**
+   * The number of bytes by which the file grows while writing by default.
+   */
+  public static final long DEFAULT_PREALLOCATION_SIZE = 16 * 1024 * 1024;
+  private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+  private static final long MAX_SEGMENT_SIZE = Integer.MAX_VALUE;
+
+  private final File file;
+  private final long preallocationSize;
+  private final boolean temporary;
+  private long writePosition = -1;
+
+  /**
+   * Store data in a temporary file, which is deleted when the buffer is closed.
+   */
+  public MappedFileBuffer() {
+    this(tempFile(), DEFAULT_PREALLOCATION_SIZE, true);
+  }
+
+  private static File tempFile() {
+    try {
+      return Files.createTempFile(null, null)
+        .toFile();
+    } catch (IOException e) {
+      throw new RuntimeIoException(e);
+    }
+  }
+
+  /**
+   * Store data in the given file.
+   * @param file The file in which to store data
+   */
+  public MappedFileBuffer(File file) {
+    this(file, DEFAULT_PREALLOCATION_SIZE);
+  }
+
+  /**
+   * Store data in the given file.
+   * @param file The file in which to store data
+   * @param preallocationSize The number of bytes by which to grow the file while writing
+   */
+  public MappedFileBuffer(File file, long preallocationSize) {
+    this(file, preallocationSize, false);
+  }
+
+  private MappedFileBuffer(File file, long preallocationSize, boolean temporary) {
+    if (preallocationSize < 1) {
+      throw new IllegalArgumentException("Preallocation size must be positive");
+    }
+    this.file = file;
+    this.preallocationSize = preallocationSize;
+    this.temporary = temporary;
+  }
+
+  File getFile() {
+    return file;
+  }
+
+  @Override
+  public OutputStream openForWriting() throws IOException {
+    return new PreallocatingOutputStream(new RandomAccessFile(file, "rw"));
+  }
+
+  @Override
+  public InputStream openForReading() throws IOException {
+    return new MappedInputStream(FileChannel.open(file.toPath(), StandardOpenOption.READ));
+  }
+
+  @Override
+  public long length() {
+    return writePosition < 0 ? file.length() : writePosition;
+  }
+
+  /**
+   * Delete the file if the buffer created it as a temporary file. A file that was given to the buffer is kept.
+   */
+  @Override
+  public void close() throws IOException {
+    if (temporary) {
+      Files.deleteIfExists(file.toPath());
+    }
+  }
+
+
+  private class PreallocatingOutputStream extends OutputStream {
+
+    private final RandomAccessFile randomAccessFile;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+    private long allocated;
+
+    PreallocatingOutputStream(RandomAccessFile randomAccessFile) throws IOException {
+      this.randomAccessFile = randomAccessFile;
+      this.channel = randomAccessFile.getChannel();
+      writePosition = 0;
+      randomAccessFile.setLength(0);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      if (!buffer.hasRemaining()) {
+        flushBuffer();
+      }
+      buffer.put((byte)b);
+      writePosition++;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int numBytes) throws IOException {
+      int index = offset;
+      int remaining = numBytes;
+      while (remaining > 0) {
+        if (!buffer.hasRemaining()) {
+          flushBuffer();
+        }
+        int n = Math.min(remaining, buffer.remaining());
+        buffer.put(bytes, index, n);
+        index += n;
+        remaining -= n;
+      }
+      writePosition += numBytes;
+    }
+
+    private void flushBuffer() throws IOException {
+      buffer.flip();
+      long end = channel.position() + buffer.remaining();
+      if (end > allocated) {
+        allocated = (end / preallocationSize + 1) * preallocationSize;
+        randomAccessFile.setLength(allocated);
+      }
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      buffer.clear();
+    }
+
+    @Override
+    public void flush() throws IOException {
+      flushBuffer();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (!channel.isOpen()) {
+        return;
+      }
+      try {
+        flushBuffer();
+        channel.truncate(writePosition);
+      } finally {
+        randomAccessFile.close();
+        writePosition = -1;
+      }
+    }
+
+  }
+
+
+  private static class MappedInputStream extends InputStream {
+
+    private final FileChannel channel;
+    private final long size;
+    private long mapped;
+    private ByteBuffer current;
+
+    MappedInputStream(FileChannel channel) throws IOException {
+      this.channel = channel;
+      this.size = channel.size();
+    }
+
+    @Override
+    public int read() throws IOException {
+      ByteBuffer segment = readableSegment();
+      return segment == null ? -1 : segment.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int numBytes) throws IOException {
+      if (numBytes == 0) {
+        return 0;
+      }
+      ByteBuffer segment = readableSegment();
+      if (segment == null) {
+        return -1;
+      }
+      int result = Math.min(numBytes, segment.remaining());
+      segment.get(bytes, offset, result);
+      return result;
+    }
+
+    @Override
+    public long skip(long numBytes) throws IOException {
+      long result = 0;
+      ByteBuffer segment = readableSegment();
+      while (segment != null && result < numBytes) {
+        int n = (int)Math.min(numBytes - result, segment.remaining());
+        segment.position(segment.position() + n);
+        result += n;
+        segment = readableSegment();
+      }
+      return result;
+    }
+
+    @Override
+    public int available() {
+      return current == null ? 0 : current.remaining();
+    }
+
+    private ByteBuffer readableSegment() throws IOException {
+      if (current != null && current.hasRemaining()) {
+        return current;
+      }
+      if (mapped >= size) {
+        return null;
+      }
+      long segmentSize = Math.min(MAX_SEGMENT_SIZE, size - mapped);
+      MappedByteBuffer segment = channel.map(MapMode.READ_ONLY, mapped, segmentSize);
+      mapped += segmentSize;
+      current = segment;
+      return current;
+    }
+
+    @Override
+    public void close() throws IOException {
+      current = null;
+      channel.close();
+    }
+
+  }
+
+}
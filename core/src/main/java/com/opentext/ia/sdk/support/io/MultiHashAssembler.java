@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+
+/**
+ * Assemble several hashes in a single pass over the data, for instance a SHA-256 hash encoded in base64 and an MD5 hash
+ * encoded in hex. Each hash is assembled by its own {@linkplain HashAssembler}, and {@linkplain #get()} returns the
+ * hashes of all of them.
+ * <p>
+ * When given an {@linkplain Executor}, the assemblers hash each buffer of data concurrently, one of them on the calling
+ * thread and the others on the executor. Adding data returns when all assemblers are done with it, so that the caller
+ * can safely reuse the buffer.
+ */
+public class MultiHashAssembler implements HashAssembler {
+
+  private final List<HashAssembler> hashAssemblers;
+  private final Executor executor;
+  private long size;
+
+  /**
+   * Assemble hashes using the given hash functions, all with the same encoding.
+   * @param encoding The encoding used to encode the assembled hashes
+   * @param hashFunctions The hash functions used to assemble the hashes
+   */
+  public MultiHashAssembler(Encoding encoding, HashFunction... hashFunctions) {
+    this((Executor)null, Arrays.stream(hashFunctions)
+      .map(hashFunction -> new SingleHashAssembler(hashFunction, encoding))
+      .toArray(HashAssembler[]::new));
+  }
+
+  /**
+   * Assemble hashes using the given assemblers on the calling thread.
+   * @param hashAssemblers The assemblers that assemble the individual hashes
+   */
+  public MultiHashAssembler(HashAssembler... hashAssemblers) {
+    this((Executor)null, hashAssemblers);
+  }
+
+  /**
+   * Assemble hashes using the given assemblers concurrently.
+   * @param executor The executor on which to run all but the first assembler, or <code>null</code> to run all
+   * assemblers on the calling thread
+   * @param hashAssemblers The assemblers that assemble the individual hashes
+   */
+  public MultiHashAssembler(Executor executor, HashAssembler... hashAssemblers) {
+    if (hashAssemblers.length == 0) {
+      throw new IllegalArgumentException("Need at least one hash assembler");
+    }
+    this.executor = executor;
+    this.hashAssemblers = new ArrayList<>(Arrays.asList(hashAssemblers));
+  }
+
+  @Override
+  public void initialize() {
+    size = 0;
+    hashAssemblers.forEach(HashAssembler::initialize);
+  }
+
+  @Override
+  public void add(byte[] buffer, int length) {
+    size += length;
+    forEachAssembler(hashAssembler -> hashAssembler.add(buffer, length));
+  }
+
+  @Override
+  public void add(ByteBuffer buffer) {
+    size += buffer.remaining();
+    forEachAssembler(hashAssembler -> hashAssembler.add(buffer.duplicate()));
+    buffer.position(buffer.limit());
+  }
+
+  private void forEachAssembler(Consumer<HashAssembler> action) {
+    if (executor == null || hashAssemblers.size() == 1) {
+      hashAssemblers.forEach(action);
+      return;
+    }
+    CompletableFuture<?>[] others = new CompletableFuture<?>[hashAssemblers.size() - 1];
+    for (int i = 0; i < others.length; i++) {
+      HashAssembler hashAssembler = hashAssemblers.get(i + 1);
+      others[i] = CompletableFuture.runAsync(() -> action.accept(hashAssembler), executor);
+    }
+    action.accept(hashAssemblers.get(0));
+    CompletableFuture.allOf(others)
+      .join();
+  }
+
+  @Override
+  public long numBytesHashed() {
+    return size;
+  }
+
+  @Override
+  public Collection<EncodedHash> get() {
+    Collection<EncodedHash> result = new ArrayList<>();
+    hashAssemblers.forEach(hashAssembler -> result.addAll(hashAssembler.get()));
+    return result;
+  }
+
+}
@@ -3,6 +3,7 @@
  */
 package com.opentext.ia.sdk.support.io;
 
+import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.Collections;
 
@@ -24,6 +25,12 @@ public class NoHashAssembler implements HashAssembler {
     size += length;
   }
 
+  @Override
+  public void add(ByteBuffer buffer) {
+    size += buffer.remaining();
+    buffer.position(buffer.limit());
+  }
+
   @Override
   public long numBytesHashed() {
     return size;
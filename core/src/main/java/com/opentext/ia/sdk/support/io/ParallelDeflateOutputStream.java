@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import com.opentext.ia.sdk.support.io.ZipWriter.CompressedEntryOutputStream;
+
+
+/**
+ * Stream that splits its content into blocks and deflates them concurrently. Each block but the last ends with a sync
+ * flush, so that the compressed blocks can be concatenated into a single DEFLATE stream. Each block uses the end of
+ * the previous block as its preset dictionary.
+ */
+class ParallelDeflateOutputStream extends OutputStream {
+
+  static final int DICTIONARY_SIZE = 32 * 1024;
+  private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+  private final CompressedEntryOutputStream output;
+  private final ExecutorService executor;
+  private final int maxPendingBlocks;
+  private final int blockSize;
+  private final Supplier<Deflater> borrowDeflater;
+  private final Consumer<Deflater> returnDeflater;
+  private final Queue<Future<byte[]>> pendingBlocks = new ArrayDeque<>();
+  private final CRC32 crc = new CRC32();
+  private byte[] block;
+  private int blockLength;
+  private byte[] dictionary;
+  private long size;
+  private boolean closed;
+
+  ParallelDeflateOutputStream(CompressedEntryOutputStream output, ExecutorService executor, int maxPendingBlocks,
+      int blockSize, Supplier<Deflater> borrowDeflater, Consumer<Deflater> returnDeflater) {
+    this.output = output;
+    this.executor = executor;
+    this.maxPendingBlocks = maxPendingBlocks;
+    this.blockSize = blockSize;
+    this.borrowDeflater = borrowDeflater;
+    this.returnDeflater = returnDeflater;
+    this.block = new byte[blockSize];
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[] { (byte)b }, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] buffer, int offset, int length) throws IOException {
+    crc.update(buffer, offset, length);
+    size += length;
+    int index = offset;
+    int remaining = length;
+    while (remaining > 0) {
+      if (blockLength == blockSize) {
+        submitBlock(false);
+      }
+      int n = Math.min(remaining, blockSize - blockLength);
+      System.arraycopy(buffer, index, block, blockLength, n);
+      blockLength += n;
+      index += n;
+      remaining -= n;
+    }
+  }
+
+  private void submitBlock(boolean last) throws IOException {
+    byte[] input = block;
+    int inputLength = blockLength;
+    byte[] inputDictionary = dictionary;
+    pendingBlocks.add(executor.submit(() -> deflate(input, inputLength, inputDictionary, last)));
+    if (!last) {
+      dictionary = Arrays.copyOfRange(input, inputLength - DICTIONARY_SIZE, inputLength);
+      block = new byte[blockSize];
+      blockLength = 0;
+    }
+    while (pendingBlocks.size() > maxPendingBlocks) {
+      writeNextBlock();
+    }
+  }
+
+  private byte[] deflate(byte[] input, int length, byte[] presetDictionary, boolean last) {
+    Deflater deflater = borrowDeflater.get();
+    try {
+      if (presetDictionary != null) {
+        deflater.setDictionary(presetDictionary);
+      }
+      deflater.setInput(input, 0, length);
+      ByteArrayOutputStream result = new ByteArrayOutputStream(length / 2);
+      byte[] buffer = new byte[OUTPUT_BUFFER_SIZE];
+      if (last) {
+        deflater.finish();
+        while (!deflater.finished()) {
+          result.write(buffer, 0, deflater.deflate(buffer));
+        }
+      } else {
+        int numDeflated;
+        do {
+          numDeflated = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+          result.write(buffer, 0, numDeflated);
+        } while (numDeflated == buffer.length);
+      }
+      return result.toByteArray();
+    } finally {
+      returnDeflater.accept(deflater);
+    }
+  }
+
+  private void writeNextBlock() throws IOException {
+    Future<byte[]> next = pendingBlocks.remove();
+    try {
+      output.write(next.get());
+    } catch (ExecutionException e) {
+      throw new IOException("Failed to deflate block", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while deflating block", e);
+    }
+  }
+
+  /**
+   * Deflate the remaining content and finish the entry.
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      submitBlock(true);
+      while (!pendingBlocks.isEmpty()) {
+        writeNextBlock();
+      }
+      output.finish(crc.getValue(), size);
+    } finally {
+      pendingBlocks.forEach(pending -> pending.cancel(true));
+      pendingBlocks.clear();
+    }
+  }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+
+/**
+ * {@linkplain ZipAssembler} that deflates large entries on several threads at once. The content of such an entry is
+ * split into blocks that are deflated concurrently, each using the last 32 KB of the previous block as its preset
+ * dictionary, so that the compression ratio is close to that of deflating the entry in one go. The compressed blocks
+ * are concatenated in order into a single entry, while the CRC is computed as the content is written.
+ * <p>
+ * Entries that fit in the {@linkplain CompressionPolicy#SAMPLE_SIZE sample} of the {@linkplain CompressionPolicy} are
+ * deflated on the calling thread, like in the {@linkplain DefaultZipAssembler}. The worker threads are started when
+ * the ZIP {@linkplain #begin(OutputStream) begins} and stopped when it's {@linkplain #close() closed}.
+ */
+public class ParallelDeflateZipAssembler extends DefaultZipAssembler {
+
+  /**
+   * The number of bytes in each block of uncompressed content by default.
+   */
+  public static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+  private static final int MAX_PENDING_BLOCKS_PER_THREAD = 2;
+
+  private final int numThreads;
+  private final int blockSize;
+  private final Map<Integer, Queue<Deflater>> idleDeflaters = new ConcurrentHashMap<>();
+  private ExecutorService executor;
+
+  /**
+   * Create an instance that uses the {@linkplain CompressionPolicy#contentAware() content-aware} compression policy
+   * and one thread per available processor.
+   */
+  public ParallelDeflateZipAssembler() {
+    this(CompressionPolicy.contentAware(), Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Create an instance that deflates blocks of {@linkplain #DEFAULT_BLOCK_SIZE} bytes.
+   * @param compressionPolicy The policy that decides how to compress entries
+   * @param numThreads The number of threads that deflate blocks
+   */
+  public ParallelDeflateZipAssembler(CompressionPolicy compressionPolicy, int numThreads) {
+    this(compressionPolicy, numThreads, DEFAULT_BLOCK_SIZE);
+  }
+
+  /**
+   * Create an instance.
+   * @param compressionPolicy The policy that decides how to compress entries
+   * @param numThreads The number of threads that deflate blocks
+   * @param blockSize The number of bytes in each block of uncompressed content; must be at least 32 KB
+   */
+  public ParallelDeflateZipAssembler(CompressionPolicy compressionPolicy, int numThreads, int blockSize) {
+    super(compressionPolicy);
+    if (numThreads < 1) {
+      throw new IllegalArgumentException("Need at least one thread");
+    }
+    if (blockSize < ParallelDeflateOutputStream.DICTIONARY_SIZE) {
+      throw new IllegalArgumentException("Block size must be at least " + ParallelDeflateOutputStream.DICTIONARY_SIZE);
+    }
+    this.numThreads = numThreads;
+    this.blockSize = blockSize;
+  }
+
+  @Override
+  public void begin(OutputStream stream) {
+    super.begin(stream);
+    AtomicInteger count = new AtomicInteger();
+    executor = Executors.newFixedThreadPool(numThreads, task -> {
+      Thread result = new Thread(task, "zip-deflater-" + count.incrementAndGet());
+      result.setDaemon(true);
+      return result;
+    });
+  }
+
+  @Override
+  OutputStream openDeflatedEntry(ZipWriter writer, String name, int level, boolean large) throws IOException {
+    if (!large) {
+      return super.openDeflatedEntry(writer, name, level, large);
+    }
+    return new ParallelDeflateOutputStream(writer.openCompressedEntry(name), executor,
+        MAX_PENDING_BLOCKS_PER_THREAD * numThreads, blockSize, () -> borrowDeflater(level),
+        deflater -> returnDeflater(deflater, level));
+  }
+
+  private Deflater borrowDeflater(int level) {
+    Deflater result = idleDeflatersAt(level).poll();
+    if (result == null) {
+      result = new Deflater(level, true);
+    }
+    return result;
+  }
+
+  private Queue<Deflater> idleDeflatersAt(int level) {
+    return idleDeflaters.computeIfAbsent(level, key -> new ConcurrentLinkedQueue<>());
+  }
+
+  private void returnDeflater(Deflater deflater, int level) {
+    deflater.reset();
+    idleDeflatersAt(level).offer(deflater);
+  }
+
+  /**
+   * Close the ZIP to make it available for use, and stop the worker threads.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      super.close();
+    } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+        executor = null;
+      }
+      idleDeflaters.values().forEach(deflaters -> deflaters.forEach(Deflater::end));
+      idleDeflaters.clear();
+    }
+  }
+
+}
@@ -3,6 +3,7 @@
  */
 package com.opentext.ia.sdk.support.io;
 
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Collection;
@@ -49,6 +50,12 @@ public class SingleHashAssembler extends NoHashAssembler {
     digester.update(buffer, 0, length);
   }
 
+  @Override
+  public void add(ByteBuffer buffer) {
+    super.add(buffer.duplicate());
+    digester.update(buffer);
+  }
+
   @Override
   public Collection<EncodedHash> get() {
     return Collections
@@ -13,7 +13,8 @@ import java.util.Collection;
  * Assemble a ZIP from entries. The ZIP assembly process consists of the following stages:
  * <ol>
  * <li>{@linkplain #begin(OutputStream) Begin} the assembly process</li>
- * <li>{@linkplain #addEntry(String, InputStream, HashAssembler) Add} entries to the ZIP zero or more times</li>
+ * <li>{@linkplain #addEntry(String, InputStream, HashAssembler) Add} entries to the ZIP zero or more times, or
+ * {@linkplain #addEntry(String, CompressedContent) add} entries that were compressed ahead of time</li>
  * <li>{@linkplain #close() Close} the ZIP</li>
  * </ol>
  */
@@ -36,4 +37,27 @@ public interface ZipAssembler extends Closeable {
    */
   Collection<EncodedHash> addEntry(String name, InputStream content, HashAssembler hashAssembler) throws IOException;
 
+  /**
+   * Add an entry whose content was compressed ahead of time to the ZIP. The default implementation uncompresses the
+   * content and adds it as a regular entry; implementations that can copy the compressed content as-is should override
+   * this method.
+   * @param name The name of the entry to add
+   * @param content The compressed content of the entry to add
+   * @throws IOException When an I/O error occurs
+   */
+  default void addEntry(String name, CompressedContent content) throws IOException {
+    try (InputStream stream = content.openForReading()) {
+      addEntry(name, stream, new NoHashAssembler());
+    }
+  }
+
+  /**
+   * Set the listener that is told about each entry that is added, including how long it took to read, hash, and
+   * compress and write its content. The default implementation doesn't measure time and never calls the listener.
+   * @param listener The listener to tell about added entries
+   */
+  default void setEntryListener(ZipEntryListener listener) {
+    // Entries aren't measured
+  }
+
 }
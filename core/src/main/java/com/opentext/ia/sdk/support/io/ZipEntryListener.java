@@ -0,0 +1,19 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+/**
+ * Listener that is told about each entry that a {@linkplain ZipAssembler} added, and how long it took.
+ * @see ZipAssembler#setEntryListener(ZipEntryListener)
+ */
+@FunctionalInterface
+public interface ZipEntryListener {
+
+  /**
+   * Called when an entry was added to the ZIP.
+   * @param entry What was measured while adding the entry
+   */
+  void entryAdded(ZipEntryStatistics entry);
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+/**
+ * What a {@linkplain ZipAssembler} measured while it added an entry to a ZIP.
+ * @see ZipEntryListener
+ */
+public class ZipEntryStatistics {
+
+  private final String name;
+  private final long size;
+  private final long compressedSize;
+  private final long zipSize;
+  private final long readTime;
+  private final long hashTime;
+  private final long writeTime;
+
+  /**
+   * Create an instance.
+   * @param name The name of the entry
+   * @param size The uncompressed size of the entry's content
+   * @param compressedSize The size of the entry's compressed content
+   * @param zipSize The number of bytes the entry takes up in the ZIP
+   * @param readTime The time spent reading the content from its source, in nanoseconds
+   * @param hashTime The time spent computing the hashes of the content, in nanoseconds
+   * @param writeTime The time spent compressing the content and writing it to the ZIP, in nanoseconds
+   */
+  public ZipEntryStatistics(String name, long size, long compressedSize, long zipSize, long readTime, long hashTime,
+      long writeTime) {
+    this.name = name;
+    this.size = size;
+    this.compressedSize = compressedSize;
+    this.zipSize = zipSize;
+    this.readTime = readTime;
+    this.hashTime = hashTime;
+    this.writeTime = writeTime;
+  }
+
+  /**
+   * Returns the name of the entry.
+   * @return The name of the entry
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the uncompressed size of the entry's content.
+   * @return The uncompressed size in bytes
+   */
+  public long getSize() {
+    return size;
+  }
+
+  /**
+   * Returns the size of the entry's compressed content. This is the size to compute compression ratios from, since it
+   * doesn't include the entry's local header and data descriptor.
+   * @return The compressed size in bytes
+   */
+  public long getCompressedSize() {
+    return compressedSize;
+  }
+
+  /**
+   * Returns the number of bytes the entry takes up in the ZIP, including its local header and data descriptor.
+   * @return The size of the entry in the ZIP in bytes
+   */
+  public long getZipSize() {
+    return zipSize;
+  }
+
+  /**
+   * Returns the time spent reading the content from its source.
+   * @return The read time in nanoseconds
+   */
+  public long getReadTime() {
+    return readTime;
+  }
+
+  /**
+   * Returns the time spent computing the hashes of the content.
+   * @return The hash time in nanoseconds
+   */
+  public long getHashTime() {
+    return hashTime;
+  }
+
+  /**
+   * Returns the time spent compressing the content and writing it to the ZIP.
+   * @return The write time in nanoseconds
+   */
+  public long getWriteTime() {
+    return writeTime;
+  }
+
+  @Override
+  public String toString() {
+    return name + ": size=" + size + ", compressedSize=" + compressedSize + ", zipSize=" + zipSize + ", readTime="
+        + readTime + ", hashTime=" + hashTime + ", writeTime=" + writeTime;
+  }
+
+}
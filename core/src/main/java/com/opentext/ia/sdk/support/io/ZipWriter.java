@@ -0,0 +1,512 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+
+/**
+ * Writes the ZIP file format. Unlike {@linkplain java.util.zip.ZipOutputStream}, this writer also accepts entries whose
+ * content was compressed ahead of time, for instance on a different thread.
+ */
+@SuppressWarnings("PMD.TooManyMethods")
+final class ZipWriter implements Closeable {
+
+  private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+  private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+  private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+  private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+  private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+  private static final int END_SIGNATURE = 0x06054b50;
+  private static final int VERSION = 20;
+  private static final int VERSION_ZIP64 = 45;
+  private static final int FLAG_DATA_DESCRIPTOR = 0x08;
+  private static final int FLAG_UTF8 = 0x800;
+  private static final int ZIP64_EXTRA_ID = 0x0001;
+  private static final int ZIP64_EXTRA_HEADER_SIZE = 4;
+  private static final int LOCAL_ZIP64_EXTRA_SIZE = ZIP64_EXTRA_HEADER_SIZE + 16;
+  private static final int CENTRAL_ZIP64_EXTRA_MAX_SIZE = ZIP64_EXTRA_HEADER_SIZE + 24;
+  private static final int ZIP64_END_SIZE = 44;
+  private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+  private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+  private static final int HEADER_BUFFER_SIZE = 512;
+  private static final int DEFLATE_BUFFER_SIZE = 64 * 1024;
+
+  private final OutputStream output;
+  private final WritableByteChannel channel;
+  private final long time = dosTime(LocalDateTime.now());
+  private final ByteBuffer header = ByteBuffer.allocate(HEADER_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+  private final List<Entry> entries = new ArrayList<>();
+  private final Set<String> names = new HashSet<>();
+  private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+  private final byte[] deflated = new byte[DEFLATE_BUFFER_SIZE];
+  private final CRC32 crc = new CRC32();
+  private long written;
+  private Entry current;
+
+  ZipWriter(OutputStream output) {
+    this(output, null);
+  }
+
+  /**
+   * Create a writer that can transfer the content of stored entries directly to the given channel.
+   * @param output The stream to write the ZIP to
+   * @param channel The channel that the stream writes to eventually, or <code>null</code> if there is none
+   */
+  ZipWriter(OutputStream output, WritableByteChannel channel) {
+    this.output = output;
+    this.channel = channel;
+  }
+
+  /**
+   * Start a new entry whose content is compressed while it's written.
+   * @param name The name of the entry
+   * @param level The compression level to use
+   * @return The stream to write the uncompressed content of the entry to
+   * @throws IOException When an I/O error occurs
+   */
+  OutputStream openEntry(String name, int level) throws IOException {
+    closeEntry();
+    current = newEntry(name, ZipEntry.DEFLATED, FLAG_DATA_DESCRIPTOR);
+    writeLocalHeader(current);
+    crc.reset();
+    deflater.reset();
+    deflater.setLevel(level);
+    return new EntryOutputStream();
+  }
+
+  /**
+   * Finish the entry that was started by {@linkplain #openEntry(String, int)}, if any.
+   * @throws IOException When an I/O error occurs
+   */
+  void closeEntry() throws IOException {
+    if (current == null) {
+      return;
+    }
+    Entry entry = current;
+    current = null;
+    deflater.finish();
+    while (!deflater.finished()) {
+      deflate();
+    }
+    entry.crc = crc.getValue();
+    entry.size = deflater.getBytesRead();
+    entry.compressedSize = deflater.getBytesWritten();
+    writeDataDescriptor(entry);
+  }
+
+  private void deflate() throws IOException {
+    int length = deflater.deflate(deflated, 0, deflated.length);
+    if (length > 0) {
+      write(deflated, 0, length);
+    }
+  }
+
+  /**
+   * Start a new entry whose content is written as raw DEFLATE data that was compressed elsewhere. The entry is finished
+   * by {@linkplain CompressedEntryOutputStream#finish(long, long)}.
+   * @param name The name of the entry
+   * @return The stream to write the compressed content of the entry to
+   * @throws IOException When an I/O error occurs
+   */
+  CompressedEntryOutputStream openCompressedEntry(String name) throws IOException {
+    closeEntry();
+    Entry entry = newEntry(name, ZipEntry.DEFLATED, FLAG_DATA_DESCRIPTOR);
+    writeLocalHeader(entry);
+    return new CompressedEntryOutputStream(entry, written);
+  }
+
+  /**
+   * Add an entry whose content was compressed ahead of time.
+   * @param name The name of the entry
+   * @param content The compressed content of the entry
+   * @throws IOException When an I/O error occurs
+   */
+  void writeEntry(String name, CompressedContent content) throws IOException {
+    closeEntry();
+    Entry entry = newEntry(name, ZipEntry.DEFLATED, 0);
+    entry.crc = content.getCrc();
+    entry.size = content.getSize();
+    entry.compressedSize = content.getCompressedSize();
+    writeLocalHeader(entry);
+    try (InputStream in = content.openCompressed()) {
+      copy(in);
+    }
+  }
+
+  /**
+   * Add an entry that is stored without compression.
+   * @param name The name of the entry
+   * @param checksum The CRC-32 of the content
+   * @param size The size of the content
+   * @param content The content of the entry
+   * @throws IOException When an I/O error occurs
+   */
+  void writeStoredEntry(String name, long checksum, long size, InputStream content) throws IOException {
+    closeEntry();
+    Entry entry = newEntry(name, ZipEntry.STORED, 0);
+    entry.crc = checksum;
+    entry.size = size;
+    entry.compressedSize = size;
+    writeLocalHeader(entry);
+    long start = written;
+    copy(content);
+    if (written - start != size) {
+      throw new ZipException("Expected " + size + " bytes for entry " + name + " but got " + (written - start));
+    }
+  }
+
+  /**
+   * Add an entry that is stored without compression and whose content is a region of a file. When the writer has a
+   * channel, the content is transferred to it without copying it into memory.
+   * @param name The name of the entry
+   * @param checksum The CRC-32 of the content
+   * @param size The size of the content
+   * @param source The file that holds the content
+   * @param position The position of the content in the file
+   * @throws IOException When an I/O error occurs
+   */
+  void writeStoredEntry(String name, long checksum, long size, FileChannel source, long position) throws IOException {
+    closeEntry();
+    Entry entry = newEntry(name, ZipEntry.STORED, 0);
+    entry.crc = checksum;
+    entry.size = size;
+    entry.compressedSize = size;
+    writeLocalHeader(entry);
+    if (channel == null) {
+      copy(source, position, size);
+    } else {
+      output.flush();
+      transfer(source, position, size);
+    }
+  }
+
+  private void copy(FileChannel source, long position, long size) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(deflated);
+    long numCopied = 0;
+    while (numCopied < size) {
+      buffer.clear();
+      buffer.limit((int)Math.min(buffer.capacity(), size - numCopied));
+      int numRead = source.read(buffer, position + numCopied);
+      if (numRead < 0) {
+        throw new ZipException("Unexpected end of file after " + numCopied + " of " + size + " bytes");
+      }
+      write(deflated, 0, numRead);
+      numCopied += numRead;
+    }
+  }
+
+  private void transfer(FileChannel source, long position, long size) throws IOException {
+    long numTransferred = 0;
+    while (numTransferred < size) {
+      long count = source.transferTo(position + numTransferred, size - numTransferred, channel);
+      if (count <= 0) {
+        throw new ZipException("Unexpected end of file after " + numTransferred + " of " + size + " bytes");
+      }
+      numTransferred += count;
+    }
+    written += size;
+  }
+
+  private void copy(InputStream in) throws IOException {
+    byte[] buffer = deflated;
+    int numRead = in.read(buffer);
+    while (numRead >= 0) {
+      write(buffer, 0, numRead);
+      numRead = in.read(buffer);
+    }
+  }
+
+  private Entry newEntry(String name, int method, int flags) throws ZipException {
+    if (!names.add(name)) {
+      throw new ZipException("duplicate entry: " + name);
+    }
+    Entry result = new Entry(name, method, flags | FLAG_UTF8, written);
+    entries.add(result);
+    return result;
+  }
+
+  private void writeLocalHeader(Entry entry) throws IOException {
+    boolean zip64 = entry.size >= ZIP64_MAGIC || entry.compressedSize >= ZIP64_MAGIC;
+    header.clear();
+    header.putInt(LOCAL_HEADER_SIGNATURE);
+    header.putShort(version(zip64));
+    header.putShort((short)entry.flags);
+    header.putShort((short)entry.method);
+    header.putInt((int)time);
+    header.putInt((int)entry.crc);
+    header.putInt((int)sizeField(entry.compressedSize, zip64));
+    header.putInt((int)sizeField(entry.size, zip64));
+    header.putShort((short)entry.name.length);
+    header.putShort((short)(zip64 ? LOCAL_ZIP64_EXTRA_SIZE : 0));
+    writeHeader();
+    write(entry.name, 0, entry.name.length);
+    if (zip64) {
+      header.clear();
+      header.putShort((short)ZIP64_EXTRA_ID);
+      header.putShort((short)(LOCAL_ZIP64_EXTRA_SIZE - ZIP64_EXTRA_HEADER_SIZE));
+      header.putLong(entry.size);
+      header.putLong(entry.compressedSize);
+      writeHeader();
+    }
+  }
+
+  private static short version(boolean zip64) {
+    return (short)(zip64 ? VERSION_ZIP64 : VERSION);
+  }
+
+  private static long sizeField(long size, boolean zip64) {
+    return zip64 ? ZIP64_MAGIC : size;
+  }
+
+  private void writeDataDescriptor(Entry entry) throws IOException {
+    header.clear();
+    header.putInt(DATA_DESCRIPTOR_SIGNATURE);
+    header.putInt((int)entry.crc);
+    if (entry.size >= ZIP64_MAGIC || entry.compressedSize >= ZIP64_MAGIC) {
+      header.putLong(entry.compressedSize);
+      header.putLong(entry.size);
+    } else {
+      header.putInt((int)entry.compressedSize);
+      header.putInt((int)entry.size);
+    }
+    writeHeader();
+  }
+
+  /**
+   * Returns the number of bytes written to the ZIP so far. This doesn't include the central directory, which is written
+   * when the writer is {@linkplain #close() closed}.
+   * @return The number of bytes written
+   */
+  long size() {
+    return written;
+  }
+
+  /**
+   * Returns the size of the compressed content of the last entry that was finished. This doesn't include the entry's
+   * local header and data descriptor.
+   * @return The compressed size of the last entry
+   */
+  long lastCompressedSize() {
+    return entries.get(entries.size() - 1).compressedSize;
+  }
+
+  /**
+   * Write the central directory and close the underlying stream.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      closeEntry();
+      long centralDirectoryOffset = written;
+      for (Entry entry : entries) {
+        writeCentralHeader(entry);
+      }
+      writeEnd(centralDirectoryOffset, written - centralDirectoryOffset);
+    } finally {
+      deflater.end();
+      output.close();
+    }
+  }
+
+  private void writeCentralHeader(Entry entry) throws IOException {
+    byte[] extra = centralZip64Extra(entry);
+    header.clear();
+    header.putInt(CENTRAL_HEADER_SIGNATURE);
+    header.putShort(version(extra.length > 0));
+    header.putShort(version(extra.length > 0));
+    header.putShort((short)entry.flags);
+    header.putShort((short)entry.method);
+    header.putInt((int)time);
+    header.putInt((int)entry.crc);
+    header.putInt((int)Math.min(entry.compressedSize, ZIP64_MAGIC));
+    header.putInt((int)Math.min(entry.size, ZIP64_MAGIC));
+    header.putShort((short)entry.name.length);
+    header.putShort((short)extra.length);
+    header.putShort((short)0); // Comment length
+    header.putShort((short)0); // Disk number
+    header.putShort((short)0); // Internal attributes
+    header.putInt(0); // External attributes
+    header.putInt((int)Math.min(entry.offset, ZIP64_MAGIC));
+    writeHeader();
+    write(entry.name, 0, entry.name.length);
+    write(extra, 0, extra.length);
+  }
+
+  private static byte[] centralZip64Extra(Entry entry) {
+    ByteBuffer result = ByteBuffer.allocate(CENTRAL_ZIP64_EXTRA_MAX_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    result.putShort((short)ZIP64_EXTRA_ID);
+    result.putShort((short)0);
+    putIfLarge(entry.size, result);
+    putIfLarge(entry.compressedSize, result);
+    putIfLarge(entry.offset, result);
+    if (result.position() == ZIP64_EXTRA_HEADER_SIZE) {
+      return new byte[0];
+    }
+    result.putShort(2, (short)(result.position() - ZIP64_EXTRA_HEADER_SIZE));
+    return Arrays.copyOf(result.array(), result.position());
+  }
+
+  private static void putIfLarge(long value, ByteBuffer buffer) {
+    if (value >= ZIP64_MAGIC) {
+      buffer.putLong(value);
+    }
+  }
+
+  private void writeEnd(long centralDirectoryOffset, long centralDirectorySize) throws IOException {
+    int count = entries.size();
+    if (count >= ZIP64_MAGIC_COUNT || centralDirectoryOffset >= ZIP64_MAGIC || centralDirectorySize >= ZIP64_MAGIC) {
+      long zip64EndOffset = written;
+      header.clear();
+      header.putInt(ZIP64_END_SIGNATURE);
+      header.putLong(ZIP64_END_SIZE);
+      header.putShort((short)VERSION_ZIP64);
+      header.putShort((short)VERSION_ZIP64);
+      header.putInt(0); // Number of this disk
+      header.putInt(0); // Disk where central directory starts
+      header.putLong(count);
+      header.putLong(count);
+      header.putLong(centralDirectorySize);
+      header.putLong(centralDirectoryOffset);
+      header.putInt(ZIP64_LOCATOR_SIGNATURE);
+      header.putInt(0); // Disk with the ZIP64 end of central directory record
+      header.putLong(zip64EndOffset);
+      header.putInt(1); // Total number of disks
+      writeHeader();
+    }
+    header.clear();
+    header.putInt(END_SIGNATURE);
+    header.putShort((short)0); // Number of this disk
+    header.putShort((short)0); // Disk where central directory starts
+    header.putShort((short)Math.min(count, ZIP64_MAGIC_COUNT));
+    header.putShort((short)Math.min(count, ZIP64_MAGIC_COUNT));
+    header.putInt((int)Math.min(centralDirectorySize, ZIP64_MAGIC));
+    header.putInt((int)Math.min(centralDirectoryOffset, ZIP64_MAGIC));
+    header.putShort((short)0); // Comment length
+    writeHeader();
+  }
+
+  private void writeHeader() throws IOException {
+    write(header.array(), 0, header.position());
+  }
+
+  private void write(byte[] buffer, int offset, int length) throws IOException {
+    output.write(buffer, offset, length);
+    written += length;
+  }
+
+  private static long dosTime(LocalDateTime time) {
+    if (time.getYear() < 1980) {
+      return (1 << 21) | (1 << 16);
+    }
+    return (long)(time.getYear() - 1980) << 25 | time.getMonthValue() << 21 | time.getDayOfMonth() << 16
+        | time.getHour() << 11 | time.getMinute() << 5 | time.getSecond() >> 1;
+  }
+
+
+  private static class Entry {
+
+    private final byte[] name;
+    private final int method;
+    private final int flags;
+    private final long offset;
+    private long crc;
+    private long size;
+    private long compressedSize;
+
+    Entry(String name, int method, int flags, long offset) {
+      this.name = name.getBytes(StandardCharsets.UTF_8);
+      this.method = method;
+      this.flags = flags;
+      this.offset = offset;
+    }
+
+  }
+
+
+  private class EntryOutputStream extends OutputStream {
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] { (byte)b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+      if (length == 0) {
+        return;
+      }
+      crc.update(buffer, offset, length);
+      deflater.setInput(buffer, offset, length);
+      while (!deflater.needsInput()) {
+        deflate();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      closeEntry();
+    }
+
+  }
+
+
+  /**
+   * Stream for the compressed content of an entry that was {@linkplain ZipWriter#openCompressedEntry(String) opened}
+   * without a compressor.
+   */
+  class CompressedEntryOutputStream extends OutputStream {
+
+    private final Entry entry;
+    private final long start;
+
+    CompressedEntryOutputStream(Entry entry, long start) {
+      this.entry = entry;
+      this.start = start;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] { (byte)b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+      ZipWriter.this.write(buffer, offset, length);
+    }
+
+    /**
+     * Finish the entry.
+     * @param checksum The CRC-32 of the uncompressed content
+     * @param size The size of the uncompressed content
+     * @throws IOException When an I/O error occurs
+     */
+    void finish(long checksum, long size) throws IOException {
+      entry.crc = checksum;
+      entry.size = size;
+      entry.compressedSize = written - start;
+      writeDataDescriptor(entry);
+    }
+
+  }
+
+}
@@ -0,0 +1,404 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.xml;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.opentext.ia.sdk.support.io.RuntimeIoException;
+
+
+/**
+ * Fluent API for building XML documents by writing them as UTF-8 bytes to an {@linkplain OutputStream}.
+ * <p>
+ * Prints the same XML as {@linkplain PrintingXmlBuilder}, but encodes and escapes text itself into an internal buffer,
+ * so that building elements doesn't allocate memory. The buffer is written to the stream when it's full, when the
+ * builder is {@linkplain #flush() flushed}, and when the document is {@linkplain #build() built}. After that, the
+ * builder can be used to build the next document (fragment) to the same stream. To build many small documents to the
+ * same stream, {@linkplain #endDocument() end} each of them instead, so that they are written to the stream together.
+ * <p>
+ * A {@linkplain #compact(OutputStream) compact} builder leaves out indentation and line breaks.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class StreamingXmlBuilder implements XmlBuilder<Void> {
+
+  private static final int BUFFER_SIZE = 8 * 1024;
+  private static final int MAX_BYTES_PER_CHAR = 6;
+  private static final byte[] NEW_LINE = bytesOf(System.lineSeparator());
+  private static final byte[] END_TAG = bytesOf("</");
+  private static final byte[] XMLNS = bytesOf(" xmlns=\"");
+  private static final byte[] XMLNS_PREFIX = bytesOf("xmlns:");
+  private static final byte[] ATTRIBUTE_VALUE = bytesOf("=\"");
+  private static final byte[][] ESCAPES = escapes();
+
+  private final OutputStream output;
+  private final byte[] indent;
+  private final boolean compact;
+  private final List<Element> elements = new ArrayList<>();
+  private final byte[] buffer = new byte[BUFFER_SIZE];
+  private int count;
+  private char[] chars = new char[256];
+  private byte[] indentation;
+  private int depth;
+  private String namespaceUri;
+  private int prefixIndex = 1;
+
+  public StreamingXmlBuilder(OutputStream output) {
+    this(output, "");
+  }
+
+  public StreamingXmlBuilder(OutputStream output, String indent) {
+    this(output, indent, false);
+  }
+
+  private StreamingXmlBuilder(OutputStream output, String indent, boolean compact) {
+    this.output = output;
+    this.indent = bytesOf(indent);
+    this.compact = compact;
+    this.indentation = indentation(this.indent, 8);
+  }
+
+  /**
+   * Start building XML documents without indentation and line breaks.
+   * @param output The stream to write the XML documents to
+   * @return A builder for an empty document
+   */
+  public static StreamingXmlBuilder compact(OutputStream output) {
+    return new StreamingXmlBuilder(output, "", true);
+  }
+
+  private static byte[] bytesOf(String text) {
+    return text.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static byte[][] escapes() {
+    byte[][] result = new byte[128][];
+    result['&'] = bytesOf("&amp;");
+    result['<'] = bytesOf("&lt;");
+    result['>'] = bytesOf("&gt;");
+    result['\''] = bytesOf("&apos;");
+    result['"'] = bytesOf("&quot;");
+    return result;
+  }
+
+  private static byte[] indentation(byte[] indent, int maxDepth) {
+    byte[] result = Arrays.copyOf(indent, indent.length + 2 * maxDepth);
+    Arrays.fill(result, indent.length, result.length, (byte)' ');
+    return result;
+  }
+
+  @Override
+  public XmlBuilder<Void> namespace(String uri) {
+    this.namespaceUri = uri;
+    return this;
+  }
+
+  @Override
+  public XmlBuilder<Void> element(String name) {
+    Element parent = currentElement();
+    if (parent != null) {
+      close(parent, ElementContent.ELEMENT);
+    }
+    printIndentation();
+    print('<');
+    print(name, false);
+    if (namespaceUri != null && (parent == null || !namespaceUri.equals(parent.namespace))) {
+      print(XMLNS);
+      print(namespaceUri, false);
+      print('"');
+    }
+    if (depth == elements.size()) {
+      elements.add(new Element());
+    }
+    elements.get(depth++).open(namespaceUri, name);
+    namespaceUri = null;
+    return this;
+  }
+
+  private Element currentElement() {
+    return depth == 0 ? null : elements.get(depth - 1);
+  }
+
+  private Element requireCurrentElement() {
+    if (depth == 0) {
+      throw new IllegalStateException("No current element");
+    }
+    return elements.get(depth - 1);
+  }
+
+  private void close(Element element, ElementContent followedBy) {
+    boolean wasHanging = element.hanging;
+    element.hanging = false;
+    if (wasHanging && followedBy != ElementContent.EMPTY) {
+      printNewLine();
+    }
+    if (element.open) {
+      element.open = false;
+      print(followedBy.text);
+      if (followedBy.needsNewLine) {
+        printNewLine();
+      }
+    } else if (followedBy == ElementContent.EMPTY) {
+      if (!wasHanging) {
+        printIndentation();
+      }
+      print(END_TAG);
+      print(element.name, false);
+      print('>');
+      printNewLine();
+    }
+  }
+
+  private void printIndentation() {
+    if (compact) {
+      return;
+    }
+    int length = indent.length + 2 * depth;
+    if (length > indentation.length) {
+      indentation = indentation(indent, 2 * depth);
+    }
+    print(indentation, length);
+  }
+
+  private void printNewLine() {
+    if (!compact) {
+      print(NEW_LINE);
+    }
+  }
+
+  @Override
+  public XmlBuilder<Void> end() {
+    Element element = requireCurrentElement();
+    depth--;
+    close(element, ElementContent.EMPTY);
+    element.clear();
+    return this;
+  }
+
+  @Override
+  public XmlBuilder<Void> attribute(String name, String value, String namespace) {
+    print(' ');
+    if (namespace != null) {
+      String prefix = namespaceToPrefix(namespace);
+      print(prefix, false);
+      print(':');
+    }
+    print(name, false);
+    print(ATTRIBUTE_VALUE);
+    print(value, true);
+    print('"');
+    return this;
+  }
+
+  private String namespaceToPrefix(String namespace) {
+    Element current = requireCurrentElement();
+    String result = prefixFor(namespace);
+    if (result == null) {
+      result = "ns" + prefixIndex++;
+      print(XMLNS_PREFIX);
+      print(result, false);
+      print(ATTRIBUTE_VALUE);
+      print(namespace, false);
+      print('"');
+      print(' ');
+      current.setPrefix(namespace, result);
+    }
+    return result;
+  }
+
+  private String prefixFor(String namespace) {
+    for (int i = depth - 1; i >= 0; i--) {
+      String result = elements.get(i).prefixFor(namespace);
+      if (result != null) {
+        return result;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public XmlBuilder<Void> text(String text) {
+    Element element = requireCurrentElement();
+    close(element, ElementContent.TEXT);
+    print(text, true);
+    element.hanging = true;
+    return this;
+  }
+
+  /**
+   * End all open elements and write the XML document to the stream. The builder can then be used to build another
+   * document to the same stream.
+   * @return <code>null</code>
+   */
+  @Override
+  public Void build() {
+    endDocument();
+    flush();
+    return null;
+  }
+
+  /**
+   * End all open elements, so that the builder can be used to build another document to the same stream. Unlike
+   * {@linkplain #build()}, this leaves the document in the buffer until the buffer is full or
+   * {@linkplain #flush() flushed}.
+   */
+  public void endDocument() {
+    while (depth > 0) {
+      end();
+    }
+    namespaceUri = null;
+    prefixIndex = 1;
+  }
+
+  /**
+   * Write what is in the buffer to the stream. The stream itself isn't flushed.
+   */
+  public void flush() {
+    try {
+      writeBuffer();
+    } catch (IOException e) {
+      throw new RuntimeIoException(e);
+    }
+  }
+
+  private void writeBuffer() throws IOException {
+    if (count > 0) {
+      output.write(buffer, 0, count);
+      count = 0;
+    }
+  }
+
+  private void ensureCapacity(int numBytes) {
+    if (count + numBytes > buffer.length) {
+      try {
+        writeBuffer();
+      } catch (IOException e) {
+        throw new RuntimeIoException(e);
+      }
+    }
+  }
+
+  private void print(char c) {
+    ensureCapacity(1);
+    buffer[count++] = (byte)c;
+  }
+
+  private void print(byte[] bytes) {
+    print(bytes, bytes.length);
+  }
+
+  private void print(byte[] bytes, int length) {
+    int offset = 0;
+    while (offset < length) {
+      ensureCapacity(1);
+      int n = Math.min(length - offset, buffer.length - count);
+      System.arraycopy(bytes, offset, buffer, count, n);
+      count += n;
+      offset += n;
+    }
+  }
+
+  private void print(String text, boolean escape) {
+    int length = text.length();
+    if (length > chars.length) {
+      chars = new char[Math.max(length, 2 * chars.length)];
+    }
+    text.getChars(0, length, chars, 0);
+    int i = 0;
+    while (i < length) {
+      ensureCapacity(MAX_BYTES_PER_CHAR);
+      char c = chars[i++];
+      if (c >= 0x80) {
+        i = encode(c, i, length);
+      } else if (escape && ESCAPES[c] != null) {
+        byte[] escaped = ESCAPES[c];
+        System.arraycopy(escaped, 0, buffer, count, escaped.length);
+        count += escaped.length;
+      } else {
+        buffer[count++] = (byte)c;
+      }
+    }
+  }
+
+  private int encode(char c, int next, int length) {
+    int result = next;
+    if (c < 0x800) {
+      buffer[count++] = (byte)(0xC0 | c >> 6);
+      buffer[count++] = (byte)(0x80 | c & 0x3F);
+    } else if (Character.isHighSurrogate(c) && next < length && Character.isLowSurrogate(chars[next])) {
+      int codePoint = Character.toCodePoint(c, chars[next]);
+      result++;
+      buffer[count++] = (byte)(0xF0 | codePoint >> 18);
+      buffer[count++] = (byte)(0x80 | codePoint >> 12 & 0x3F);
+      buffer[count++] = (byte)(0x80 | codePoint >> 6 & 0x3F);
+      buffer[count++] = (byte)(0x80 | codePoint & 0x3F);
+    } else if (Character.isSurrogate(c)) {
+      // Unpaired surrogates can't be encoded, so replace them like an OutputStreamWriter does
+      buffer[count++] = (byte)'?';
+    } else {
+      buffer[count++] = (byte)(0xE0 | c >> 12);
+      buffer[count++] = (byte)(0x80 | c >> 6 & 0x3F);
+      buffer[count++] = (byte)(0x80 | c & 0x3F);
+    }
+    return result;
+  }
+
+  enum ElementContent {
+    EMPTY("/>", true), TEXT(">", false), ELEMENT(">", true);
+
+    private final byte[] text;
+    private final boolean needsNewLine;
+
+    ElementContent(String text, boolean needsNewLine) {
+      this.text = bytesOf(text);
+      this.needsNewLine = needsNewLine;
+    }
+
+  }
+
+
+  static class Element {
+
+    private Map<String, String> prefixesByNamespace;
+    private String name;
+    private String namespace;
+    private boolean open;
+    private boolean hanging;
+
+    void open(String uri, String tag) {
+      this.namespace = uri;
+      this.name = tag;
+      this.open = true;
+      this.hanging = false;
+    }
+
+    void setPrefix(String uri, String prefix) {
+      if (prefixesByNamespace == null) {
+        prefixesByNamespace = new HashMap<>();
+      }
+      prefixesByNamespace.put(uri, prefix);
+    }
+
+    String prefixFor(String uri) {
+      return prefixesByNamespace == null ? null : prefixesByNamespace.get(uri);
+    }
+
+    void clear() {
+      name = null;
+      namespace = null;
+      if (prefixesByNamespace != null) {
+        prefixesByNamespace.clear();
+      }
+    }
+
+  }
+
+}
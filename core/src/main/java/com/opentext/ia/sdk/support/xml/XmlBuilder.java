@@ -3,6 +3,7 @@
  */
 package com.opentext.ia.sdk.support.xml;
 
+import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.net.URI;
 import java.util.Iterator;
@@ -59,6 +60,15 @@ public interface XmlBuilder<T> {
   return new PrintingXmlBuilder(writer, indent);
   }
 
+  /**
+   * Start building an XML document as UTF-8 encoded text.
+   * @param output The stream to write the XML document to
+   * @return A builder for an empty document
+   */
+  static XmlBuilder<Void> newDocument(OutputStream output) {
+    return new StreamingXmlBuilder(output);
+  }
+
   /**
    * Return the XML document that was built.
    * @return The XML document that was built
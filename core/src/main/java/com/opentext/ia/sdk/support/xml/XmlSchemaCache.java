@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.xml;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.validation.ValidationException;
+import javax.xml.XMLConstants;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.xml.sax.SAXException;
+
+
+/**
+ * Cache of compiled XML Schemas. Compiling a schema is expensive, while a compiled {@linkplain Schema} is immutable and
+ * can be used by any number of threads to create validators, so each distinct schema is compiled only once per JVM.
+ * Schemas are identified by the SHA-256 hash of their bytes.
+ */
+public final class XmlSchemaCache {
+
+  private static final ConcurrentMap<String, Schema> SCHEMAS = new ConcurrentHashMap<>();
+
+  private XmlSchemaCache() {
+    // Utility class
+  }
+
+  /**
+   * Returns the compiled version of an XML Schema.
+   * @param xmlSchema The XML Schema to compile, which is closed after reading it
+   * @return The compiled XML Schema
+   * @throws ValidationException When the XML Schema is invalid
+   */
+  @SuppressWarnings("PMD.AvoidCatchingNPE") // Want better error message
+  public static Schema get(InputStream xmlSchema) {
+    byte[] bytes;
+    try {
+      bytes = IOUtils.toByteArray(xmlSchema);
+    } catch (IOException | NullPointerException e) {
+      throw new ValidationException("Invalid XML Schema", e);
+    } finally {
+      IOUtils.closeQuietly(xmlSchema);
+    }
+    return SCHEMAS.computeIfAbsent(DigestUtils.sha256Hex(bytes), ignored -> compile(bytes));
+  }
+
+  private static Schema compile(byte[] xmlSchema) {
+    try {
+      return SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI)
+        .newSchema(new StreamSource(new ByteArrayInputStream(xmlSchema)));
+    } catch (SAXException e) {
+      throw new ValidationException("Invalid XML Schema", e);
+    }
+  }
+
+  /**
+   * Returns the number of compiled XML Schemas in the cache.
+   * @return The number of compiled XML Schemas in the cache
+   */
+  public static int size() {
+    return SCHEMAS.size();
+  }
+
+}
@@ -13,15 +13,12 @@ import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import javax.validation.ValidationException;
-import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.stream.StreamSource;
-import javax.xml.validation.SchemaFactory;
 import javax.xml.validation.Validator;
 
-import org.apache.commons.io.IOUtils;
 import org.w3c.dom.*;
 import org.xml.sax.ErrorHandler;
 import org.xml.sax.SAXException;
@@ -451,17 +448,14 @@ public final class XmlUtil {
     }
   }
 
-  @SuppressWarnings("PMD.AvoidCatchingNPE") // Want better error message
+  /**
+   * Create a validator for an XML Schema. The schema is compiled only once, see {@linkplain XmlSchemaCache}.
+   * @param xmlSchema The XML Schema to validate against, which is closed after reading it
+   * @return A validator for the XML Schema
+   */
   public static Validator newXmlSchemaValidator(InputStream xmlSchema) {
-    try {
-      return SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI)
-        .newSchema(new StreamSource(xmlSchema))
-        .newValidator();
-    } catch (SAXException | NullPointerException e) {
-      throw new ValidationException("Invalid XML Schema", e);
-    } finally {
-      IOUtils.closeQuietly(xmlSchema);
-    }
+    return XmlSchemaCache.get(xmlSchema)
+      .newValidator();
   }
 
   private static final class DefaultErrorHandler implements ErrorHandler {
@@ -9,7 +9,11 @@ import static org.mockito.Mockito.*;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -208,4 +212,86 @@ public class WhenAssemblingSips extends XmlTestCase {
     assertEquals(SipMetrics.SIZE_PDI.toString(), pdiSize, metrics.pdiSize());
   }
 
+  @Test
+  public void shouldReportStageTimesAndLatenciesToListeners() throws IOException {
+    Assembler<HashedContents<Object>> pdiAssembler = mock(Assembler.class);
+    SipAssembler<Object> sipAssembler = SipAssembler.forPdiAndContentWithHashing(somePackagingInformation(),
+        pdiAssembler, new NoHashAssembler(),
+        domainObject -> Collections.singletonList(someContentDataObject(randomString(8)))
+          .iterator(),
+        new SingleHashAssembler());
+    SipAssemblyListener listener = mock(SipAssemblyListener.class);
+    sipAssembler.addListener(listener);
+
+    sipAssembler.start(new MemoryBuffer());
+    sipAssembler.add(new Object());
+    sipAssembler.add(new Object());
+    sipAssembler.end();
+
+    SipMetrics metrics = sipAssembler.getMetrics();
+    assertTrue(SipMetrics.TIME_CONTENT, metrics.contentTime() > 0);
+    assertTrue(SipMetrics.TIME_READ, metrics.readTime() > 0);
+    assertTrue(SipMetrics.TIME_HASH, metrics.hashTime() > 0);
+    assertTrue(SipMetrics.TIME_WRITE, metrics.writeTime() > 0);
+    assertTrue(SipMetrics.TIME_PDI, metrics.pdiTime() > 0);
+    assertEquals("# AIU latencies", 2, metrics.aiuLatencies()
+      .getCount());
+    verify(listener).sipStarted();
+    verify(listener, times(2)).aiuAdded(anyLong());
+    verify(listener, times(2)).digitalObjectAdded(anyString(), anyLong(), anyLong(), anyLong(), anyLong());
+    verify(listener).sipEnded(any(SipMetrics.class));
+  }
+
+  @Test
+  public void shouldStopValidatingPdiWhenAddingDomainObjectFails() throws Exception {
+    CountDownLatch validated = new CountDownLatch(1);
+    PrintWriterAssembler<HashedContents<Object>> pdiAssembler = new PrintWriterAssembler<HashedContents<Object>>(
+        stream -> {
+          try {
+            IOUtils.toByteArray(stream);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+          validated.countDown();
+        }) {
+      @Override
+      protected void start(PrintWriter writer) {
+        writer.println(randomString());
+      }
+
+      @Override
+      protected void add(HashedContents<Object> domainObject, PrintWriter writer) {
+        writer.println(randomString());
+      }
+
+      @Override
+      protected void end(PrintWriter writer) {
+        writer.println(randomString());
+      }
+    };
+    IOException error = new IOException(randomString());
+    DigitalObjectsExtraction<Object> failingExtraction = domainObject -> {
+      throw new RuntimeIoException(error);
+    };
+    SipAssembler<Object> sipAssembler = SipAssembler.forPdiAndContent(somePackagingInformation(), pdiAssembler,
+        failingExtraction);
+    sipAssembler.start(new MemoryBuffer());
+
+    try {
+      sipAssembler.add(new Object());
+      fail("Missing exception");
+    } catch (RuntimeIoException e) {
+      assertSame("Exception", error, e.getCause());
+    }
+
+    assertTrue("Validator still waiting for PDI", validated.await(5, TimeUnit.SECONDS));
+    try {
+      sipAssembler.end();
+      fail("Ended aborted SIP");
+    } catch (IOException e) {
+      assertSame("Cause", error, e.getCause()
+        .getCause());
+    }
+  }
+
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Element;
+
+import com.opentext.ia.sdk.support.io.FileSupplier;
+import com.opentext.ia.sdk.support.xml.XmlUtil;
+import com.opentext.ia.test.TestCase;
+
+
+@SuppressWarnings("unchecked")
+public class WhenAssemblingSipsInParallelBatches extends TestCase {
+
+  private static final int NUM_LANES = 3;
+  private static final int NUM_THREADS = 4;
+  private static final int NUM_DOMAIN_OBJECTS = 50;
+  private static final int MAX_AIUS = 4;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  private final PackagingInformationFactory factory =
+      new DefaultPackagingInformationFactory(somePackagingInformation());
+
+  private PackagingInformation somePackagingInformation() {
+    return PackagingInformation.builder()
+      .dss()
+      .holding(randomString(64))
+      .schema(randomString(64))
+      .entity(randomString(64))
+      .producer(randomString(64))
+      .end()
+      .build();
+  }
+
+  @Test
+  public void shouldNumberSipsSequentiallyAndMarkOnlyTheLastAsFinal() throws Exception {
+    ParallelBatchSipAssembler<String> batcher = new ParallelBatchSipAssembler<>(
+        () -> SipAssembler.forPdi(factory, (Assembler<HashedContents<String>>)mock(Assembler.class)), NUM_LANES,
+        SipSegmentationStrategy.byMaxAius(MAX_AIUS), FileSupplier.fromDirectory(folder.getRoot(), "sip", ".zip"));
+
+    ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+    try {
+      Collection<Future<?>> tasks = new ArrayList<>();
+      for (int i = 0; i < NUM_DOMAIN_OBJECTS; i++) {
+        tasks.add(executor.submit(() -> {
+          batcher.add(randomString());
+          return null;
+        }));
+      }
+      for (Future<?> task : tasks) {
+        task.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    batcher.end();
+
+    Collection<FileGenerationMetrics> sips = batcher.getSipsMetrics();
+    List<Integer> sequenceNumbers = new ArrayList<>();
+    int numAius = 0;
+    int lastSequenceNumber = -1;
+    for (FileGenerationMetrics sip : sips) {
+      Element packagingInformation = packagingInformationOf(sip);
+      int sequenceNumber = Integer.parseInt(textOf(packagingInformation, "seqno"));
+      sequenceNumbers.add(sequenceNumber);
+      if (Boolean.parseBoolean(textOf(packagingInformation, "is_last"))) {
+        assertEquals("Multiple final SIPs", -1, lastSequenceNumber);
+        lastSequenceNumber = sequenceNumber;
+      }
+      numAius += Integer.parseInt(textOf(packagingInformation, "aiu_count"));
+    }
+    assertEquals("# AIUs", NUM_DOMAIN_OBJECTS, numAius);
+    assertEquals("Final SIP", sips.size(), lastSequenceNumber);
+    sequenceNumbers.sort(Integer::compare);
+    for (int i = 0; i < sequenceNumbers.size(); i++) {
+      assertEquals("Sequence number", i + 1, sequenceNumbers.get(i).intValue());
+    }
+  }
+
+  private Element packagingInformationOf(FileGenerationMetrics sip) throws IOException {
+    try (ZipFile zip = new ZipFile(sip.getFile())) {
+      ZipEntry entry = zip.getEntry("eas_sip.xml");
+      assertNotNull("Missing packaging information", entry);
+      return XmlUtil.parse(zip.getInputStream(entry))
+        .getDocumentElement();
+    }
+  }
+
+  private String textOf(Element packagingInformation, String name) {
+    return XmlUtil.getFirstChildElement(packagingInformation, name)
+      .getTextContent();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRequireSharedPackagingInformationFactory() {
+    new ParallelBatchSipAssembler<String>(() -> SipAssembler.forPdi(somePackagingInformation(),
+        (Assembler<HashedContents<String>>)mock(Assembler.class)), NUM_LANES,
+        SipSegmentationStrategy.byMaxAius(MAX_AIUS));
+  }
+
+}
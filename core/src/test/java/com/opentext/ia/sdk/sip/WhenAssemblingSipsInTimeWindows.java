@@ -54,10 +54,16 @@ public class WhenAssemblingSipsInTimeWindows extends TestCase {
 
   @Test
   public void shouldResetTimerWhenObjectAdded() throws IOException {
+    long addTime = maxTime / 2;
+    when(clock.time()).thenReturn(addTime);
     batchAssembler.add(randomString());
+    when(clock.time()).thenReturn(maxTime);
 
-    verify(clock).cancel(taskName);
-    verify(clock, times(2)).schedule(taskName, maxTime, TimeUnit.MILLISECONDS, alarm);
+    alarm.run();
+
+    verify(clock, never()).cancel(taskName);
+    verify(clock).schedule(taskName, addTime, TimeUnit.MILLISECONDS, alarm);
+    verify(callback, never()).accept(any(FileGenerationMetrics.class));
   }
 
   @Test
@@ -84,6 +90,7 @@ public class WhenAssemblingSipsInTimeWindows extends TestCase {
   @Test
   public void shouldCallBackAfterTimePassedWhenSipIsNonEmpty() throws IOException {
     batchAssembler.add(randomString());
+    when(clock.time()).thenReturn(maxTime);
 
     alarm.run();
 
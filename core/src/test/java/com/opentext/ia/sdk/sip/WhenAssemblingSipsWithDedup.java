@@ -5,15 +5,26 @@ package com.opentext.ia.sdk.sip;
 
 import static java.util.Objects.requireNonNull;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.util.*;
 import java.util.stream.Collectors;
 
+import org.apache.commons.io.IOUtils;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import com.opentext.ia.sdk.support.io.DataBuffer;
+import com.opentext.ia.sdk.support.io.EncodedHash;
+import com.opentext.ia.sdk.support.io.HashAssembler;
+import com.opentext.ia.sdk.support.io.HybridBuffer;
 import com.opentext.ia.sdk.support.io.MemoryBuffer;
 import com.opentext.ia.sdk.support.io.SingleHashAssembler;
 import com.opentext.ia.sdk.support.test.validation.SipFileValidator;
@@ -37,6 +48,8 @@ public class WhenAssemblingSipsWithDedup extends XmlTestCase {
   private List<TestObject> domainObjects;
   private Map<String, String> contentIdToResourceName;
   private DataBuffer buffer;
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
 
   static class TestObject {
 
@@ -223,4 +236,52 @@ public class WhenAssemblingSipsWithDedup extends XmlTestCase {
       .assertContentFileIdenticalTo(OBJECT_ID_2, CONTENT_2)
       .assertContentFileIdenticalTo(OBJECT_ID_4, CONTENT_4);
   }
+
+  @Test
+  public void withDedupOnHashShouldStageLargeContentOutsideOfMemory() throws IOException {
+    domainObjects = objects(OBJECT_ID_1, OBJECT_ID_2, OBJECT_ID_3);
+    contentIdToResourceName.put(OBJECT_ID_3, CONTENT_1);
+    List<File> stagingFiles = new ArrayList<>();
+
+    sip(new ContentAssemblerWithDedupOnHash<>(contentsExtraction, new SingleHashAssembler(), 3,
+        new HybridBuffer(1, null, stagingFiles::add))).assertFileCount(2 + 2)
+          .assertPackagingInformation(3)
+          .assertContentFileIdenticalTo(OBJECT_ID_1, CONTENT_1)
+          .assertContentFileIdenticalTo(OBJECT_ID_2, CONTENT_2);
+    assertEquals("# staged objects", 3, stagingFiles.size());
+    assertTrue("Staging files not deleted", stagingFiles.stream()
+      .noneMatch(File::exists));
+  }
+
+  @Test
+  public void withDedupOnHashAndIndexShouldIncludeOnlyContentNotArchivedBefore() throws IOException {
+    File indexFile = temporaryFolder.newFile();
+    try (ContentIndex index = new PersistentContentIndex(indexFile)) {
+      domainObjects = objects(OBJECT_ID_1, OBJECT_ID_2);
+      sip(ContentAssembler.withDedupOnHash(contentsExtraction, new SingleHashAssembler(), index))
+        .assertFileCount(2 + 2);
+    }
+
+    try (ContentIndex index = new PersistentContentIndex(indexFile)) {
+      domainObjects = objects(OBJECT_ID_3, OBJECT_ID_4);
+      contentIdToResourceName.put(OBJECT_ID_3, CONTENT_1);
+
+      sip(ContentAssembler.withDedupOnHash(contentsExtraction, new SingleHashAssembler(), index))
+        .assertFileCount(2 + 1)
+        .assertPackagingInformation(2)
+        .assertContentFileIdenticalTo(OBJECT_ID_4, CONTENT_4);
+      assertEquals("Reference information", OBJECT_ID_1, index.referenceInformationOf(hashOf(CONTENT_1)));
+    }
+  }
+
+  private Collection<EncodedHash> hashOf(String resource) throws IOException {
+    HashAssembler hashAssembler = new SingleHashAssembler();
+    hashAssembler.initialize();
+    try (InputStream stream = getClass().getResourceAsStream(resource)) {
+      byte[] content = IOUtils.toByteArray(stream);
+      hashAssembler.add(content, content.length);
+    }
+    return hashAssembler.get();
+  }
+
 }
@@ -3,19 +3,29 @@
  */
 package com.opentext.ia.sdk.sip;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
 import java.io.ByteArrayInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.xml.XMLConstants;
 
+import org.apache.commons.io.IOUtils;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import com.opentext.ia.sdk.support.io.DataBuffer;
 import com.opentext.ia.sdk.support.io.MemoryBuffer;
 import com.opentext.ia.sdk.support.xml.XmlBuilder;
 import com.opentext.ia.sdk.support.xml.XmlUtil;
@@ -24,6 +34,13 @@ import com.opentext.ia.test.TestCase;
 
 public class WhenAssemblingXmlPdis extends TestCase {
 
+  private static final String NAMESPACE = "urn:test";
+  private static final String SCHEMA = "<schema xmlns=\"http://www.w3.org/2001/XMLSchema\" targetNamespace=\""
+      + NAMESPACE + "\" elementFormDefault=\"qualified\"><element name=\"objects\"><complexType><sequence>"
+      + "<element name=\"object\" maxOccurs=\"unbounded\"><complexType><sequence>"
+      + "<element name=\"name\" type=\"int\"/></sequence></complexType></element>"
+      + "</sequence></complexType></element></schema>";
+
   @Rule
   public ExpectedException thrown = ExpectedException.none();
 
@@ -39,6 +56,144 @@ public class WhenAssemblingXmlPdis extends TestCase {
     pdiAssembler.end();
   }
 
+  @Test
+  public void shouldWriteDomainObjects() throws IOException {
+    String nl = System.lineSeparator();
+
+    assertEquals("PDI", XmlUtil.XML_DECLARATION + "<objects xmlns=\"" + NAMESPACE + "\">" + nl
+        + "  <object>" + nl
+        + "    <name>first</name>" + nl
+        + "  </object>" + nl
+        + "  <object>" + nl
+        + "    <name>second &amp; last</name>" + nl
+        + "  </object>" + nl
+        + "</objects>" + nl, assembleObjects(false));
+  }
+
+  private String assembleObjects(boolean compact) throws IOException {
+    MemoryBuffer buffer = new MemoryBuffer();
+    assemble(newAssembler(compact, null), buffer, "first", "second & last");
+    try (InputStream pdi = buffer.openForReading()) {
+      return IOUtils.toString(pdi, StandardCharsets.UTF_8);
+    }
+  }
+
+  private XmlPdiAssembler<String> newAssembler(boolean compact, InputStream schema) {
+    XmlPdiAssembler<String> result = new XmlPdiAssembler<String>(URI.create(NAMESPACE), "object", schema) {
+      @Override
+      protected void doAdd(String domainObject, Map<String, ContentInfo> contentInfo) {
+        getBuilder().element("name", domainObject);
+      }
+    };
+    result.setCompact(compact);
+    return result;
+  }
+
+  private void assemble(XmlPdiAssembler<String> pdiAssembler, DataBuffer buffer, String... domainObjects)
+      throws IOException {
+    pdiAssembler.start(buffer);
+    for (String domainObject : domainObjects) {
+      pdiAssembler.add(new HashedContents<>(domainObject, Collections.emptyMap()));
+    }
+    pdiAssembler.end();
+  }
+
+  @Test
+  public void shouldWriteDomainObjectsCompactly() throws IOException {
+    String nl = System.lineSeparator();
+
+    assertEquals("PDI", XmlUtil.XML_DECLARATION + "<objects xmlns=\"" + NAMESPACE + "\">" + nl
+        + "<object><name>first</name></object><object><name>second &amp; last</name></object></objects>" + nl,
+        assembleObjects(true));
+  }
+
+  @Test
+  public void shouldNotWriteToBufferForEachDomainObject() throws IOException {
+    int numDomainObjects = randomInt(10, 20);
+    String[] domainObjects = new String[numDomainObjects];
+    for (int i = 0; i < numDomainObjects; i++) {
+      domainObjects[i] = randomString(8);
+    }
+    AtomicInteger numWrites = new AtomicInteger();
+    AtomicInteger numFlushes = new AtomicInteger();
+    DataBuffer buffer = new MemoryBuffer() {
+      @Override
+      public OutputStream openForWriting() throws IOException {
+        return new FilterOutputStream(super.openForWriting()) {
+          @Override
+          public void write(byte[] bytes, int offset, int length) throws IOException {
+            numWrites.incrementAndGet();
+            out.write(bytes, offset, length);
+          }
+
+          @Override
+          public void flush() throws IOException {
+            numFlushes.incrementAndGet();
+            super.flush();
+          }
+        };
+      }
+    };
+
+    assemble(newAssembler(false, null), buffer, domainObjects);
+
+    assertTrue("# writes", numWrites.get() < numDomainObjects);
+    assertTrue("# flushes", numFlushes.get() < numDomainObjects);
+  }
+
+  @Test
+  public void shouldReportDomainObjectThatMakesPdiInvalid() throws IOException {
+    assertInvalidDomainObject(false, 10);
+  }
+
+  private void assertInvalidDomainObject(boolean compact, int expectedLineNumber) throws IOException {
+    try {
+      assemble(newAssembler(compact, schema()), new MemoryBuffer(), "1", "2", "three", "4");
+      fail("Missing exception");
+    } catch (InvalidContentException e) {
+      assertEquals("Domain object index", 2, e.getDomainObjectIndex());
+      assertEquals("Line number", expectedLineNumber, e.getLineNumber());
+      assertTrue("Message should mention domain object: " + e.getMessage(),
+          e.getMessage().contains("in domain object 2"));
+    }
+  }
+
+  private InputStream schema() {
+    return new ByteArrayInputStream(SCHEMA.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void shouldReportDomainObjectThatMakesCompactPdiInvalid() throws IOException {
+    assertInvalidDomainObject(true, 3);
+  }
+
+  @Test
+  public void shouldStopAddingDomainObjectsOnceValidationFails() throws IOException {
+    XmlPdiAssembler<String> pdiAssembler = newAssembler(false, schema());
+    pdiAssembler.start(new MemoryBuffer());
+    pdiAssembler.add(new HashedContents<>("invalid", Collections.emptyMap()));
+    long deadline = System.currentTimeMillis() + 10000;
+    try {
+      while (System.currentTimeMillis() < deadline) {
+        pdiAssembler.add(new HashedContents<>("42", Collections.emptyMap()));
+      }
+      fail("Adding domain objects should fail after validation failed");
+    } catch (InvalidContentException e) {
+      assertEquals("Domain object index", 0, e.getDomainObjectIndex());
+    }
+  }
+
+  @Test
+  public void shouldReportValidationTimeInMetrics() throws IOException {
+    XmlPdiAssembler<String> pdiAssembler = newAssembler(false, schema());
+
+    assemble(pdiAssembler, new MemoryBuffer(), "1", "2");
+
+    Metrics metrics = pdiAssembler.getMetrics();
+    assertTrue("Validation metrics", metrics instanceof ValidationMetrics);
+    assertTrue("Validation time", ((ValidationMetrics)metrics).validationTime() > 0);
+  }
+
   private InputStream testSchema() {
     return new ByteArrayInputStream(XmlUtil.toString(XmlBuilder.newDocument()
         .namespace(XMLConstants.W3C_XML_SCHEMA_NS_URI)
@@ -8,8 +8,13 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
 
 import java.io.*;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.apache.commons.io.IOUtils;
 import org.junit.Rule;
@@ -90,4 +95,56 @@ public class WhenGeneratingFiles extends TestCase {
     assertEquals("Metric", count, ((TestMetrics)actual.getMetrics()).getFoo());
   }
 
+  @Test
+  public void shouldAssembleComponentsFromParallelStreamOneAtATime() throws IOException {
+    List<String> components = IntStream.range(0, 1000)
+      .mapToObj(Integer::toString)
+      .collect(Collectors.toList());
+    List<String> added = new ArrayList<>();
+    AtomicBoolean busy = new AtomicBoolean();
+    Assembler<String> wrapped = mock(Assembler.class);
+    doAnswer(invocation -> {
+      assertTrue("Concurrent calls to assembler", busy.compareAndSet(false, true));
+      added.add(invocation.getArgumentAt(0, String.class));
+      busy.set(false);
+      return null;
+    }).when(wrapped)
+      .add(any(String.class));
+
+    new FileGenerator<String>(wrapped).generate(components.parallelStream());
+
+    Collections.sort(added, (a, b) -> Integer.parseInt(a) - Integer.parseInt(b));
+    assertEquals("Components", components, added);
+    verify(wrapped).end();
+  }
+
+  @Test
+  public void shouldAssembleComponentsFromSpliterator() throws IOException {
+    Assembler<String> wrapped = mock(Assembler.class);
+    String content1 = randomString();
+    String content2 = randomString();
+
+    new FileGenerator<String>(wrapped).generate(Arrays.asList(content1, content2).spliterator());
+
+    verify(wrapped).add(content1);
+    verify(wrapped).add(content2);
+    verify(wrapped).end();
+  }
+
+  @Test
+  public void shouldRethrowIoExceptionFromStream() throws IOException {
+    Assembler<String> wrapped = mock(Assembler.class);
+    IOException error = new IOException(randomString());
+    doThrow(error).when(wrapped)
+      .add(any(String.class));
+
+    try {
+      new FileGenerator<String>(wrapped).generate(Arrays.asList(randomString()).stream());
+      fail("Missing exception");
+    } catch (IOException e) {
+      assertSame("Exception", error, e);
+    }
+    verify(wrapped).end();
+  }
+
 }
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.apache.commons.lang3.StringUtils;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.opentext.ia.sdk.support.io.EncodedHash;
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenIndexingContent extends TestCase {
+
+  private static final String MD5 = "MD5";
+  private static final String HEX = "hex";
+  private static final String SIZE = "Size";
+  private static final String REFERENCE_INFORMATION = "Reference information";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+  private File file;
+  private Collection<EncodedHash> hashes;
+  private String referenceInformation;
+
+  @Before
+  public void init() throws IOException {
+    file = temporaryFolder.newFile();
+    hashes = Arrays.asList(new EncodedHash("SHA-256", "base64", randomString()),
+        new EncodedHash(MD5, HEX, randomString()));
+    referenceInformation = randomString();
+  }
+
+  @Test
+  public void shouldFindContentOnlyAfterCommit() throws IOException {
+    try (PersistentContentIndex index = new PersistentContentIndex(file)) {
+      ContentIndexTransaction transaction = index.begin();
+      transaction.add(hashes, referenceInformation);
+      assertNull("Uncommitted content found", index.referenceInformationOf(hashes));
+
+      transaction.commit();
+
+      assertEquals(REFERENCE_INFORMATION, referenceInformation, index.referenceInformationOf(hashes));
+    }
+  }
+
+  @Test
+  public void shouldNotFindRolledBackContent() throws IOException {
+    try (PersistentContentIndex index = new PersistentContentIndex(file)) {
+      ContentIndexTransaction transaction = index.begin();
+      transaction.add(hashes, referenceInformation);
+      transaction.rollback();
+      transaction.commit();
+
+      assertNull("Rolled back content found", index.referenceInformationOf(hashes));
+      assertEquals(SIZE, 0, index.size());
+    }
+  }
+
+  @Test
+  public void shouldKeepContentOfTransactionsSeparate() throws IOException {
+    try (PersistentContentIndex index = new PersistentContentIndex(file)) {
+      ContentIndexTransaction committed = index.begin();
+      ContentIndexTransaction rolledBack = index.begin();
+      Collection<EncodedHash> otherHashes = Collections.singletonList(new EncodedHash(MD5, HEX, randomString()));
+      committed.add(hashes, referenceInformation);
+      rolledBack.add(otherHashes, randomString());
+
+      rolledBack.rollback();
+      committed.commit();
+
+      assertEquals(REFERENCE_INFORMATION, referenceInformation, index.referenceInformationOf(hashes));
+      assertNull("Rolled back content found", index.referenceInformationOf(otherHashes));
+      assertEquals(SIZE, 1, index.size());
+    }
+  }
+
+  @Test
+  public void shouldRememberCommittedContentAfterReopening() throws IOException {
+    try (PersistentContentIndex index = new PersistentContentIndex(file)) {
+      ContentIndexTransaction transaction = index.begin();
+      transaction.add(hashes, referenceInformation);
+      transaction.commit();
+      transaction.add(Collections.singletonList(new EncodedHash(MD5, HEX, randomString())), randomString());
+    }
+
+    try (PersistentContentIndex index = new PersistentContentIndex(file)) {
+      assertEquals(SIZE, 1, index.size());
+      assertEquals(REFERENCE_INFORMATION, referenceInformation, index.referenceInformationOf(hashes));
+    }
+  }
+
+  @Test
+  public void shouldDiscardPartiallyWrittenRecord() throws IOException {
+    try (PersistentContentIndex index = new PersistentContentIndex(file)) {
+      ContentIndexTransaction transaction = index.begin();
+      transaction.add(hashes, referenceInformation);
+      transaction.commit();
+    }
+    long validLength = file.length();
+    try (FileOutputStream stream = new FileOutputStream(file, true)) {
+      stream.write(new byte[] { 0, 42, 'x' });
+    }
+
+    try (PersistentContentIndex index = new PersistentContentIndex(file)) {
+      assertEquals("Length", validLength, file.length());
+      assertEquals(SIZE, 1, index.size());
+      Collection<EncodedHash> otherHashes = Collections.singletonList(new EncodedHash(MD5, HEX, randomString()));
+      ContentIndexTransaction transaction = index.begin();
+      transaction.add(otherHashes, referenceInformation);
+      transaction.commit();
+    }
+
+    try (PersistentContentIndex index = new PersistentContentIndex(file)) {
+      assertEquals("Size after reopening", 2, index.size());
+    }
+  }
+
+  @Test
+  public void shouldKeepFirstCommittedReferenceInformationAfterReopening() throws IOException {
+    try (PersistentContentIndex index = new PersistentContentIndex(file)) {
+      ContentIndexTransaction first = index.begin();
+      first.add(hashes, referenceInformation);
+      first.commit();
+      ContentIndexTransaction second = index.begin();
+      second.add(hashes, randomString());
+      second.commit();
+      assertEquals(REFERENCE_INFORMATION, referenceInformation, index.referenceInformationOf(hashes));
+    }
+
+    try (PersistentContentIndex index = new PersistentContentIndex(file)) {
+      assertEquals("Reference information after reopening", referenceInformation,
+          index.referenceInformationOf(hashes));
+    }
+  }
+
+  @Test
+  public void shouldNotWritePartOfFailedCommit() throws IOException {
+    try (PersistentContentIndex index = new PersistentContentIndex(file)) {
+      ContentIndexTransaction failed = index.begin();
+      failed.add(Collections.singletonList(new EncodedHash(MD5, HEX, randomString())), randomString());
+      failed.add(hashes, StringUtils.repeat('x', 65536));
+      try {
+        failed.commit();
+        fail("Committed reference information that's too long");
+      } catch (UTFDataFormatException e) {
+        failed.rollback();
+      }
+      ContentIndexTransaction transaction = index.begin();
+      transaction.add(hashes, referenceInformation);
+      transaction.commit();
+    }
+
+    try (PersistentContentIndex index = new PersistentContentIndex(file)) {
+      assertEquals(SIZE, 1, index.size());
+      assertEquals(REFERENCE_INFORMATION, referenceInformation, index.referenceInformationOf(hashes));
+    }
+  }
+
+}
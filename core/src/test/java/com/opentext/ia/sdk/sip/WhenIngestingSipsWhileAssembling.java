@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipInputStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.opentext.ia.sdk.support.io.FileSupplier;
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenIngestingSipsWhileAssembling extends TestCase {
+
+  private static final String AIP_ID = "aip-";
+  private static final int NUM_SIPS = 5;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  private SipAssembler<String> sipAssembler;
+  private final AtomicInteger numIngested = new AtomicInteger();
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void init() {
+    sipAssembler = SipAssembler.forPdi(PackagingInformation.builder()
+      .dss()
+        .holding(randomString(8))
+        .schema(randomString(8))
+        .entity(randomString(8))
+        .producer(randomString(8))
+      .end()
+      .build(), (Assembler<HashedContents<String>>)mock(Assembler.class));
+  }
+
+  private IngestingBatchSipAssembler<String> newBatcher(SipIngester ingester, int numWorkers,
+      SipRetentionPolicy retentionPolicy) {
+    return new IngestingBatchSipAssembler<>(sipAssembler, SipSegmentationStrategy.byMaxAius(1),
+        FileSupplier.fromDirectory(folder.getRoot()), ingester, numWorkers, retentionPolicy);
+  }
+
+  private String ingestZip(ZipInputStream zip) throws IOException {
+    assertNotNull("Missing ZIP entry", zip.getNextEntry());
+    return AIP_ID + numIngested.incrementAndGet();
+  }
+
+  @Test
+  public void shouldIngestEachSipAndDeleteItAfterwards() throws IOException {
+    IngestingBatchSipAssembler<String> batcher = newBatcher(sip -> ingestZip(new ZipInputStream(sip)), 2,
+        SipRetentionPolicy.DELETE_INGESTED);
+
+    for (int i = 0; i < NUM_SIPS; i++) {
+      batcher.add(randomString());
+    }
+    batcher.end();
+
+    Collection<IngestedSip> ingestedSips = batcher.getIngestedSips();
+    assertEquals("# ingested SIPs", NUM_SIPS, ingestedSips.size());
+    for (IngestedSip sip : ingestedSips) {
+      assertTrue("Not ingested", sip.isIngested());
+      assertTrue("AIP ID", sip.getAipId().startsWith(AIP_ID));
+      assertEquals("# AIUs", 1, ((SipMetrics)sip.getMetrics()).numAius());
+      assertFalse("SIP not deleted", sip.getFile().exists());
+    }
+    assertEquals("# ingest latencies", NUM_SIPS, batcher.getIngestLatencies().getCount());
+  }
+
+  @Test
+  public void shouldRetainSipsWhenAsked() throws IOException {
+    IngestingBatchSipAssembler<String> batcher = newBatcher(sip -> ingestZip(new ZipInputStream(sip)), 1,
+        SipRetentionPolicy.RETAIN);
+
+    batcher.add(randomString());
+    batcher.end();
+
+    File file = batcher.getIngestedSips().iterator().next().getFile();
+    assertTrue("SIP deleted", file.exists());
+    assertEquals("SIP metrics", file, batcher.getSipsMetrics().iterator().next().getFile());
+  }
+
+  @Test
+  public void shouldKeepSipsThatFailToIngest() throws IOException {
+    IOException error = new IOException(randomString());
+    IngestingBatchSipAssembler<String> batcher = newBatcher(sip -> {
+      throw error;
+    }, 1, SipRetentionPolicy.DELETE_INGESTED);
+    batcher.add(randomString());
+
+    try {
+      batcher.end();
+      fail("Missing exception");
+    } catch (IOException e) {
+      assertSame("Exception", error, e);
+    }
+
+    IngestedSip sip = batcher.getIngestedSips().iterator().next();
+    assertFalse("Ingested", sip.isIngested());
+    assertSame("Failure", error, sip.getFailure());
+    assertTrue("SIP deleted", sip.getFile().exists());
+  }
+
+  @Test
+  public void shouldThrottleAssemblyWhenIngestionFallsBehind() throws Exception {
+    CountDownLatch ingesting = new CountDownLatch(1);
+    CountDownLatch mayFinish = new CountDownLatch(1);
+    IngestingBatchSipAssembler<String> batcher = newBatcher(sip -> {
+      ingesting.countDown();
+      try {
+        mayFinish.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return ingestZip(new ZipInputStream(sip));
+    }, 1, SipRetentionPolicy.RETAIN);
+    List<Exception> errors = new ArrayList<>();
+    AtomicInteger numAdded = new AtomicInteger();
+    Thread producer = new Thread(() -> {
+      try {
+        for (int i = 0; i < NUM_SIPS; i++) {
+          batcher.add(randomString());
+          numAdded.incrementAndGet();
+        }
+      } catch (IOException e) {
+        errors.add(e);
+      }
+    });
+
+    producer.start();
+    assertTrue("Ingestion didn't start", ingesting.await(5, TimeUnit.SECONDS));
+    producer.join(200);
+
+    // One SIP is being ingested and one is waiting, so assembly blocks when the third SIP is finished
+    assertTrue("Not throttled", producer.isAlive());
+    assertEquals("# added", 3, numAdded.get());
+    mayFinish.countDown();
+    producer.join();
+    batcher.end();
+    assertTrue("Errors: " + errors, errors.isEmpty());
+    assertEquals("# ingested SIPs", NUM_SIPS, batcher.getIngestedSips().size());
+  }
+
+}
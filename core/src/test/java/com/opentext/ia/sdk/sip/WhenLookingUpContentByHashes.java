@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.opentext.ia.sdk.support.io.EncodedHash;
+import com.opentext.ia.sdk.support.io.Encoding;
+import com.opentext.ia.sdk.support.io.HashFunction;
+import com.opentext.ia.sdk.support.io.SingleHashAssembler;
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenLookingUpContentByHashes extends TestCase {
+
+  private static final String SHA256 = HashFunction.SHA256.toString();
+  private static final String BASE64 = Encoding.BASE64.toString();
+  private static final String VALUE = "Value";
+
+  private final DigestTable<String> table = new DigestTable<>(1);
+
+  @Test
+  public void shouldFindWhatWasPut() {
+    List<Collection<EncodedHash>> keys = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      keys.add(hashesOf(Integer.toString(i)));
+    }
+
+    keys.forEach(key -> assertNull("Initial value", table.put(key, key.toString())));
+
+    assertEquals("Size", keys.size(), table.size());
+    keys.forEach(key -> assertEquals(VALUE, key.toString(), table.get(copyOf(key))));
+    assertNull("Value of unknown hashes", table.get(hashesOf(randomString())));
+  }
+
+  private Collection<EncodedHash> hashesOf(String text) {
+    SingleHashAssembler hashAssembler = new SingleHashAssembler();
+    hashAssembler.initialize();
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    hashAssembler.add(bytes, bytes.length);
+    return hashAssembler.get();
+  }
+
+  private Collection<EncodedHash> copyOf(Collection<EncodedHash> hashes) {
+    Collection<EncodedHash> result = new ArrayList<>();
+    hashes.forEach(hash -> result.add(new EncodedHash(hash.getHashFunction(), hash.getEncoding(), hash.getValue())));
+    return result;
+  }
+
+  @Test
+  public void shouldReplaceExistingValue() {
+    Collection<EncodedHash> key = hashesOf(randomString());
+    table.put(key, "old");
+
+    assertEquals("Previous value", "old", table.put(key, "new"));
+    assertEquals("Existing value", "new", table.putIfAbsent(key, "ignored"));
+    assertEquals(VALUE, "new", table.get(key));
+    assertEquals("Size", 1, table.size());
+  }
+
+  @Test
+  public void shouldDistinguishHashesThatOnlyDifferInFunctionOrEncoding() {
+    byte[] digest = randomBytes();
+    String value = Encoding.BASE64.encode(digest);
+    Collection<EncodedHash> key = hash(SHA256, BASE64, value);
+    Collection<EncodedHash> otherFunction = hash(HashFunction.SHA1.toString(), BASE64, value);
+    Collection<EncodedHash> otherEncoding = hash(SHA256, Encoding.HEX.toString(), Encoding.HEX.encode(digest));
+
+    table.put(key, "1");
+    table.put(otherFunction, "2");
+    table.put(otherEncoding, "3");
+
+    assertEquals(VALUE, "1", table.get(key));
+    assertEquals("Value for other function", "2", table.get(otherFunction));
+    assertEquals("Value for other encoding", "3", table.get(otherEncoding));
+  }
+
+  private Collection<EncodedHash> hash(String hashFunction, String encoding, String value) {
+    return Collections.singletonList(new EncodedHash(hashFunction, encoding, value));
+  }
+
+  @Test
+  public void shouldKeepHashesThatAreNotEncodedCanonically() {
+    Collection<EncodedHash> upperCase = hash(SHA256, Encoding.HEX.toString(), "ABCDEF");
+    Collection<EncodedHash> lowerCase = hash(SHA256, Encoding.HEX.toString(), "abcdef");
+    Collection<EncodedHash> unknownEncoding = hash(SHA256, "rot13", "nopqrs");
+
+    table.put(upperCase, "1");
+    table.put(lowerCase, "2");
+    table.put(unknownEncoding, "3");
+
+    assertEquals("Value for upper case", "1", table.get(upperCase));
+    assertEquals("Value for lower case", "2", table.get(lowerCase));
+    assertEquals("Value for unknown encoding", "3", table.get(unknownEncoding));
+  }
+
+  @Test
+  public void shouldDistinguishOrderOfHashes() {
+    EncodedHash first = new EncodedHash(SHA256, BASE64, Encoding.BASE64.encode(randomBytes()));
+    EncodedHash second = new EncodedHash(SHA256, BASE64, Encoding.BASE64.encode(randomBytes()));
+
+    table.put(Arrays.asList(first, second), "1");
+
+    assertNull("Value in reverse order", table.get(Arrays.asList(second, first)));
+  }
+
+  @Test
+  public void shouldRebuildHashesFromTheirKey() {
+    EncodedHash digest = new EncodedHash(SHA256, BASE64, Encoding.BASE64.encode(randomBytes()));
+    EncodedHash text = new EncodedHash(SHA256, Encoding.HEX.toString(), "ABCDEF");
+    List<EncodedHash> hashes = Arrays.asList(digest, text);
+    table.put(hashesOf(randomString()), randomString());
+    table.put(hashes, randomString());
+
+    int key = table.keyOf(hashes);
+
+    assertEquals("Hashes", hashes, table.hashesOf(key));
+    assertTrue("Key of unknown hashes", table.keyOf(hashesOf(randomString())) < 0);
+  }
+
+  @Test
+  public void shouldBeEmptyAfterClearing() {
+    Collection<EncodedHash> key = hashesOf(randomString());
+    table.put(key, randomString());
+
+    table.clear();
+
+    assertEquals("Size", 0, table.size());
+    assertNull(VALUE, table.get(key));
+  }
+
+}
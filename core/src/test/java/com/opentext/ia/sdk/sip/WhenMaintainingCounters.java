@@ -4,6 +4,11 @@
 package com.opentext.ia.sdk.sip;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 
@@ -31,4 +36,53 @@ public class WhenMaintainingCounters {
     assertEquals("Reset bar", 0, counters.get(TestMetrics.BAR));
   }
 
+  @Test
+  public void shouldReflectChangesInView() {
+    Counters view = counters.forReading();
+
+    counters.inc(SipMetrics.NUM_AIUS);
+    counters.inc(TestMetrics.FOO);
+
+    assertEquals("Known counter", 1, view.get(SipMetrics.NUM_AIUS));
+    assertEquals("Other counter", 1, view.get(TestMetrics.FOO));
+  }
+
+  @Test
+  public void shouldNotReflectChangesInSnapshot() {
+    counters.set(SipMetrics.SIZE_PDI, 42);
+    counters.set(TestMetrics.BAR, 313);
+
+    Counters snapshot = counters.snapshot();
+    counters.reset();
+
+    assertEquals("Known counter", 42, snapshot.get(SipMetrics.SIZE_PDI));
+    assertEquals("Other counter", 313, snapshot.get(TestMetrics.BAR));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void shouldNotAllowChangesThroughView() {
+    counters.forReading()
+      .inc(SipMetrics.NUM_AIUS);
+  }
+
+  @Test
+  public void shouldCountConcurrentIncrements() throws InterruptedException {
+    int numThreads = 4;
+    int numIncrements = 10000;
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    for (int i = 0; i < numThreads; i++) {
+      executor.execute(() -> {
+        for (int j = 0; j < numIncrements; j++) {
+          counters.inc(SipMetrics.NUM_DIGITAL_OBJECTS);
+          counters.inc(TestMetrics.FOO);
+        }
+      });
+    }
+    executor.shutdown();
+    assertTrue("Timeout", executor.awaitTermination(1, TimeUnit.MINUTES));
+
+    assertEquals("Known counter", numThreads * numIncrements, counters.get(SipMetrics.NUM_DIGITAL_OBJECTS));
+    assertEquals("Other counter", numThreads * numIncrements, counters.get(TestMetrics.FOO));
+  }
+
 }
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenMeasuringLatencies extends TestCase {
+
+  private final LatencyHistogram histogram = new LatencyHistogram();
+
+  @Test
+  public void shouldSummarizeRecordedLatencies() {
+    for (int i = 1; i <= 100; i++) {
+      histogram.record(i * 1000L);
+    }
+
+    assertEquals("Count", 100, histogram.getCount());
+    assertEquals("Total", 5050 * 1000L, histogram.getTotal());
+    assertEquals("Mean", 50500, histogram.getMean());
+    assertEquals("Max", 100000, histogram.getMax());
+    assertPercentile(50, 50000);
+    assertPercentile(99, 99000);
+    assertEquals("100th percentile", 100000, histogram.getPercentile(100));
+  }
+
+  private void assertPercentile(double percentile, long expected) {
+    long actual = histogram.getPercentile(percentile);
+    assertTrue(percentile + "th percentile too small: " + actual, actual >= expected);
+    assertTrue(percentile + "th percentile too large: " + actual, actual < 2 * expected);
+  }
+
+  @Test
+  public void shouldNotChangeSnapshot() {
+    histogram.record(randomInt(1, 1000));
+
+    LatencyHistogram snapshot = histogram.snapshot();
+    histogram.reset();
+
+    assertEquals("Count of snapshot", 1, snapshot.getCount());
+    assertEquals("Count after reset", 0, histogram.getCount());
+    assertEquals("Percentile after reset", 0, histogram.getPercentile(50));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectInvalidPercentile() {
+    histogram.getPercentile(101);
+  }
+
+}
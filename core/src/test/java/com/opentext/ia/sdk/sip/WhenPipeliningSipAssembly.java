@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.opentext.ia.sdk.support.io.DataBuffer;
+import com.opentext.ia.sdk.support.io.DataBufferSupplier;
+import com.opentext.ia.sdk.support.io.EncodedHash;
+import com.opentext.ia.sdk.support.io.HashAssembler;
+import com.opentext.ia.sdk.support.io.MemoryBuffer;
+import com.opentext.ia.sdk.support.io.NoHashAssembler;
+import com.opentext.ia.sdk.support.io.RuntimeIoException;
+import com.opentext.ia.sdk.support.io.SingleHashAssembler;
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenPipeliningSipAssembly extends TestCase {
+
+  private static final int NUM_WORKERS = 4;
+  private static final int NUM_DOMAIN_OBJECTS = 100;
+
+  @SuppressWarnings("unchecked")
+  private final Assembler<HashedContents<String>> pdiAssembler = mock(Assembler.class);
+  private final Map<String, byte[]> contents = new HashMap<>();
+
+  @Test
+  public void shouldAddContentAndPdiInOrder() throws IOException {
+    List<String> domainObjects = new ArrayList<>();
+    for (int i = 0; i < NUM_DOMAIN_OBJECTS; i++) {
+      String domainObject = "object" + i;
+      domainObjects.add(domainObject);
+      contents.put(domainObject, randomBytes());
+    }
+    SipAssembler<String> assembler = newAssembler(domainObject ->
+        Collections.singleton(DigitalObject.fromBytes(domainObject, contents.get(domainObject))).iterator());
+    DataBuffer buffer = new MemoryBuffer();
+
+    assembler.start(buffer);
+    domainObjects.forEach(assembler::add);
+    assembler.end();
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    ArgumentCaptor<HashedContents<String>> added = (ArgumentCaptor)ArgumentCaptor.forClass(HashedContents.class);
+    verify(pdiAssembler, times(NUM_DOMAIN_OBJECTS)).add(added.capture());
+    List<HashedContents<String>> pdiObjects = added.getAllValues();
+    for (int i = 0; i < NUM_DOMAIN_OBJECTS; i++) {
+      String domainObject = domainObjects.get(i);
+      HashedContents<String> pdiObject = pdiObjects.get(i);
+      assertEquals("Domain object #" + i, domainObject, pdiObject.getSource());
+      assertEquals("Hashes of " + domainObject, hashesOf(contents.get(domainObject)),
+          pdiObject.getContentInfo().get(domainObject).getContentHashes());
+    }
+    try (ZipInputStream zip = new ZipInputStream(buffer.openForReading())) {
+      for (String domainObject : domainObjects) {
+        ZipEntry entry = zip.getNextEntry();
+        assertEquals("Entry", domainObject, entry.getName());
+        assertArrayEquals("Content of " + domainObject, contents.get(domainObject), IOUtils.toByteArray(zip));
+      }
+    }
+    SipMetrics metrics = assembler.getMetrics();
+    assertEquals("# AIUs", NUM_DOMAIN_OBJECTS, metrics.numAius());
+    assertEquals("# digital objects", NUM_DOMAIN_OBJECTS, metrics.numDigitalObjects());
+    assertEquals("Size of digital objects", contents.values().stream().mapToLong(bytes -> bytes.length).sum(),
+        metrics.digitalObjectsSize());
+  }
+
+  private SipAssembler<String> newAssembler(DigitalObjectsExtraction<String> contentsExtraction) {
+    return newAssembler(contentsExtraction, new DataBufferSupplier<>(MemoryBuffer.class));
+  }
+
+  private SipAssembler<String> newAssembler(DigitalObjectsExtraction<String> contentsExtraction,
+      Supplier<? extends DataBuffer> contentBufferSupplier) {
+    return new PipelinedSipAssembler<>(new DefaultPackagingInformationFactory(somePackagingInformation()),
+        pdiAssembler, new NoHashAssembler(), new DataBufferSupplier<>(MemoryBuffer.class), contentsExtraction,
+        SingleHashAssembler::new, contentBufferSupplier, NUM_WORKERS);
+  }
+
+  private PackagingInformation somePackagingInformation() {
+    return PackagingInformation.builder()
+      .dss()
+      .application(randomString(64))
+      .holding(randomString(64))
+      .schema(randomString(256))
+      .entity(randomString(64))
+      .end()
+      .build();
+  }
+
+  private Collection<EncodedHash> hashesOf(byte[] content) throws IOException {
+    HashAssembler hashAssembler = new SingleHashAssembler();
+    hashAssembler.initialize();
+    hashAssembler.add(content, content.length);
+    return hashAssembler.get();
+  }
+
+  @Test
+  public void shouldReportFailureToAddContent() throws IOException {
+    SipAssembler<String> assembler = newAssembler(domainObject ->
+        Collections.singleton(DigitalObject.fromSupplier(domainObject, () -> {
+          throw new RuntimeIoException(new IOException(domainObject));
+        })).iterator());
+    assembler.start(new MemoryBuffer());
+    assembler.add(randomString());
+
+    try {
+      assembler.end();
+      fail("Missing exception");
+    } catch (IOException e) {
+      assertNotNull("Missing cause", e.getCause());
+    }
+    verify(pdiAssembler, never()).add(any());
+  }
+
+  @Test
+  public void shouldAcceptDomainObjectsWithoutContent() throws IOException {
+    SipAssembler<String> assembler = newAssembler(domainObject -> Collections.<DigitalObject>emptyIterator());
+    assembler.start(new MemoryBuffer());
+    assembler.add(randomString());
+    assembler.end();
+
+    assertEquals("# AIUs", 1, assembler.getMetrics().numAius());
+    assertEquals("# digital objects", 0, assembler.getMetrics().numDigitalObjects());
+    verify(pdiAssembler).add(any());
+  }
+
+  @Test
+  public void shouldReleaseStagedContentWhenAddingContentFails() throws IOException {
+    AtomicInteger numOpenBuffers = new AtomicInteger();
+    Supplier<DataBuffer> contentBufferSupplier = () -> {
+      numOpenBuffers.incrementAndGet();
+      return new MemoryBuffer() {
+        @Override
+        public void close() {
+          numOpenBuffers.decrementAndGet();
+        }
+      };
+    };
+    String failing = randomString();
+    SipAssembler<String> assembler = newAssembler(domainObject -> Arrays.asList(
+        DigitalObject.fromBytes(domainObject + 1, randomBytes()),
+        DigitalObject.fromSupplier(domainObject + 2, () -> {
+          if (failing.equals(domainObject)) {
+            throw new RuntimeIoException(new IOException(domainObject));
+          }
+          return new ByteArrayInputStream(randomBytes());
+        })).iterator(), contentBufferSupplier);
+    assembler.start(new MemoryBuffer());
+    try {
+      for (int i = 0; i < NUM_DOMAIN_OBJECTS; i++) {
+        assembler.add(i == NUM_DOMAIN_OBJECTS / 2 ? failing : randomString());
+      }
+    } catch (RuntimeIoException e) {
+      // Adding stops once the failure is noticed
+    }
+
+    try {
+      assembler.end();
+      fail("Missing exception");
+    } catch (IOException e) {
+      assertNotNull("Missing cause", e.getCause());
+    }
+    assertEquals("# open content buffers", 0, numOpenBuffers.get());
+  }
+
+}
@@ -81,6 +81,42 @@ public class WhenSegmentingDomainObjectsIntoSips extends TestCase {
     assertMaxSizePerSip(SipMetrics.SIZE_SIP, max -> SipSegmentationStrategy.byMaxSipSize(max));
   }
 
+  @Test
+  public void shouldSegmentBySipFileSizeUsingObservedPdiCompression() {
+    CompressionStatistics compressionStatistics = new CompressionStatistics();
+    compressionStatistics.recordPdi(1000, 100);
+
+    // Each AIU adds 1000 bytes of PDI (100 compressed), and a digital object of 400 compressed bytes and ZIP headers
+    // of about 200 bytes
+    assertAiusPerSip(5, 1024 + 5 * 700, compressionStatistics);
+  }
+
+  private void assertAiusPerSip(int expectedAius, long maxSize, CompressionStatistics compressionStatistics) {
+    strategy = SipSegmentationStrategy.byMaxSipFileSize(maxSize);
+    Counters metrics = new Counters();
+    SipMetrics sipMetrics = new SipMetrics(metrics, new LatencyHistogram(), compressionStatistics);
+
+    assertFalse("New SIP before first AIU", strategy.shouldStartNewSip(randomString(), sipMetrics));
+    for (int i = 1; i <= expectedAius; i++) {
+      metrics.inc(SipMetrics.NUM_AIUS);
+      metrics.inc(SipMetrics.SIZE_PDI, 1000);
+      metrics.inc(SipMetrics.NUM_DIGITAL_OBJECTS);
+      metrics.inc(SipMetrics.SIZE_DIGITAL_OBJECTS_COMPRESSED, 400);
+      assertEquals("New SIP after AIU #" + i, i == expectedAius, strategy.shouldStartNewSip(randomString(),
+          sipMetrics));
+    }
+  }
+
+  @Test
+  public void shouldAssumePdiDoesNotCompressBeforeObservingIt() {
+    assertAiusPerSip(2, 1024 + 5 * 700, new CompressionStatistics());
+  }
+
+  @Test
+  public void shouldNeverStartNewSipBeforeFirstAiu() {
+    assertAiusPerSip(1, 1, new CompressionStatistics());
+  }
+
   @Test
   public void shouldCombineSegmentations() {
     String object1 = randomString();
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.opentext.ia.test.TestCase;
+
+
+@SuppressWarnings("unchecked")
+public class WhenSubscribingToDomainObjects extends TestCase {
+
+  private static final int NUM_DOMAIN_OBJECTS = 1000;
+  private static final int MAX_PENDING = 8;
+
+  private final BatchSipAssembler<String> batch = mock(BatchSipAssembler.class);
+  private final BatchSipSubscriber<String> subscriber = new BatchSipSubscriber<>(batch, MAX_PENDING);
+
+  @Test
+  public void shouldAssembleDomainObjectsAtTheRateTheyAreRequested() throws IOException {
+    List<String> added = new ArrayList<>();
+    AtomicInteger maxOutstanding = new AtomicInteger();
+    Publisher publisher = new Publisher(NUM_DOMAIN_OBJECTS);
+    doAnswer(invocation -> {
+      added.add(invocation.getArgumentAt(0, String.class));
+      maxOutstanding.accumulateAndGet(publisher.numDelivered.get() - added.size(), Math::max);
+      return null;
+    }).when(batch)
+      .add(any(String.class));
+
+    publisher.subscribe();
+    subscriber.await();
+
+    assertEquals("# added", NUM_DOMAIN_OBJECTS, added.size());
+    assertEquals("First", "0", added.get(0));
+    assertEquals("Last", Integer.toString(NUM_DOMAIN_OBJECTS - 1), added.get(NUM_DOMAIN_OBJECTS - 1));
+    assertTrue("Too many domain objects pending: " + maxOutstanding, maxOutstanding.get() <= MAX_PENDING);
+    assertTrue("Requested too many domain objects: " + publisher.maxDemand, publisher.maxDemand <= MAX_PENDING);
+    assertFalse("Overlapping requests", publisher.overlapped.get());
+    verify(batch).end();
+  }
+
+  @Test
+  public void shouldCancelSourceWhenAssemblyFails() throws IOException {
+    IOException error = new IOException(randomString());
+    doThrow(error).when(batch)
+      .add(any(String.class));
+    Publisher publisher = new Publisher(NUM_DOMAIN_OBJECTS);
+
+    publisher.subscribe();
+    try {
+      subscriber.await();
+      fail("Missing exception");
+    } catch (IOException e) {
+      assertSame("Exception", error, e);
+    }
+
+    assertTrue("Source not cancelled", publisher.cancelled.get());
+    verify(batch, never()).end();
+  }
+
+  @Test
+  public void shouldReportFailureOfSource() throws IOException {
+    subscriber.onSubscribe(n -> { }, () -> { });
+    IllegalStateException error = new IllegalStateException(randomString());
+
+    subscriber.onError(error);
+    try {
+      subscriber.await();
+      fail("Missing exception");
+    } catch (IOException e) {
+      assertSame("Cause", error, e.getCause());
+    }
+
+    verify(batch, never()).end();
+  }
+
+  @Test
+  public void shouldFailWhenSourceDeliversMoreThanRequested() throws IOException {
+    CountDownLatch mayAdd = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      mayAdd.await();
+      return null;
+    }).when(batch)
+      .add(any(String.class));
+    AtomicBoolean cancelled = new AtomicBoolean();
+    subscriber.onSubscribe(n -> { }, () -> cancelled.set(true));
+
+    // Assembly is held up, so the subscriber can't request more than it initially did
+    for (int i = 0; i <= MAX_PENDING; i++) {
+      subscriber.onNext(randomString());
+    }
+
+    assertTrue("Source not cancelled", cancelled.get());
+    mayAdd.countDown();
+    try {
+      subscriber.await();
+      fail("Missing exception");
+    } catch (IOException e) {
+      assertTrue("Cause", e.getCause() instanceof IllegalStateException);
+    }
+  }
+
+
+  /**
+   * Source that delivers domain objects synchronously from within requests, like many reactive sources do. Like a
+   * Reactive Streams publisher, it relies on the subscriber not to make requests concurrently.
+   */
+  private class Publisher {
+
+    private final int size;
+    private final AtomicInteger numDelivered = new AtomicInteger();
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private final AtomicInteger numRequesting = new AtomicInteger();
+    private final AtomicBoolean overlapped = new AtomicBoolean();
+    private long demand;
+    private long maxDemand;
+
+    Publisher(int size) {
+      this.size = size;
+    }
+
+    void subscribe() {
+      subscriber.onSubscribe(this::request, () -> cancelled.set(true));
+    }
+
+    private void request(long n) {
+      if (numRequesting.incrementAndGet() > 1) {
+        overlapped.set(true);
+      }
+      try {
+        deliver(n);
+      } finally {
+        numRequesting.decrementAndGet();
+      }
+    }
+
+    private void deliver(long n) {
+      demand += n;
+      maxDemand = Math.max(maxDemand, demand);
+      while (demand > 0 && numDelivered.get() < size && !cancelled.get()) {
+        subscriber.onNext(Integer.toString(numDelivered.getAndIncrement()));
+        demand--;
+      }
+      if (numDelivered.get() == size && !cancelled.get()) {
+        subscriber.onComplete();
+      }
+    }
+
+  }
+
+}
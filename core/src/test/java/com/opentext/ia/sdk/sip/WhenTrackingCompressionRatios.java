@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenTrackingCompressionRatios extends TestCase {
+
+  private static final double PRECISION = 1e-9;
+
+  private final CompressionStatistics statistics = new CompressionStatistics();
+
+  @Test
+  public void shouldDeriveContentTypeFromExtension() {
+    assertEquals("Extension", "pdf", CompressionStatistics.contentTypeOf("statements/2017/jan.PDF"));
+    assertEquals("No extension", CompressionStatistics.UNKNOWN_CONTENT_TYPE,
+        CompressionStatistics.contentTypeOf("statements.2017/jan"));
+  }
+
+  @Test
+  public void shouldTrackRatiosPerContentType() {
+    statistics.recordContent("1.txt", 1000, 200);
+    statistics.recordContent("2.txt", 3000, 400);
+    statistics.recordContent("3.jpg", 1000, 1000);
+
+    assertEquals("Content types", new HashSet<>(Arrays.asList("txt", "jpg")), statistics.contentTypes());
+    assertEquals("Text", 0.15, statistics.contentRatio("txt"), PRECISION);
+    assertEquals("Images", 1.0, statistics.contentRatio("jpg"), PRECISION);
+    assertEquals("All content", 0.32, statistics.contentRatio(), PRECISION);
+    assertEquals("Unknown", 1.0, statistics.contentRatio("pdf"), PRECISION);
+  }
+
+  @Test
+  public void shouldTrackPdiRatioSeparately() {
+    assertEquals("Before first PDI", 1.0, statistics.pdiRatio(), PRECISION);
+
+    statistics.recordContent("1.xml", 1000, 500);
+    statistics.recordPdi(1000, 100);
+
+    assertEquals("PDI", 0.1, statistics.pdiRatio(), PRECISION);
+    assertEquals("Content", 0.5, statistics.contentRatio("xml"), PRECISION);
+  }
+
+  @Test
+  public void shouldNotChangeSnapshot() {
+    statistics.recordPdi(1000, 100);
+
+    CompressionStatistics snapshot = statistics.snapshot();
+    statistics.recordPdi(1000, 300);
+    statistics.recordContent("1.txt", 1000, 100);
+
+    assertEquals("PDI ratio of snapshot", 0.1, snapshot.pdiRatio(), PRECISION);
+    assertEquals("Content types of snapshot", 0, snapshot.contentTypes().size());
+    assertEquals("PDI ratio", 0.2, statistics.pdiRatio(), PRECISION);
+  }
+
+}
@@ -3,6 +3,7 @@
  */
 package com.opentext.ia.sdk.support.datetime;
 
+import static org.junit.Assert.assertNotEquals;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -38,14 +39,32 @@ public class WhenTiming extends TestCase {
   }
 
   @Test
-  public void shouldRestartTimerWhenReset() {
+  public void shouldPostponeProcessWhenReset() {
+    long resetTime = maxTime / 2;
+    setTime(resetTime);
+
     timer.reset();
 
-    verify(clock).cancel(taskName);
+    verify(clock, never()).cancel(taskName);
+    verify(clock, times(1)).schedule(taskName, maxTime, TIME_UNIT, ringer);
+
+    setTime(maxTime);
+    ringer.run();
+
     verify(callback, never()).run();
+    verify(clock).schedule(taskName, resetTime, TIME_UNIT, ringer);
+
+    setTime(resetTime + maxTime);
+    ringer.run();
+
+    verify(callback).run();
     verify(clock, times(2)).schedule(taskName, maxTime, TIME_UNIT, ringer);
   }
 
+  private void setTime(long time) {
+    when(clock.time()).thenReturn(time);
+  }
+
   @Test
   public void shouldCallBackWhenTimePasses() {
     ringer.run();
@@ -58,10 +77,29 @@ public class WhenTiming extends TestCase {
   @Test
   public void shouldCancelTimerWhenStopped() {
     timer.stop();
+    ringer.run();
 
     verify(clock).cancel(taskName);
     verify(callback, never()).run();
     verify(clock, times(1)).schedule(taskName, maxTime, TIME_UNIT, ringer);
   }
 
+  @Test
+  public void shouldRestartTimerWhenResetAfterStopping() {
+    timer.stop();
+
+    timer.reset();
+
+    verify(clock, times(2)).schedule(taskName, maxTime, TIME_UNIT, ringer);
+  }
+
+  @Test
+  public void shouldNotInterfereWithOtherTimers() {
+    new Timer(maxTime, callback, clock).stop();
+
+    ArgumentCaptor<String> otherTaskNameCaptor = ArgumentCaptor.forClass(String.class);
+    verify(clock).cancel(otherTaskNameCaptor.capture());
+    assertNotEquals("Task name", taskName, otherTaskNameCaptor.getValue());
+  }
+
 }
@@ -6,9 +6,12 @@ package com.opentext.ia.sdk.support.datetime;
 import static org.junit.Assert.*;
 
 import java.util.Arrays;
+import java.util.Calendar;
 import java.util.Date;
 import java.util.TimeZone;
 
+import javax.xml.bind.DatatypeConverter;
+
 import org.junit.Test;
 
 import com.opentext.ia.test.RandomData;
@@ -51,6 +54,18 @@ public class WhenWorkingWithDates {
     return new Date(year - 1900, month - 1, day, hour, minute, second);
   }
 
+  @Test
+  public void shouldFormatXsdDateTimeLikeDatatypeConverter() {
+    for (long time : new long[] { 0, 1, 999, 1500, -1500, System.currentTimeMillis(), -2_208_988_800_000L,
+        -2_208_988_800_001L, -12_219_292_800_000L, 253_402_300_799_999L }) {
+      Date dateTime = new Date(time);
+      Calendar calendar = Calendar.getInstance();
+      calendar.setTime(dateTime);
+
+      assertEquals("Date time " + time, DatatypeConverter.printDateTime(calendar), Dates.toIso(dateTime));
+    }
+  }
+
   @Test
   public void shouldReturnNullOnMissingDateTime() {
     assertNull("To ISO", Dates.toIso(null));
@@ -5,8 +5,11 @@ package com.opentext.ia.sdk.support.datetime;
 
 import static org.junit.Assert.*;
 
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
@@ -61,6 +64,33 @@ public class WhenWorkingWithTime {
     assertFalse("Canceled task is run", executed.get());
   }
 
+  @Test
+  public void shouldReplaceTaskScheduledUnderSameName() throws InterruptedException {
+    int sleep = random.integer(2, 10);
+    String name = random.string();
+    AtomicInteger executed = new AtomicInteger();
+    clock.schedule(name, sleep, TimeUnit.MILLISECONDS, () -> executed.addAndGet(1));
+
+    clock.schedule(name, sleep, TimeUnit.MILLISECONDS, () -> executed.addAndGet(2));
+
+    Thread.sleep(sleep + TASK_WAIT_DELTA);
+    assertEquals("Executed tasks", 2, executed.get());
+  }
+
+  @Test
+  public void shouldRunTasksOnSharedThreads() throws InterruptedException {
+    int sleep = random.integer(2, 10);
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+    for (int i = 0; i < 10; i++) {
+      new DefaultClock().schedule(random.string(), sleep, TimeUnit.MILLISECONDS,
+          () -> threads.add(Thread.currentThread().getName()));
+    }
+
+    Thread.sleep(sleep + TASK_WAIT_DELTA);
+    assertFalse("Tasks not run", threads.isEmpty());
+    assertTrue("Too many threads: " + threads, threads.size() <= 2);
+  }
+
   /**
    * The task may have just run and be removed automatically.
    */
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.http;
+
+import static org.junit.Assert.assertEquals;
+
+import java.net.URI;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenDerivingUriTemplates extends TestCase {
+
+  private static final String BASE = "https://ia.example.com:8765/restapi/systemdata";
+
+  @Test
+  public void shouldReplaceIdentifiersInPath() {
+    assertTemplate(BASE + "/tenants/{id}/applications/{id}",
+        BASE + "/tenants/" + UUID.randomUUID() + "/applications/" + randomInt(1, 100000));
+  }
+
+  private void assertTemplate(String expected, String uri) {
+    assertEquals("Template", expected, UriTemplates.templateOf(URI.create(uri)));
+  }
+
+  @Test
+  public void shouldKeepNamesInPath() {
+    assertTemplate(BASE + "/applications/PhoneCalls/v2", BASE + "/applications/PhoneCalls/v2");
+  }
+
+  @Test
+  public void shouldDropQueryAndFragment() {
+    assertTemplate(BASE + "/aips", BASE + "/aips?page=" + randomInt(1, 10) + "#top");
+  }
+
+  @Test
+  public void shouldHandleRelativeUris() {
+    assertTemplate("aips/{id}/", "aips/12/");
+  }
+
+}
@@ -13,6 +13,7 @@ import java.io.UnsupportedEncodingException;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.Locale;
+import java.util.UUID;
 
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
@@ -124,6 +125,21 @@ public class WhenMakingHttpCallsUsingApache extends TestCase {
     assertEquals("Response", expected, actual);
   }
 
+  @Test
+  public void shouldReportCallsToListener() throws IOException {
+    String uri = "http://localhost:1/restapi/aips/" + UUID.randomUUID() + "?page=" + randomInt(1, 10);
+    HttpCallListener listener = mock(HttpCallListener.class);
+    httpClient.setCallListener(listener);
+
+    try {
+      httpClient.get(uri, Collections.emptyList(), (resp, closer) -> resp);
+      fail("Missing exception");
+    } catch (HttpException e) {
+      verify(listener).callCompleted(eq("GET"), eq("http://localhost:1/restapi/aips/{id}"), eq(0), eq(-1L),
+          anyLong());
+    }
+  }
+
   @Test
   public void shouldPut() throws IOException {
     String uri = randomString();
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenBufferingDataInChunks extends TestCase {
+
+  private static final int CHUNK_SIZE = 100;
+
+  private final ChunkPool pool = new ChunkPool(CHUNK_SIZE, false, 10);
+  private final ChunkedBuffer buffer = new ChunkedBuffer(pool);
+
+  @Test
+  public void shouldReadWhatWasWritten() throws IOException {
+    byte[] expected = write(randomInt(2 * CHUNK_SIZE, 5 * CHUNK_SIZE));
+
+    assertEquals("Length", expected.length, buffer.length());
+    assertArrayEquals("Content", expected, read());
+    assertArrayEquals("Content read again", expected, read());
+  }
+
+  private byte[] write(int length) throws IOException {
+    byte[] result = new byte[length];
+    for (int i = 0; i < length; i++) {
+      result[i] = (byte)randomInt(Byte.MAX_VALUE);
+    }
+    try (OutputStream stream = buffer.openForWriting()) {
+      int half = length / 2;
+      stream.write(result, 0, half);
+      for (int i = half; i < length; i++) {
+        stream.write(result[i]);
+      }
+    }
+    return result;
+  }
+
+  private byte[] read() throws IOException {
+    try (InputStream stream = buffer.openForReading()) {
+      return IOUtils.toByteArray(stream);
+    }
+  }
+
+  @Test
+  public void shouldSkipAcrossChunks() throws IOException {
+    byte[] content = write(3 * CHUNK_SIZE);
+    int numSkipped = CHUNK_SIZE + CHUNK_SIZE / 2;
+
+    try (InputStream stream = buffer.openForReading()) {
+      assertEquals("# skipped", numSkipped, stream.skip(numSkipped));
+      assertEquals("Next byte", content[numSkipped], stream.read());
+    }
+  }
+
+  @Test
+  public void shouldReturnChunksToPoolWhenClosed() throws IOException {
+    write(3 * CHUNK_SIZE + 1);
+
+    buffer.close();
+
+    assertEquals("# idle chunks", 4, pool.getNumIdleChunks());
+    assertEquals("Length", 0, buffer.length());
+  }
+
+  @Test
+  public void shouldReuseChunksWhenRewritten() throws IOException {
+    write(2 * CHUNK_SIZE);
+
+    byte[] expected = write(CHUNK_SIZE);
+
+    assertEquals("# idle chunks", 1, pool.getNumIdleChunks());
+    assertArrayEquals("Content", expected, read());
+  }
+
+  @Test
+  public void shouldLimitNumberOfIdleChunks() {
+    ChunkPool smallPool = new ChunkPool(CHUNK_SIZE, true, 1);
+    smallPool.release(smallPool.acquire());
+    smallPool.release(smallPool.acquire());
+    smallPool.release(new ChunkPool(CHUNK_SIZE, true, 1).acquire());
+
+    assertEquals("# idle chunks", 1, smallPool.getNumIdleChunks());
+  }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenBufferingDataToMappedFile extends TestCase {
+
+  private static final int PREALLOCATION_SIZE = 1000;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  private File file;
+  private DataBuffer buffer;
+
+  @Test
+  public void shouldReadWhatWasWritten() throws IOException {
+    file = folder.newFile();
+    buffer = new MappedFileBuffer(file, PREALLOCATION_SIZE);
+    byte[] expected = randomBytes(100 * PREALLOCATION_SIZE);
+
+    try (OutputStream stream = buffer.openForWriting()) {
+      stream.write(expected);
+      stream.write(42);
+      assertEquals("Length while writing", expected.length + 1, buffer.length());
+    }
+
+    assertEquals("Length", expected.length + 1, buffer.length());
+    assertEquals("File length", expected.length + 1, file.length());
+    try (InputStream stream = buffer.openForReading()) {
+      assertArrayEquals("Content", expected, IOUtils.toByteArray(stream, expected.length));
+      assertEquals("Last byte", 42, stream.read());
+      assertEquals("End of stream", -1, stream.read());
+    }
+  }
+
+  private byte[] randomBytes(int length) {
+    byte[] result = new byte[length];
+    for (int i = 0; i < length; i++) {
+      result[i] = (byte)randomInt(Byte.MAX_VALUE);
+    }
+    return result;
+  }
+
+  @Test
+  public void shouldTruncateWhenRewritten() throws IOException {
+    file = folder.newFile();
+    buffer = new MappedFileBuffer(file, PREALLOCATION_SIZE);
+    try (OutputStream stream = buffer.openForWriting()) {
+      stream.write(randomBytes(2 * PREALLOCATION_SIZE));
+    }
+    byte[] expected = randomBytes(PREALLOCATION_SIZE / 2);
+
+    try (OutputStream stream = buffer.openForWriting()) {
+      stream.write(expected);
+    }
+
+    assertEquals("Length", expected.length, file.length());
+    try (InputStream stream = buffer.openForReading()) {
+      assertArrayEquals("Content", expected, IOUtils.toByteArray(stream));
+    }
+  }
+
+  @Test
+  public void shouldReadExistingFile() throws IOException {
+    byte[] expected = randomBytes(PREALLOCATION_SIZE);
+    file = file(folder, expected);
+    buffer = new MappedFileBuffer(file);
+
+    try (InputStream stream = buffer.openForReading()) {
+      assertEquals("Skipped", 1, stream.skip(1));
+      assertArrayEquals("Content", Arrays.copyOfRange(expected, 1, expected.length), IOUtils.toByteArray(stream));
+    }
+  }
+
+  @Test
+  public void shouldDeleteTemporaryFileWhenClosed() throws IOException {
+    MappedFileBuffer temporary = new MappedFileBuffer();
+    file = temporary.getFile();
+    try (OutputStream stream = temporary.openForWriting()) {
+      stream.write(randomBytes(PREALLOCATION_SIZE));
+    }
+    assertTrue("Missing temporary file", file.exists());
+
+    temporary.close();
+
+    assertFalse("Temporary file not deleted", file.exists());
+  }
+
+  @Test
+  public void shouldKeepGivenFileWhenClosed() throws IOException {
+    file = folder.newFile();
+    buffer = new MappedFileBuffer(file);
+    try (OutputStream stream = buffer.openForWriting()) {
+      stream.write(randomBytes(PREALLOCATION_SIZE));
+    }
+
+    buffer.close();
+
+    assertEquals("Length", PREALLOCATION_SIZE, file.length());
+  }
+
+  @Test
+  public void shouldReadEmptyFile() throws IOException {
+    file = folder.newFile();
+    buffer = new MappedFileBuffer(file);
+
+    try (InputStream stream = buffer.openForReading()) {
+      assertEquals("End of stream", -1, stream.read());
+    }
+  }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenDeflatingInParallel extends TestCase {
+
+  private static final int NUM_THREADS = 4;
+  private static final int BLOCK_SIZE = 32 * 1024;
+  private static final String[] WORDS = { "archive", "submission", "information", "package", "content", "hash",
+      "digital", "object", "the", "of", "and", "a" };
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+  private final ZipAssembler zip = new ParallelDeflateZipAssembler(CompressionPolicy.always(Compression.DEFLATED),
+      NUM_THREADS, BLOCK_SIZE);
+  private final ByteArrayInputOutputStream output = new ByteArrayInputOutputStream();
+
+  @Test
+  public void shouldProduceValidEntries() throws IOException {
+    byte[] large = someText(20 * BLOCK_SIZE + randomInt(1, BLOCK_SIZE));
+    byte[] exactBlocks = someText(3 * BLOCK_SIZE);
+    byte[] small = someText(randomInt(1, CompressionPolicy.SAMPLE_SIZE - 1));
+    HashAssembler expectedHashAssembler = new SingleHashAssembler();
+    expectedHashAssembler.initialize();
+    expectedHashAssembler.add(large, large.length);
+    Collection<EncodedHash> expectedHashes = expectedHashAssembler.get();
+
+    zip.begin(output);
+    Collection<EncodedHash> hashes = zip.addEntry("large", new ByteArrayInputStream(large), new SingleHashAssembler());
+    zip.addEntry("exact", new ByteArrayInputStream(exactBlocks), new NoHashAssembler());
+    zip.addEntry("small", new ByteArrayInputStream(small), new NoHashAssembler());
+    zip.close();
+
+    assertEquals("Hashes", expectedHashes, hashes);
+    try (ZipInputStream unzip = new ZipInputStream(output.getInputStream())) {
+      assertNextEntry(unzip, "large", large);
+      assertNextEntry(unzip, "exact", exactBlocks);
+      assertNextEntry(unzip, "small", small);
+      assertNull("Additional entries", unzip.getNextEntry());
+    }
+    try (ZipFile zipFile = new ZipFile(outputFile())) {
+      ZipEntry entry = zipFile.getEntry("large");
+      assertEquals("Size", large.length, entry.getSize());
+      assertTrue("Not compressed", entry.getCompressedSize() < large.length / 2);
+      try (InputStream content = zipFile.getInputStream(entry)) {
+        assertArrayEquals("Content", large, IOUtils.toByteArray(content));
+      }
+    }
+  }
+
+  private byte[] someText(int length) {
+    StringBuilder result = new StringBuilder(length + 64);
+    while (result.length() < length) {
+      result.append(WORDS[randomInt(WORDS.length - 1)]).append(' ');
+    }
+    result.setLength(length);
+    return result.toString()
+      .getBytes(StandardCharsets.US_ASCII);
+  }
+
+  private void assertNextEntry(ZipInputStream unzip, String name, byte[] content) throws IOException {
+    ZipEntry entry = unzip.getNextEntry();
+    assertNotNull("Missing entry " + name, entry);
+    assertEquals("Name", name, entry.getName());
+    assertArrayEquals("Content of " + name, content, IOUtils.toByteArray(unzip));
+  }
+
+  private File outputFile() throws IOException {
+    File result = temporaryFolder.newFile();
+    try (FileOutputStream out = new FileOutputStream(result)) {
+      IOUtils.copy(output.getInputStream(), out);
+    }
+    return result;
+  }
+
+  @Test
+  public void shouldBeReusableForSeveralZips() throws IOException {
+    byte[] content = someText(4 * BLOCK_SIZE);
+    for (int i = 0; i < 2; i++) {
+      ByteArrayInputOutputStream zipped = new ByteArrayInputOutputStream();
+      zip.begin(zipped);
+      zip.addEntry("entry", new ByteArrayInputStream(content), new NoHashAssembler());
+      zip.close();
+
+      try (ZipInputStream unzip = new ZipInputStream(zipped.getInputStream())) {
+        assertNextEntry(unzip, "entry", content);
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectBlocksSmallerThanDictionary() {
+    new ParallelDeflateZipAssembler(CompressionPolicy.contentAware(), NUM_THREADS, BLOCK_SIZE - 1);
+  }
+
+}
@@ -3,6 +3,7 @@
  */
 package com.opentext.ia.sdk.support.io;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 import java.nio.charset.Charset;
@@ -38,4 +39,23 @@ public class WhenEncoding extends TestCase {
     assertEquals("Text", text, new String(new Hex().decode(actual.getBytes(CHAR_SET)), CHAR_SET));
   }
 
+  @Test
+  public void shouldConvertBackFromBase64() {
+    byte[] bytes = randomBytes();
+
+    assertArrayEquals("Bytes", bytes, Encoding.BASE64.decode(Encoding.BASE64.encode(bytes)));
+  }
+
+  @Test
+  public void shouldConvertBackFromHex() {
+    byte[] bytes = randomBytes();
+
+    assertArrayEquals("Bytes", bytes, Encoding.HEX.decode(Encoding.HEX.encode(bytes)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectInvalidHex() {
+    Encoding.HEX.decode("xyz");
+  }
+
 }
@@ -6,6 +6,11 @@ package com.opentext.ia.sdk.support.io;
 import static org.junit.Assert.*;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import org.junit.Test;
 
@@ -22,4 +27,29 @@ public class WhenHandlingIoExceptions {
     assertSame("Wrapped exception", original, wrapper.getCause());
   }
 
+  @Test
+  public void shouldPerformCheckedActionForEachElementOfStream() throws IOException {
+    List<String> consumed = new ArrayList<>();
+
+    IOStreams.forEachChecked(Stream.of("a", "b", "c"), consumed::add);
+
+    assertEquals("Consumed", Arrays.asList("a", "b", "c"), consumed);
+  }
+
+  @Test
+  public void shouldRethrowIoExceptionFromStreamAction() {
+    IOException original = new IOException();
+    AtomicBoolean closed = new AtomicBoolean();
+
+    try {
+      IOStreams.forEachChecked(Stream.of("a").onClose(() -> closed.set(true)), element -> {
+        throw original;
+      });
+      fail("Missing exception");
+    } catch (IOException e) {
+      assertSame("Exception", original, e);
+    }
+    assertTrue("Stream not closed", closed.get());
+  }
+
 }
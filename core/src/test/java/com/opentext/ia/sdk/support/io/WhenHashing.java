@@ -5,11 +5,17 @@ package com.opentext.ia.sdk.support.io;
 
 import static org.junit.Assert.*;
 
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Hex;
 import org.junit.Test;
 
 import com.opentext.ia.test.TestCase;
@@ -50,4 +56,41 @@ public class WhenHashing extends TestCase {
     assertEquals("Size after initializing", 0, hashAssembler.numBytesHashed());
   }
 
+  @Test
+  public void shouldAssembleSeveralHashesInOnePass() throws NoSuchAlgorithmException {
+    assertMultipleHashes(new MultiHashAssembler(new SingleHashAssembler(),
+        new SingleHashAssembler(HashFunction.MD5, Encoding.HEX)));
+  }
+
+  private void assertMultipleHashes(HashAssembler multiHashAssembler) throws NoSuchAlgorithmException {
+    byte[] content = randomBytes();
+    int half = content.length / 2;
+
+    multiHashAssembler.initialize();
+    multiHashAssembler.add(content, half);
+    multiHashAssembler.add(ByteBuffer.wrap(content, half, content.length - half));
+    List<EncodedHash> actual = new ArrayList<>(multiHashAssembler.get());
+
+    assertEquals("# bytes hashed", content.length, multiHashAssembler.numBytesHashed());
+    assertEquals("# hashes", 2, actual.size());
+    assertEquals("Algorithm #1", EXPECTED_HASH_FUNCTION, actual.get(0).getHashFunction());
+    assertArrayEquals("Digest #1", MessageDigest.getInstance(EXPECTED_HASH_FUNCTION)
+      .digest(content), Base64.decodeBase64(actual.get(0).getValue()));
+    assertEquals("Algorithm #2", "MD5", actual.get(1).getHashFunction());
+    assertEquals("Encoding #2", "hex", actual.get(1).getEncoding());
+    assertEquals("Digest #2", Hex.encodeHexString(MessageDigest.getInstance("MD5")
+      .digest(content)), actual.get(1).getValue());
+  }
+
+  @Test
+  public void shouldAssembleSeveralHashesConcurrently() throws NoSuchAlgorithmException {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      assertMultipleHashes(new MultiHashAssembler(executor, new SingleHashAssembler(),
+          new SingleHashAssembler(HashFunction.MD5, Encoding.HEX)));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenSpillingBufferedDataToFile extends TestCase {
+
+  private static final int THRESHOLD = 1024;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  private final List<File> spilled = new ArrayList<>();
+  private HybridBuffer buffer;
+
+  @Test
+  public void shouldKeepSmallDataInMemory() throws IOException {
+    buffer = new HybridBuffer(THRESHOLD, folder.getRoot(), spilled::add);
+    byte[] expected = write(THRESHOLD);
+
+    assertFalse("Spilled", buffer.isSpilled());
+    assertTrue("Spill notification", spilled.isEmpty());
+    assertEquals("Length", expected.length, buffer.length());
+    assertArrayEquals("Content", expected, read());
+  }
+
+  private byte[] write(int length) throws IOException {
+    byte[] result = new byte[length];
+    for (int i = 0; i < length; i++) {
+      result[i] = (byte)randomInt(Byte.MAX_VALUE);
+    }
+    try (OutputStream stream = buffer.openForWriting()) {
+      int half = length / 2;
+      stream.write(result, 0, half);
+      for (int i = half; i < length; i++) {
+        stream.write(result[i]);
+      }
+    }
+    return result;
+  }
+
+  private byte[] read() throws IOException {
+    try (InputStream stream = buffer.openForReading()) {
+      return IOUtils.toByteArray(stream);
+    }
+  }
+
+  @Test
+  public void shouldMoveLargeDataToFile() throws IOException {
+    buffer = new HybridBuffer(THRESHOLD, folder.getRoot(), spilled::add);
+    byte[] expected = write(3 * THRESHOLD);
+
+    assertTrue("Spilled", buffer.isSpilled());
+    assertEquals("Spill notifications", 1, spilled.size());
+    assertEquals("File length", expected.length, spilled.get(0).length());
+    assertEquals("Length", expected.length, buffer.length());
+    assertArrayEquals("Content", expected, read());
+  }
+
+  @Test
+  public void shouldDeleteFileWhenClosed() throws IOException {
+    buffer = new HybridBuffer(THRESHOLD, folder.getRoot(), spilled::add);
+    write(2 * THRESHOLD);
+
+    buffer.close();
+
+    assertFalse("File not deleted", spilled.get(0).exists());
+    assertEquals("Length", 0, buffer.length());
+  }
+
+  @Test
+  public void shouldDeleteFileWhenRewritten() throws IOException {
+    buffer = new HybridBuffer(THRESHOLD, folder.getRoot(), spilled::add);
+    write(2 * THRESHOLD);
+
+    byte[] expected = write(THRESHOLD / 2);
+
+    assertFalse("File not deleted", spilled.get(0).exists());
+    assertFalse("Spilled", buffer.isSpilled());
+    assertArrayEquals("Content", expected, read());
+  }
+
+}
@@ -8,15 +8,25 @@ import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.Random;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.ArgumentCaptor;
 
 import com.opentext.ia.test.TestCase;
@@ -24,6 +34,15 @@ import com.opentext.ia.test.TestCase;
 
 public class WhenZipping extends TestCase {
 
+  private static final int MANY_ENTRIES = 70_000;
+  private static final String METHOD = "Method";
+  private static final String HASHES = "Hashes";
+  private static final String BEFORE = "before";
+  private static final String FILE = "file";
+  private static final String AFTER = "after";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
   private final ZipAssembler zip = new DefaultZipAssembler();
   private final ByteArrayInputOutputStream output = new ByteArrayInputOutputStream();
 
@@ -83,4 +102,263 @@ public class WhenZipping extends TestCase {
     return new EncodedHash(someName(), someName(), someName());
   }
 
+  @Test
+  public void shouldAddCompressedEntries() throws IOException {
+    String name1 = someName();
+    byte[] content1 = randomBytes();
+    String name2 = someName();
+    byte[] content2 = randomBytes();
+    HashAssembler hashAssembler = new SingleHashAssembler();
+    hashAssembler.initialize();
+    hashAssembler.add(content1, content1.length);
+    Collection<EncodedHash> expectedHashes = hashAssembler.get();
+    CompressedContent compressed =
+        CompressedContent.deflate(new ByteArrayInputStream(content1), new MemoryBuffer(), hashAssembler);
+
+    zip.begin(output);
+    zip.addEntry(name1, compressed);
+    zip.addEntry(name2, new ByteArrayInputStream(content2), hashAssembler);
+    zip.close();
+
+    assertEquals(HASHES, expectedHashes, compressed.getHashes());
+    assertEquals("Size", content1.length, compressed.getSize());
+    try (InputStream uncompressed = compressed.openForReading()) {
+      assertArrayEquals("Uncompressed content", content1, IOUtils.toByteArray(uncompressed));
+    }
+    try (ZipFile zipFile = new ZipFile(outputFile())) {
+      assertEntry(zipFile, name1, content1);
+      assertEntry(zipFile, name2, content2);
+    }
+  }
+
+  private File outputFile() throws IOException {
+    File result = temporaryFolder.newFile();
+    try (FileOutputStream out = new FileOutputStream(result)) {
+      IOUtils.copy(output.getInputStream(), out);
+    }
+    return result;
+  }
+
+  private void assertEntry(ZipFile zipFile, String name, byte[] expected) throws IOException {
+    ZipEntry entry = zipFile.getEntry(name);
+    assertNotNull("Missing entry " + name, entry);
+    assertEquals("Size of " + name, expected.length, entry.getSize());
+    try (InputStream content = zipFile.getInputStream(entry)) {
+      assertArrayEquals("Content of " + name, expected, IOUtils.toByteArray(content));
+    }
+  }
+
+  @Test
+  public void shouldStoreIncompressibleContent() throws IOException {
+    String name = someName();
+    byte[] content = new byte[4 * CompressionPolicy.SAMPLE_SIZE];
+    new Random().nextBytes(content);
+    Collection<EncodedHash> expectedHashes = hashesOf(content);
+
+    zip.begin(output);
+    Collection<EncodedHash> hashes = zip.addEntry(name, new ByteArrayInputStream(content), new SingleHashAssembler());
+    zip.close();
+
+    assertEquals(HASHES, expectedHashes, hashes);
+    try (ZipFile zipFile = new ZipFile(outputFile())) {
+      assertEntry(zipFile, name, content);
+      assertEquals(METHOD, ZipEntry.STORED, zipFile.getEntry(name).getMethod());
+    }
+    try (ZipInputStream unzip = new ZipInputStream(output.getInputStream())) {
+      assertEquals("Entry", name, unzip.getNextEntry().getName());
+      assertArrayEquals("Content", content, IOUtils.toByteArray(unzip));
+    }
+  }
+
+  private Collection<EncodedHash> hashesOf(byte[] content) {
+    HashAssembler hashAssembler = new SingleHashAssembler();
+    hashAssembler.initialize();
+    hashAssembler.add(content, content.length);
+    return hashAssembler.get();
+  }
+
+  @Test
+  public void shouldDeflateCompressibleContent() throws IOException {
+    String name = someName() + ".txt";
+    byte[] content = compressibleContent(4 * CompressionPolicy.SAMPLE_SIZE);
+    Collection<EncodedHash> expectedHashes = hashesOf(content);
+
+    zip.begin(output);
+    Collection<EncodedHash> hashes = zip.addEntry(name, new ByteArrayInputStream(content), new SingleHashAssembler());
+    zip.close();
+
+    assertEquals(HASHES, expectedHashes, hashes);
+    try (ZipFile zipFile = new ZipFile(outputFile())) {
+      assertEntry(zipFile, name, content);
+      ZipEntry entry = zipFile.getEntry(name);
+      assertEquals(METHOD, ZipEntry.DEFLATED, entry.getMethod());
+      assertTrue("Not compressed", entry.getCompressedSize() < entry.getSize());
+    }
+  }
+
+  private byte[] compressibleContent(int length) {
+    byte[] result = new byte[length];
+    for (int i = 0; i < length; i++) {
+      result[i] = (byte)('a' + i % 7);
+    }
+    return result;
+  }
+
+  @Test
+  public void shouldStoreContentWithCompressedExtension() throws IOException {
+    String name = someName() + ".JPG";
+    byte[] content = compressibleContent(CompressionPolicy.SAMPLE_SIZE / 2);
+
+    zip.begin(output);
+    zip.addEntry(name, new ByteArrayInputStream(content), new NoHashAssembler());
+    zip.close();
+
+    try (ZipFile zipFile = new ZipFile(outputFile())) {
+      assertEntry(zipFile, name, content);
+      assertEquals(METHOD, ZipEntry.STORED, zipFile.getEntry(name).getMethod());
+    }
+  }
+
+  @Test
+  public void shouldApplyCompressionPolicy() throws IOException {
+    ZipAssembler storingZip = new DefaultZipAssembler(CompressionPolicy.always(Compression.STORED));
+    String name = someName();
+    byte[] content = compressibleContent(3 * CompressionPolicy.SAMPLE_SIZE);
+
+    storingZip.begin(output);
+    storingZip.addEntry(name, new ByteArrayInputStream(content), new NoHashAssembler());
+    storingZip.close();
+
+    try (ZipFile zipFile = new ZipFile(outputFile())) {
+      assertEntry(zipFile, name, content);
+      assertEquals(METHOD, ZipEntry.STORED, zipFile.getEntry(name).getMethod());
+    }
+  }
+
+  @Test
+  public void shouldTransferStoredContentFromFileToFile() throws IOException {
+    byte[] content = new byte[3 * CompressionPolicy.SAMPLE_SIZE + 1];
+    new Random().nextBytes(content);
+    File source = file(temporaryFolder, content);
+    File zipFile = temporaryFolder.newFile();
+    byte[] other = compressibleContent(CompressionPolicy.SAMPLE_SIZE);
+
+    zip.begin(new FileOutputStream(zipFile));
+    zip.addEntry(BEFORE, new ByteArrayInputStream(other), new NoHashAssembler());
+    Collection<EncodedHash> hashes;
+    try (InputStream stream = new FileInputStream(source)) {
+      hashes = zip.addEntry(FILE, stream, new SingleHashAssembler());
+    }
+    zip.addEntry(AFTER, new ByteArrayInputStream(other), new NoHashAssembler());
+    zip.close();
+
+    assertEquals(HASHES, hashesOf(content), hashes);
+    assertZippedFile(zipFile, content, other);
+  }
+
+  private void assertZippedFile(File zipFile, byte[] content, byte[] other) throws IOException {
+    try (ZipFile unzip = new ZipFile(zipFile)) {
+      assertEntry(unzip, BEFORE, other);
+      assertEntry(unzip, FILE, content);
+      assertEntry(unzip, AFTER, other);
+      assertEquals(METHOD, ZipEntry.STORED, unzip.getEntry(FILE).getMethod());
+    }
+    try (ZipInputStream unzip = new ZipInputStream(new FileInputStream(zipFile))) {
+      unzip.getNextEntry();
+      assertEquals("Entry", FILE, unzip.getNextEntry().getName());
+      assertArrayEquals("Content", content, IOUtils.toByteArray(unzip));
+      assertEquals("Entry", AFTER, unzip.getNextEntry().getName());
+    }
+  }
+
+  @Test
+  public void shouldCopyStoredContentFromFileToStream() throws IOException {
+    byte[] content = new byte[2 * CompressionPolicy.SAMPLE_SIZE];
+    new Random().nextBytes(content);
+    File source = file(temporaryFolder, content);
+    byte[] other = compressibleContent(CompressionPolicy.SAMPLE_SIZE);
+
+    zip.begin(output);
+    zip.addEntry(BEFORE, new ByteArrayInputStream(other), new NoHashAssembler());
+    try (InputStream stream = new FileInputStream(source)) {
+      zip.addEntry(FILE, stream, new NoHashAssembler());
+    }
+    zip.addEntry(AFTER, new ByteArrayInputStream(other), new NoHashAssembler());
+    zip.close();
+
+    assertZippedFile(outputFile(), content, other);
+  }
+
+  @Test(expected = IOException.class)
+  public void shouldRejectDuplicateEntries() throws IOException {
+    String name = someName();
+    zip.begin(output);
+    zip.addEntry(name, new ByteArrayInputStream(randomBytes()), new NoHashAssembler());
+    zip.addEntry(name, new ByteArrayInputStream(randomBytes()), new NoHashAssembler());
+  }
+
+  @Test
+  public void shouldSupportManyEntries() throws IOException {
+    File file = temporaryFolder.newFile();
+    zip.begin(new FileOutputStream(file));
+    for (int i = 0; i < MANY_ENTRIES; i++) {
+      zip.addEntry(Integer.toString(i), new ByteArrayInputStream(new byte[] { (byte)i }), new NoHashAssembler());
+    }
+    zip.close();
+
+    try (ZipFile zipFile = new ZipFile(file)) {
+      assertEquals("# entries", MANY_ENTRIES, zipFile.size());
+      assertEntry(zipFile, Integer.toString(MANY_ENTRIES - 1), new byte[] { (byte)(MANY_ENTRIES - 1) });
+    }
+  }
+
+  @Test
+  public void shouldReportEachEntryWithTimeSpentInEachStage() throws IOException {
+    List<long[]> reported = new ArrayList<>();
+    String name = someName();
+    zip.setEntryListener(entry -> {
+      assertEquals("Name", name, entry.getName());
+      reported.add(new long[] { entry.getSize(), entry.getReadTime(), entry.getHashTime(), entry.getWriteTime() });
+    });
+    byte[] content = new byte[3 * CompressionPolicy.SAMPLE_SIZE];
+    new Random().nextBytes(content);
+
+    zip.begin(output);
+    zip.addEntry(name, new ByteArrayInputStream(content), new SingleHashAssembler());
+    zip.close();
+
+    assertEquals("# entries", 1, reported.size());
+    long[] entry = reported.get(0);
+    assertEquals("Size", content.length, entry[0]);
+    assertTrue("Missing read time", entry[1] > 0);
+    assertTrue("Missing hash time", entry[2] > 0);
+    assertTrue("Missing write time", entry[3] > 0);
+  }
+
+  @Test
+  public void shouldReportCompressedSizeOfEachEntry() throws IOException {
+    List<Long> compressedSizes = new ArrayList<>();
+    List<Long> zipSizes = new ArrayList<>();
+    zip.setEntryListener(entry -> {
+      compressedSizes.add(entry.getCompressedSize());
+      zipSizes.add(entry.getZipSize());
+    });
+    byte[] compressible = new byte[3 * CompressionPolicy.SAMPLE_SIZE];
+    byte[] incompressible = new byte[compressible.length];
+    new Random().nextBytes(incompressible);
+
+    zip.begin(output);
+    zip.addEntry(someName(), new ByteArrayInputStream(compressible), new NoHashAssembler());
+    zip.addEntry(someName(), new ByteArrayInputStream(incompressible), new NoHashAssembler());
+    zip.close();
+
+    assertEquals("# entries", 2, compressedSizes.size());
+    assertTrue("Compressible entry not compressed", compressedSizes.get(0) < compressible.length / 10);
+    assertEquals("Stored entry", incompressible.length, compressedSizes.get(1).longValue());
+    for (int i = 0; i < 2; i++) {
+      assertTrue("Entry size in ZIP doesn't include headers", zipSizes.get(i) > compressedSizes.get(i));
+    }
+    assertTrue("Entries larger than ZIP", zipSizes.get(0) + zipSizes.get(1) < output.size());
+  }
+
 }
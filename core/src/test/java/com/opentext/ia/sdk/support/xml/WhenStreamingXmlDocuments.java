@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.xml;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+
+public class WhenStreamingXmlDocuments extends XmlBuilderTestCase<Void> {
+
+  private static final String XML = "XML";
+  private static final String ROOT = "root";
+  private static final String CHILD = "child";
+
+  private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+  @Override
+  protected XmlBuilder<Void> newBuilder() {
+    return XmlBuilder.newDocument(output);
+  }
+
+  @Override
+  protected String getOutput() {
+    getBuilder().build();
+    try {
+      return output.toString(StandardCharsets.UTF_8.name());
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Test
+  public void shouldEncodeTextAsUtf8() {
+    String text = "caf\u00e9 \u20ac \ud83d\ude00 &";
+
+    getBuilder().element(ROOT, text);
+
+    assertEquals(XML, "<root>caf\u00e9 \u20ac \ud83d\ude00 &amp;</root>" + System.lineSeparator(), getOutput());
+  }
+
+  @Test
+  public void shouldWriteTextThatDoesNotFitInBuffer() {
+    String text = randomString(20000);
+
+    getBuilder().element(ROOT, text);
+
+    assertEquals(XML, "<root>" + text + "</root>" + System.lineSeparator(), getOutput());
+  }
+
+  @Test
+  public void shouldLeaveOutIndentationWhenCompact() {
+    StreamingXmlBuilder.compact(output)
+        .namespace("urn:test")
+        .element(ROOT)
+            .element(CHILD, "text")
+            .element(CHILD)
+                .attribute("name", "value", "urn:other")
+            .end()
+        .end()
+    .build();
+
+    assertEquals(XML, "<root xmlns=\"urn:test\"><child>text</child>"
+        + "<child xmlns:ns1=\"urn:other\" ns1:name=\"value\"/></root>", getOutput());
+  }
+
+  @Test
+  public void shouldBuildSeveralDocumentsToTheSameStream() {
+    String nl = System.lineSeparator();
+    XmlBuilder<Void> builder = new StreamingXmlBuilder(output, "  ");
+    for (int i = 0; i < 2; i++) {
+      builder.element(ROOT)
+          .element(CHILD)
+              .attribute("name", Integer.toString(i), "urn:test")
+              .element("grandChild", "text")
+      .build();
+    }
+
+    String document = "  <root>" + nl
+        + "    <child xmlns:ns1=\"urn:test\" ns1:name=\"%d\">" + nl
+        + "      <grandChild>text</grandChild>" + nl
+        + "    </child>" + nl
+        + "  </root>" + nl;
+    assertEquals(XML, String.format(document + document, 0, 1), getOutput());
+  }
+
+}
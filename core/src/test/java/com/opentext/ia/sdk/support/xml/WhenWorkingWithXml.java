@@ -4,6 +4,7 @@
 package com.opentext.ia.sdk.support.xml;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -99,4 +100,11 @@ public class WhenWorkingWithXml extends TestCase {
     XmlUtil.validate(toStream(document), toStream(document), randomString());
   }
 
+  @Test
+  public void shouldCompileSchemaOnlyOnce() {
+    String schema = XmlUtil.toString(someSchema(randomString(8)));
+
+    assertSame("Compiled schema", XmlSchemaCache.get(toStream(schema)), XmlSchemaCache.get(toStream(schema)));
+  }
+
 }
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sip.assembly.stringtemplate;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.stringtemplate.v4.Interpreter;
+import org.stringtemplate.v4.ST;
+import org.stringtemplate.v4.misc.ObjectModelAdaptor;
+import org.stringtemplate.v4.misc.STNoSuchPropertyException;
+
+
+/**
+ * Model adaptor for arbitrary objects that finds properties the same way as StringTemplate's own
+ * {@linkplain ObjectModelAdaptor}, but that looks up the getter or field for a property only once per class. Unlike
+ * StringTemplate's adaptor it isn't synchronized, so that several threads can render rows at the same time.
+ */
+class CachingModelAdaptor extends ObjectModelAdaptor {
+
+  private final ClassValue<Map<String, Member>> membersByClass = new ClassValue<Map<String, Member>>() {
+    @Override
+    protected Map<String, Member> computeValue(Class<?> type) {
+      return new ConcurrentHashMap<>();
+    }
+  };
+
+  @Override
+  public Object getProperty(Interpreter interpreter, ST template, Object model, Object property, String propertyName)
+      throws STNoSuchPropertyException {
+    Class<?> type = model.getClass();
+    if (property == null) {
+      return throwNoSuchProperty(type, propertyName, null);
+    }
+    Member member = memberOf(type, propertyName);
+    if (member == INVALID_MEMBER) {
+      // Like ObjectModelAdaptor, don't mistake the marker for a missing member for a field
+      return throwNoSuchProperty(type, propertyName, null);
+    }
+    try {
+      if (member instanceof Method) {
+        return ((Method)member).invoke(model);
+      }
+      if (member instanceof Field) {
+        return ((Field)member).get(model);
+      }
+    } catch (ReflectiveOperationException e) {
+      return throwNoSuchProperty(type, propertyName, e);
+    }
+    return throwNoSuchProperty(type, propertyName, null);
+  }
+
+  private Member memberOf(Class<?> type, String propertyName) {
+    Map<String, Member> members = membersByClass.get(type);
+    Member result = members.get(propertyName);
+    if (result == null) {
+      result = findMemberOf(type, propertyName);
+      members.put(propertyName, result);
+    }
+    return result;
+  }
+
+  private static Member findMemberOf(Class<?> type, String propertyName) {
+    String suffix = propertyName.substring(0, 1)
+      .toUpperCase(Locale.ENGLISH) + propertyName.substring(1);
+    Member result = tryGetMethod(type, "get" + suffix);
+    if (result == null) {
+      result = tryGetMethod(type, "is" + suffix);
+    }
+    if (result == null) {
+      result = tryGetMethod(type, "has" + suffix);
+    }
+    if (result == null) {
+      result = tryGetField(type, propertyName);
+    }
+    return result == null ? INVALID_MEMBER : result;
+  }
+
+}
@@ -26,6 +26,11 @@ import com.opentext.ia.sdk.sip.Template;
  * <dt><code>content</code></dt>
  * <dd>The reference information and the encoded hashes of the {@linkplain DigitalObject}s associated with the domain object, if any</dd>
  * </dl>
+ * <p>
+ * Each thread that renders rows reuses its own template instance, interpreter, and writer wrapper, so that the cost
+ * per row is only that of rendering the row. Rows can be rendered from several threads at the same time, each into its
+ * own writer. Subclasses that override {@linkplain #prepareTemplate(ST, Object, Map)} get a new template instance per
+ * row instead.
  * @param <D> The type of domain object to replace with text
  */
 public class StringTemplate<D> extends FixedHeaderAndFooterTemplate<D> {
@@ -37,6 +42,8 @@ public class StringTemplate<D> extends FixedHeaderAndFooterTemplate<D> {
   private static final String CONTENT_VARIABLE = "content";
 
   private final ST templatePrototype;
+  private final boolean reuseTemplates;
+  private final ThreadLocal<RowRenderer> renderers;
 
   /**
    * Create an instance.
@@ -70,6 +77,20 @@ public class StringTemplate<D> extends FixedHeaderAndFooterTemplate<D> {
   public StringTemplate(String header, String footer, String row, char delimeterStart, char delimeterEnd) {
     super(header, footer);
     this.templatePrototype = compileTemplate(row, delimeterStart, delimeterEnd);
+    this.reuseTemplates = !overridesPrepareTemplate();
+    this.renderers = ThreadLocal.withInitial(() -> new RowRenderer(templatePrototype));
+  }
+
+  private boolean overridesPrepareTemplate() {
+    for (Class<?> type = getClass(); !StringTemplate.class.equals(type); type = type.getSuperclass()) {
+      try {
+        type.getDeclaredMethod("prepareTemplate", ST.class, Object.class, Map.class);
+        return true;
+      } catch (NoSuchMethodException e) {
+        // Keep looking in the superclass
+      }
+    }
+    return false;
   }
 
   private ST compileTemplate(String row, char delimeterStartChar, char delimeterEndChar) {
@@ -86,10 +107,13 @@ public class StringTemplate<D> extends FixedHeaderAndFooterTemplate<D> {
    * <li>an {@linkplain XmlDateRenderer} which renders Date instances into the standard XML date and time format</li>
    * <li>an {@linkplain MapModelAdaptor} which allows {@linkplain java.util.Map} to be used transparently as domain
    * objects.</li>
+   * <li>a {@linkplain CachingModelAdaptor} which looks up the properties of other objects once per class, without
+   * blocking other threads</li>
    * </ul>
    * @param group The template group
    */
   protected void prepareGroup(STGroup group) {
+    registerAdaptor(group, Object.class, new CachingModelAdaptor());
     registerAdaptor(group, Map.class, new MapModelAdaptor());
     registerRenderer(group, Date.class, new XmlDateRenderer());
   }
@@ -118,8 +142,13 @@ public class StringTemplate<D> extends FixedHeaderAndFooterTemplate<D> {
 
   @Override
   public void writeRow(D domainObject, Map<String, ContentInfo> contentInfo, PrintWriter writer) throws IOException {
-    ST template = prepareTemplate(templatePrototype, domainObject, contentInfo);
-    template.write(new NoIndentWriter(writer));
+    if (reuseTemplates) {
+      renderers.get()
+        .render(domainObject, contentInfo, writer);
+    } else {
+      ST template = prepareTemplate(templatePrototype, domainObject, contentInfo);
+      template.write(new NoIndentWriter(writer));
+    }
   }
 
   /**
@@ -136,4 +165,37 @@ public class StringTemplate<D> extends FixedHeaderAndFooterTemplate<D> {
     return template;
   }
 
+
+
+  /**
+   * Renders rows on a single thread, reusing the template instance, interpreter, and writer wrapper for all rows.
+   */
+  private static final class RowRenderer {
+
+    private final ST template;
+    private final Interpreter interpreter;
+    private final NoIndentWriter output;
+
+    RowRenderer(ST prototype) {
+      template = new ST(prototype);
+      interpreter = new Interpreter(template.groupThatCreatedThisInstance, template.impl.nativeGroup.errMgr, false);
+      output = new NoIndentWriter(null);
+    }
+
+    void render(Object domainObject, Map<String, ContentInfo> contentInfo, PrintWriter writer) {
+      output.out = writer;
+      template.add(MODEL_VARIABLE, domainObject);
+      template.add(CONTENT_VARIABLE, contentInfo);
+      try {
+        interpreter.exec(output, new InstanceScope(null, template));
+      } finally {
+        // Let go of this row, so that the next row doesn't add to it and the objects involved can be collected
+        template.remove(MODEL_VARIABLE);
+        template.remove(CONTENT_VARIABLE);
+        output.out = null;
+      }
+    }
+
+  }
+
 }
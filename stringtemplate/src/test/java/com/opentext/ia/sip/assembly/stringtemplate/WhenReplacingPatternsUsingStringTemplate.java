@@ -9,13 +9,20 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Test;
+import org.stringtemplate.v4.ST;
 
+import com.opentext.ia.sdk.sip.ContentInfo;
 import com.opentext.ia.sdk.sip.Template;
 import com.opentext.ia.sdk.support.datetime.Dates;
 import com.opentext.ia.test.TestCase;
@@ -23,6 +30,9 @@ import com.opentext.ia.test.TestCase;
 
 public class WhenReplacingPatternsUsingStringTemplate extends TestCase {
 
+  private static final int NUM_THREADS = 4;
+  private static final int NUM_ROWS = 100;
+
   @Test
   public void shouldReplaceVariables() throws IOException {
     Date date = new Date();
@@ -47,4 +57,107 @@ public class WhenReplacingPatternsUsingStringTemplate extends TestCase {
     assertEquals("Text", prefix + value1 + infix + value2  + Dates.toIso(date) + suffix, actual.toString());
   }
 
+  @Test
+  public void shouldRenderPropertiesOfObjects() throws IOException {
+    Template<Person> template = new StringTemplate<>("", "", "$model.name$ $model.adult$");
+    String name = randomString();
+
+    assertEquals("Properties", name + " true", render(template, new Person(name, true)));
+  }
+
+  private <D> String render(Template<D> template, D domainObject) throws IOException {
+    Writer result = new StringWriter();
+    template.writeRow(domainObject, Collections.emptyMap(), new PrintWriter(result));
+    return result.toString();
+  }
+
+  @Test
+  public void shouldRenderEachRowOnItsOwn() throws IOException {
+    Template<Person> template = new StringTemplate<>("", "", "$model.name$");
+    String name1 = randomString();
+    String name2 = randomString();
+    Writer actual = new StringWriter();
+    PrintWriter writer = new PrintWriter(actual);
+
+    template.writeRow(new Person(name1, true), Collections.emptyMap(), writer);
+    template.writeRow(new Person(name2, false), Collections.emptyMap(), writer);
+
+    assertEquals("Rows", name1 + name2, actual.toString());
+  }
+
+  @Test
+  public void shouldRenderDifferentRowsOnEachThread() throws Exception {
+    Template<Person> template = new StringTemplate<>("", "", "$if(model.adult)$$model.name$$endif$;");
+    ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+    try {
+      List<Future<String>> rendered = new ArrayList<>();
+      List<String> expected = new ArrayList<>();
+      for (int i = 0; i < NUM_THREADS; i++) {
+        List<Person> people = new ArrayList<>();
+        StringBuilder adults = new StringBuilder();
+        for (int j = 0; j < NUM_ROWS; j++) {
+          Person person = new Person(randomString(8), j % 2 == 0);
+          people.add(person);
+          adults.append(person.isAdult() ? person.getName() : "").append(';');
+        }
+        expected.add(adults.toString());
+        rendered.add(executor.submit(() -> {
+          Writer result = new StringWriter();
+          PrintWriter writer = new PrintWriter(result);
+          for (Person person : people) {
+            template.writeRow(person, Collections.emptyMap(), writer);
+          }
+          return result.toString();
+        }));
+      }
+
+      for (int i = 0; i < NUM_THREADS; i++) {
+        assertEquals("Rows of thread #" + i, expected.get(i), rendered.get(i).get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void shouldRenderMissingPropertyAsEmpty() throws IOException {
+    Template<Person> template = new StringTemplate<>("", "", "[$model.missing$]");
+
+    assertEquals("Missing property", "[]", render(template, new Person(randomString(), true)));
+  }
+
+  @Test
+  public void shouldUseOverriddenTemplatePreparation() throws IOException {
+    String name = randomString();
+    Template<Person> template = new StringTemplate<Person>("", "", "$model.name$") {
+      @Override
+      protected ST prepareTemplate(ST prototype, Person domainObject, Map<String, ContentInfo> contentInfo) {
+        return super.prepareTemplate(prototype, new Person(name, false), contentInfo);
+      }
+    };
+
+    assertEquals("Prepared template", name, render(template, new Person(randomString(), true)));
+  }
+
+
+  public static class Person {
+
+    private final String name;
+    private final boolean adult;
+
+    public Person(String name, boolean adult) {
+      this.name = name;
+      this.adult = adult;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public boolean isAdult() {
+      return adult;
+    }
+
+  }
+
 }
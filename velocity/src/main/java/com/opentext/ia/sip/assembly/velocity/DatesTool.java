@@ -3,6 +3,8 @@
  */
 package com.opentext.ia.sip.assembly.velocity;
 
+import java.util.Date;
+
 import org.apache.velocity.tools.ConversionUtils;
 
 import com.opentext.ia.sdk.support.datetime.Dates;
@@ -14,7 +16,7 @@ import com.opentext.ia.sdk.support.datetime.Dates;
 public class DatesTool {
 
   public String format(Object date) {
-    return Dates.toIso(ConversionUtils.toDate(date));
+    return Dates.toIso(date instanceof Date ? (Date)date : ConversionUtils.toDate(date));
   }
 
 }
@@ -6,14 +6,16 @@ package com.opentext.ia.sip.assembly.velocity;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
+import java.io.StringReader;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
-import org.apache.velocity.app.Velocity;
-import org.apache.velocity.app.VelocityEngine;
-import org.apache.velocity.runtime.resource.loader.StringResourceLoader;
-import org.apache.velocity.runtime.resource.util.StringResourceRepository;
+import org.apache.velocity.exception.ParseErrorException;
+import org.apache.velocity.runtime.RuntimeConstants;
+import org.apache.velocity.runtime.RuntimeInstance;
+import org.apache.velocity.runtime.parser.ParseException;
 
 import com.opentext.ia.sdk.sip.ContentInfo;
 import com.opentext.ia.sdk.sip.DigitalObject;
@@ -30,13 +32,23 @@ import com.opentext.ia.sdk.sip.FixedHeaderAndFooterTemplate;
  * <dt><code>isodate</code></dt>
  *   <dd>A utility class to format a date in ISO 8601 format using the <code>format()</code> function</dd>
  * </dl>
+ * <p>
+ * All instances share a single Velocity engine, which is initialized only once. Each thread that renders rows reuses
+ * its own context, so that rows can be rendered from several threads at the same time, each into its own writer.
+ * Variables that a row sets are removed from the context afterwards, so they don't show up in the next row. Macros
+ * defined in a template are local to that template.
  * @param <D> The type of domain object to replace with text
  */
 public class VelocityTemplate<D> extends FixedHeaderAndFooterTemplate<D> {
 
   private static final String TEMPLATE_NAME = VelocityTemplate.class.getName();
+  private static final String MODEL_VARIABLE = "model";
+  private static final String CONTENT_VARIABLE = "content";
+  private static final String ISODATE_VARIABLE = "isodate";
+  private static final AtomicLong NUM_TEMPLATES = new AtomicLong();
 
   private final Template template;
+  private final ThreadLocal<VelocityContext> contexts = ThreadLocal.withInitial(VelocityTemplate::newContext);
 
   /**
    * Create an instance.
@@ -56,25 +68,67 @@ public class VelocityTemplate<D> extends FixedHeaderAndFooterTemplate<D> {
    */
   public VelocityTemplate(String header, String footer, String row) {
     super(header, footer);
-    VelocityEngine engine = new VelocityEngine();
-    engine.setProperty(Velocity.RESOURCE_LOADER, "string");
-    engine.addProperty("string.resource.loader.class", StringResourceLoader.class.getName());
-    engine.addProperty("string.resource.loader.repository.static", "false");
-    engine.init();
-    StringResourceRepository repository = (StringResourceRepository)engine.getApplicationAttribute(
-        StringResourceLoader.REPOSITORY_NAME_DEFAULT);
-    repository.putStringResource(TEMPLATE_NAME, row);
-    template = engine.getTemplate(TEMPLATE_NAME);
+    template = compileTemplate(TEMPLATE_NAME + '-' + NUM_TEMPLATES.incrementAndGet(), row);
+  }
+
+  private static Template compileTemplate(String name, String row) {
+    RuntimeInstance engine = SharedEngine.INSTANCE;
+    Template result = new Template();
+    result.setName(name);
+    result.setRuntimeServices(engine);
+    try {
+      result.setData(engine.parse(new StringReader(row), name));
+    } catch (ParseException e) {
+      throw new ParseErrorException(e, name);
+    }
+    result.initDocument();
+    return result;
+  }
+
+  private static VelocityContext newContext() {
+    VelocityContext result = new VelocityContext();
+    result.put(ISODATE_VARIABLE, new DatesTool());
+    return result;
   }
 
   @Override
   public void writeRow(D domainObject, Map<String, ContentInfo> contentInfo, PrintWriter writer)
       throws IOException {
-    VelocityContext context = new VelocityContext();
-    context.put("isodate", new DatesTool());
-    context.put("model", domainObject);
-    context.put("content", contentInfo);
-    template.merge(context, writer);
+    VelocityContext context = contexts.get();
+    context.put(MODEL_VARIABLE, domainObject);
+    context.put(CONTENT_VARIABLE, contentInfo);
+    try {
+      template.merge(context, writer);
+    } finally {
+      // Let go of this row, including variables it set, so that the next row starts afresh and the objects involved
+      // can be collected
+      for (Object key : context.getKeys()) {
+        if (!ISODATE_VARIABLE.equals(key)) {
+          context.remove(key);
+        }
+      }
+    }
+  }
+
+
+  /**
+   * Velocity engine that all templates share, initialized when the first template is created.
+   */
+  private static final class SharedEngine {
+
+    static final RuntimeInstance INSTANCE = newEngine();
+
+    private SharedEngine() {
+      // Holder for the shared instance
+    }
+
+    private static RuntimeInstance newEngine() {
+      RuntimeInstance result = new RuntimeInstance();
+      result.setProperty(RuntimeConstants.VM_PERM_INLINE_LOCAL, Boolean.TRUE);
+      result.init();
+      return result;
+    }
+
   }
 
 }
@@ -9,10 +9,15 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Test;
 
@@ -23,6 +28,11 @@ import com.opentext.ia.test.TestCase;
 
 public class WhenReplacingPatternsUsingVelocity extends TestCase {
 
+  private static final String FLAG = "flag";
+  private static final String FLAG_TEMPLATE = "#if($model.flag)#set($x = \"set\")#end[$!x]";
+  private static final int NUM_THREADS = 4;
+  private static final int NUM_ROWS = 100;
+
   @Test
   public void shouldReplaceVariables() throws IOException {
     String name1 = someString('n');
@@ -52,4 +62,73 @@ public class WhenReplacingPatternsUsingVelocity extends TestCase {
     return prefix + randomString(7);
   }
 
+  @Test
+  public void shouldNotCarryVariablesOverToTheNextRow() throws IOException {
+    Template<Map<String, Object>> template = new VelocityTemplate<>("", "", FLAG_TEMPLATE);
+    Writer actual = new StringWriter();
+    PrintWriter writer = new PrintWriter(actual);
+
+    template.writeRow(Collections.singletonMap(FLAG, true), Collections.emptyMap(), writer);
+    template.writeRow(Collections.emptyMap(), Collections.emptyMap(), writer);
+
+    assertEquals("Rows", "[set][]", actual.toString());
+  }
+
+  @Test
+  public void shouldRenderDifferentRowsOnEachThread() throws Exception {
+    Template<Map<String, Object>> template = new VelocityTemplate<>("", "", "$!model.name" + FLAG_TEMPLATE);
+    ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+    try {
+      List<Future<String>> rendered = new ArrayList<>();
+      List<String> expected = new ArrayList<>();
+      for (int i = 0; i < NUM_THREADS; i++) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        for (int j = 0; j < NUM_ROWS; j++) {
+          Map<String, Object> row = new HashMap<>();
+          String name = someString('v');
+          row.put("name", name);
+          boolean flagged = (i + j) % 2 == 0;
+          if (flagged) {
+            row.put(FLAG, true);
+          }
+          rows.add(row);
+          text.append(name).append(flagged ? "[set]" : "[]");
+        }
+        expected.add(text.toString());
+        rendered.add(executor.submit(() -> {
+          Writer result = new StringWriter();
+          PrintWriter writer = new PrintWriter(result);
+          for (Map<String, Object> row : rows) {
+            template.writeRow(row, Collections.emptyMap(), writer);
+          }
+          return result.toString();
+        }));
+      }
+
+      for (int i = 0; i < NUM_THREADS; i++) {
+        assertEquals("Rows of thread #" + i, expected.get(i), rendered.get(i).get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void shouldKeepMacrosLocalToTheirTemplate() throws IOException {
+    String value1 = someString('1');
+    String value2 = someString('2');
+    Template<String> template1 = new VelocityTemplate<>("", "", "#macro(show)" + value1 + "#end#show()");
+    Template<String> template2 = new VelocityTemplate<>("", "", "#macro(show)" + value2 + "#end#show()");
+
+    assertEquals("Text 1", value1, render(template1));
+    assertEquals("Text 2", value2, render(template2));
+  }
+
+  private String render(Template<String> template) throws IOException {
+    Writer result = new StringWriter();
+    template.writeRow(randomString(), Collections.emptyMap(), new PrintWriter(result));
+    return result.toString();
+  }
+
 }